@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ *
+ * Input automata of the benchmarks. Binary automata with 2 to 5 states are
+ * taken from the structuredAutomataLists directory (the system property
+ * benchmark.lists, by default computations/structuredAutomataLists relative to
+ * the working directory or its parent). Other state counts and alphabets (and
+ * ALLdfa with 5 states) are not covered by the lists; for them random minimal
+ * DFAs of the subclass are drawn by RandomDFASampler (by rejection for ALLdfa,
+ * by its Markov chain for the subclasses) with a seed fixed for every
+ * subclass, state count and alphabet size, so every run measures the same
+ * inputs. FF and SwF cannot be sampled above
+ * RandomDFASampler.MAX_PERMUTATION_TEST_STATES states, sample then fails.
+ *
+ */
+public class BenchmarkInputs {
+
+	// number of automata used by one benchmark invocation
+	public static final int SAMPLE_SIZE = 64;
+	// seed of the generated automata
+	public static final long SEED = 20220425L;
+	// maximal number of random draws for one automaton drawn by rejection
+	public static final long MAX_ATTEMPTS = 2_000_000L;
+
+	private static final String LISTS_PROPERTY = "benchmark.lists";
+	private static final String LISTS_DIRECTORY = "computations/structuredAutomataLists";
+
+	/**
+	 * Returns a sample of SAMPLE_SIZE automata of the given subclass (or of all
+	 * minimal DFAs for "ALLdfa"). The list entries are cycled when the list is
+	 * shorter than the sample.
+	 *
+	 * @param subclass
+	 * @param numberOfStates
+	 * @param alphabetSize
+	 * @return array of automata
+	 */
+	public static SimpleDFA[] sample(String subclass, int numberOfStates, int alphabetSize) {
+		List<String> codes = readList(subclass, numberOfStates, alphabetSize);
+		SimpleDFA[] automata = new SimpleDFA[SAMPLE_SIZE];
+		if (codes.isEmpty()) {
+			RandomDFASampler sampler = new RandomDFASampler(numberOfStates, alphabetSize, subclass);
+			sampler.setMaxAttempts(MAX_ATTEMPTS);
+			SplittableRandom random = new SplittableRandom(
+					SEED + 31 * (31 * subclass.hashCode() + numberOfStates) + alphabetSize);
+			for (int i = 0; i < automata.length; i++)
+				automata[i] = sampler.sample(random);
+			return automata;
+		}
+
+		for (int i = 0; i < automata.length; i++) {
+			String code = codes.get(i % codes.size()).trim();
+			DFASerialCodeAnalyzer analyzer = new DFASerialCodeAnalyzer(numberOfStates, alphabetSize);
+			analyzer.parse(code);
+			automata[i] = analyzer.getParsedAutomaton();
+		}
+		return automata;
+	}
+
+	/**
+	 * Support method reading the list of the given subclass, or returning an
+	 * empty list if there is none for the parameters.
+	 *
+	 * @param subclass
+	 * @param numberOfStates
+	 * @param alphabetSize
+	 * @return list of automaton encodings
+	 */
+	private static List<String> readList(String subclass, int numberOfStates, int alphabetSize) {
+		List<String> codes = new ArrayList<>();
+		if (alphabetSize != 2)
+			return codes;
+
+		Path file = listsDirectory().resolve("numOfStates" + numberOfStates)
+				.resolve(subclass + numberOfStates + ".txt");
+		if (!Files.isRegularFile(file))
+			return codes;
+		try {
+			for (String line : Files.readAllLines(file, StandardCharsets.UTF_8))
+				if (!line.trim().isEmpty())
+					codes.add(line);
+		} catch (IOException e) {
+			throw new RuntimeException("Cannot read automata list " + file + ".", e);
+		}
+		return codes;
+	}
+
+	/**
+	 * Support method locating the directory of the automata lists.
+	 *
+	 * @return Path
+	 */
+	private static Path listsDirectory() {
+		String property = System.getProperty(LISTS_PROPERTY);
+		if (property != null)
+			return Paths.get(property);
+		Path directory = Paths.get(LISTS_DIRECTORY);
+		if (Files.isDirectory(directory))
+			return directory;
+		return Paths.get("..").resolve(LISTS_DIRECTORY);
+	}
+
+}
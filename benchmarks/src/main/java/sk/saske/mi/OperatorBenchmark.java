@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ *
+ * Benchmarks of the basic automaton operations. Every invocation processes the
+ * whole sample of BenchmarkInputs.SAMPLE_SIZE automata (the binary operations
+ * pair the i-th automaton with the next one), the reported time is per
+ * automaton or pair.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OperatorBenchmark {
+
+	// maximal length of the words of the membership benchmarks
+	private static final int WORD_LENGTH = 8;
+
+	@Param({ "2", "3", "4", "5", "6", "8" })
+	public int stateCount;
+
+	@Param({ "2", "3" })
+	public int alphabetSize;
+
+	private SimpleDFA[] automata;
+	private SimpleDFAOperator operator;
+	private HopcroftMinimizer hopcroft;
+	private BrzozowskiMinimizer brzozowski;
+	private ConvexSubclassTester tester;
+	// the sample as second operands of batched cuts and the scratch buffers
+	private AutomataBlock block;
+	private CutScratchArena arena;
+	// all words up to WORD_LENGTH in shortlex order and their batch simulator
+	private int[][] words;
+	private WordBatchSimulator simulator;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		this.automata = BenchmarkInputs.sample("ALLdfa", stateCount, alphabetSize);
+		this.operator = new SimpleDFAOperator();
+		this.hopcroft = new HopcroftMinimizer();
+		this.brzozowski = new BrzozowskiMinimizer();
+		this.tester = new ConvexSubclassTester();
+		this.block = new AutomataBlock(automata);
+		this.arena = new CutScratchArena(stateCount * stateCount + stateCount, alphabetSize);
+		this.simulator = new WordBatchSimulator(block);
+		this.words = allWords(WORD_LENGTH, alphabetSize);
+	}
+
+	/**
+	 * Support method listing all words up to the given length in shortlex order.
+	 * 
+	 * @param maxLength
+	 * @param alphabetSize
+	 * @return int[][]
+	 */
+	private static int[][] allWords(int maxLength, int alphabetSize) {
+		List<int[]> list = new ArrayList<>();
+		list.add(new int[0]);
+		for (int i = 0; i < list.size(); i++) {
+			int[] word = list.get(i);
+			if (word.length == maxLength)
+				continue;
+			for (int symbol = 0; symbol < alphabetSize; symbol++) {
+				int[] longer = Arrays.copyOf(word, word.length + 1);
+				longer[word.length] = symbol;
+				list.add(longer);
+			}
+		}
+		return list.toArray(new int[0][]);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BenchmarkInputs.SAMPLE_SIZE)
+	public void minimize(Blackhole blackhole) {
+		for (SimpleDFA dfa : automata)
+			blackhole.consume(operator.minimize(dfa));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BenchmarkInputs.SAMPLE_SIZE)
+	public void hopcroftMinimize(Blackhole blackhole) {
+		for (SimpleDFA dfa : automata)
+			blackhole.consume(hopcroft.minimize(dfa));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BenchmarkInputs.SAMPLE_SIZE)
+	public void brzozowskiMinimize(Blackhole blackhole) {
+		for (SimpleDFA dfa : automata)
+			blackhole.consume(brzozowski.minimize(dfa));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BenchmarkInputs.SAMPLE_SIZE)
+	public void determinizeReverse(Blackhole blackhole) {
+		for (SimpleDFA dfa : automata)
+			blackhole.consume(operator.determinize(operator.reverse(dfa)));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BenchmarkInputs.SAMPLE_SIZE)
+	public void cutAutomaton(Blackhole blackhole) {
+		for (int i = 0; i < automata.length; i++)
+			blackhole.consume(new CutAutomaton(automata[i], automata[(i + 1) % automata.length]).getAutomaton());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BenchmarkInputs.SAMPLE_SIZE)
+	public void minimalCutAutomaton(Blackhole blackhole) {
+		for (int i = 0; i < automata.length; i++)
+			blackhole.consume(operator
+					.minimize(new CutAutomaton(automata[i], automata[(i + 1) % automata.length]).getAutomaton()));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BenchmarkInputs.SAMPLE_SIZE)
+	public void minimalCutStateCount(Blackhole blackhole) {
+		for (int i = 0; i < automata.length; i++)
+			blackhole.consume(new CutAutomatonBatch(automata[i]).countMinimalStates(block, (i + 1) % automata.length,
+					arena));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BenchmarkInputs.SAMPLE_SIZE)
+	public void wordMembership(Blackhole blackhole) {
+		for (SimpleDFA dfa : automata)
+			for (int[] word : words) {
+				int state = 0;
+				for (int symbol : word)
+					state = dfa.applySingleInput(state, symbol);
+				blackhole.consume(dfa.getFinalityArray()[state]);
+			}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BenchmarkInputs.SAMPLE_SIZE)
+	public void batchWordMembership(Blackhole blackhole) {
+		blackhole.consume(simulator.simulateAllWords(WORD_LENGTH));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BenchmarkInputs.SAMPLE_SIZE)
+	public void intersection(Blackhole blackhole) {
+		for (int i = 0; i < automata.length; i++)
+			blackhole.consume(operator.intersection(automata[i], automata[(i + 1) % automata.length]));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BenchmarkInputs.SAMPLE_SIZE)
+	public void statePairGraph(Blackhole blackhole) {
+		for (SimpleDFA dfa : automata) {
+			StatePairGraph graph = new StatePairGraph(dfa);
+			int last = dfa.getNumberOfStates() - 1;
+			blackhole.consume(graph.dfsPairsReachable(0, 0, last, last));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BenchmarkInputs.SAMPLE_SIZE)
+	public void classify(Blackhole blackhole) {
+		for (SimpleDFA dfa : automata)
+			blackhole.consume(tester.classify(dfa));
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ *
+ * Benchmarks of the ConvexSubclassTester checks. Every subclass test is run on
+ * a sample of all minimal DFAs (mostly negative answers) and on a sample of the
+ * members of the subclass (positive answers, which usually take the longest).
+ * FF and SwF iterate over all state permutations, so their time grows
+ * factorially with the state count.
+ *
+ * Members not covered by the lists are sampled by the Markov chain of
+ * RandomDFASampler (see BenchmarkInputs), which covers every cell of the
+ * default grid; FF and SwF members with 8 states take up to about a minute to
+ * sample. Where no members can be sampled (FF and SwF above 8 states, given by
+ * -p stateCount), testMembers fails instead of measuring other automata.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubclassTestBenchmark {
+
+	@Param({ "LID", "RID", "TSID", "ASID", "PF", "SF", "FF", "SwF", "PC", "SC", "FC", "SwC" })
+	public String subclass;
+
+	@Param({ "2", "3", "4", "5", "6", "8" })
+	public int stateCount;
+
+	@Param({ "2", "3" })
+	public int alphabetSize;
+
+	private SimpleDFA[] automata;
+	private SimpleDFA[] members;
+	// reason why no member sample exists (members is null then)
+	private String membersUnavailable;
+	private ConvexSubclassTester tester;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		this.automata = BenchmarkInputs.sample("ALLdfa", stateCount, alphabetSize);
+		try {
+			this.members = BenchmarkInputs.sample(subclass, stateCount, alphabetSize);
+		} catch (RuntimeException e) {
+			this.membersUnavailable = e.getMessage();
+		}
+		this.tester = new ConvexSubclassTester();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BenchmarkInputs.SAMPLE_SIZE)
+	public void testAutomata(Blackhole blackhole) {
+		for (SimpleDFA dfa : automata)
+			blackhole.consume(tester.testSubclass(subclass, dfa));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BenchmarkInputs.SAMPLE_SIZE)
+	public void testMembers(Blackhole blackhole) {
+		if (members == null)
+			throw new RuntimeException(membersUnavailable);
+		for (SimpleDFA dfa : members)
+			blackhole.consume(tester.testSubclass(subclass, dfa));
+	}
+
+}
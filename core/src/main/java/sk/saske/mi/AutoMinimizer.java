@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+/**
+ *
+ * DFA minimization choosing the engine per input. Brzozowski's double reversal
+ * is only tried with a work limit of a fraction of the work of Hopcroft's
+ * algorithm, which it meets when the minimal DFA of the reversed language is
+ * small (automata with many equivalent states); when the limit is exceeded the
+ * input is minimized by Hopcroft's algorithm instead, so the worst case stays
+ * within a constant factor of HopcroftMinimizer.
+ *
+ * Whether the double reversal is tried follows the calibrated COUNT engine of
+ * the group of the input in the MinimizerSelection (by default the one of
+ * SimpleDFAOperator), so both automatic selections agree where measurements
+ * exist. The calibration only covers the sizes of its samples (the cut
+ * automata of the exhaustive lists have at most a few dozen states), and
+ * extrapolating it to automata with thousands of states would be guesswork, so
+ * inputs of uncalibrated groups are decided by size: automata with fewer than
+ * SMALL_AUTOMATON states are minimized by Hopcroft's algorithm, whose fixed
+ * cost is the lowest, larger ones try the double reversal first.
+ *
+ * Instances are not thread-safe, the working arrays are reused between calls.
+ *
+ */
+public class AutoMinimizer implements DFAMinimizer {
+
+	// automata of uncalibrated groups with fewer states are always minimized by
+	// Hopcroft's algorithm
+	public static final int SMALL_AUTOMATON = 1024;
+	// work limit of the double reversal, relative to k * n * log2(n)
+	public static final double WORK_LIMIT = 0.1;
+
+	// the engines
+	private final BrzozowskiMinimizer brzozowski = new BrzozowskiMinimizer();
+	private final HopcroftMinimizer hopcroft = new HopcroftMinimizer();
+	private RefinementMinimizer refinement;
+	// calibrated engines
+	private MinimizerSelection minimizerSelection;
+
+	/**
+	 * Constructor using the default minimizer selection.
+	 */
+	public AutoMinimizer() {
+		this(MinimizerSelection.getDefault());
+	}
+
+	/**
+	 * Constructor using the given minimizer selection.
+	 *
+	 * @param minimizerSelection
+	 */
+	public AutoMinimizer(MinimizerSelection minimizerSelection) {
+		this.minimizerSelection = minimizerSelection;
+	}
+
+	@Override
+	public SimpleDFA minimize(SimpleDFA dfa) {
+		SimpleDFA minimal = null;
+		if (triesDoubleReversal(dfa, minimizerSelection.selectCalibrated(MinimizerSelection.COUNT, dfa)))
+			minimal = brzozowski.minimize(dfa, WORK_LIMIT);
+		return minimal != null ? minimal : hopcroft.minimize(dfa);
+	}
+
+	@Override
+	public int countMinimalStates(SimpleDFA dfa) {
+		String engine = minimizerSelection.selectCalibrated(MinimizerSelection.COUNT, dfa);
+		// the flat refinement only counts, its numbering is not breadth-first
+		if (MinimizerSelection.REFINEMENT.equals(engine)) {
+			if (refinement == null)
+				refinement = new RefinementMinimizer();
+			return refinement.countMinimalStates(dfa);
+		}
+		int states = -1;
+		if (triesDoubleReversal(dfa, engine))
+			states = brzozowski.countMinimalStates(dfa, WORK_LIMIT);
+		return states != -1 ? states : hopcroft.countMinimalStates(dfa);
+	}
+
+	/**
+	 * Support method deciding whether the double reversal is tried first. The
+	 * other calibrated engines (including the partition objects) are replaced by
+	 * Hopcroft's algorithm.
+	 *
+	 * @param dfa
+	 * @param engine - calibrated engine of the group of the input, or null
+	 * @return boolean
+	 */
+	private static boolean triesDoubleReversal(SimpleDFA dfa, String engine) {
+		if (engine == null)
+			return dfa.getNumberOfStates() >= SMALL_AUTOMATON;
+		return engine.equals(MinimizerSelection.BRZOZOWSKI);
+	}
+
+	/**
+	 * Getters.
+	 */
+
+	public MinimizerSelection getMinimizerSelection() {
+		return minimizerSelection;
+	}
+
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.util.Arrays;
+
+/**
+ *
+ * Canonical packed encoding of a SimpleDFA usable as a hash key. States are
+ * renumbered in breadth-first order from the initial state (symbols visited in
+ * alphabet order), unreachable states follow in their original order. Two
+ * initially connected DFAs therefore get the same key iff they are isomorphic,
+ * and for the automata in structuredAutomataLists the canonical numbering is
+ * the numbering of their encoding.
+ *
+ * The packed form is a bit stream (most significant bit first) of all
+ * transitions, state by state and symbol by symbol, each written with the
+ * number of bits needed for a state index, followed by one finality bit per
+ * state. If the stream fits into 63 bits it is also available as a single
+ * long value, whose numeric order is the lexicographic order of the automaton
+ * encodings.
+ *
+ */
+public final class AutomatonKey {
+
+	// number of DFA states
+	private final int numberOfStates;
+	// Sigma size
+	private final int alphabetSize;
+	// packed transitions and finality bits
+	private final long[] words;
+	// number of used bits in words
+	private final int bitLength;
+	private final int hash;
+
+	/**
+	 * Constructor computing the canonical key of a DFA.
+	 *
+	 * @param dfa
+	 */
+	public AutomatonKey(SimpleDFA dfa) {
+		this.numberOfStates = dfa.getNumberOfStates();
+		this.alphabetSize = dfa.getAlphabetSize();
+
+		int[][] transitionMatrix = dfa.getTransitionMatrix();
+		boolean[] finalityArray = dfa.getFinalityArray();
+
+		// breadth-first renumbering
+		int[] order = new int[numberOfStates];
+		int[] canonicalIndex = new int[numberOfStates];
+		Arrays.fill(canonicalIndex, -1);
+		int head = 0;
+		int tail = 0;
+		order[tail] = 0;
+		canonicalIndex[0] = tail++;
+		while (head < tail) {
+			int state = order[head++];
+			for (int symbol = 0; symbol < alphabetSize; symbol++) {
+				int target = transitionMatrix[state][symbol];
+				if (canonicalIndex[target] == -1) {
+					order[tail] = target;
+					canonicalIndex[target] = tail++;
+				}
+			}
+		}
+		for (int state = 0; state < numberOfStates; state++) {
+			if (canonicalIndex[state] == -1) {
+				order[tail] = state;
+				canonicalIndex[state] = tail++;
+			}
+		}
+
+		int bitsPerState = bitsPerState(numberOfStates);
+		this.bitLength = numberOfStates * alphabetSize * bitsPerState + numberOfStates;
+		this.words = new long[(bitLength + 63) / 64];
+
+		int position = 0;
+		for (int i = 0; i < numberOfStates; i++) {
+			for (int symbol = 0; symbol < alphabetSize; symbol++) {
+				position = write(position, canonicalIndex[transitionMatrix[order[i]][symbol]], bitsPerState);
+			}
+		}
+		for (int i = 0; i < numberOfStates; i++) {
+			position = write(position, finalityArray[order[i]] ? 1 : 0, 1);
+		}
+		this.hash = computeHash();
+	}
+
+	/**
+	 * Constructor restoring a key from its single long form.
+	 *
+	 * @param numberOfStates
+	 * @param alphabetSize
+	 * @param packed
+	 */
+	public AutomatonKey(int numberOfStates, int alphabetSize, long packed) {
+		this.numberOfStates = numberOfStates;
+		this.alphabetSize = alphabetSize;
+		this.bitLength = numberOfStates * alphabetSize * bitsPerState(numberOfStates) + numberOfStates;
+		if (bitLength > 63)
+			throw new RuntimeException("Automaton key of " + bitLength + " bits does not fit into a long.");
+		this.words = new long[] { packed << (64 - bitLength) };
+		this.hash = computeHash();
+	}
+
+	/**
+	 * Returns the number of bits used for a single transition target.
+	 *
+	 * @param numberOfStates
+	 * @return int
+	 */
+	private static int bitsPerState(int numberOfStates) {
+		return Math.max(1, 32 - Integer.numberOfLeadingZeros(numberOfStates - 1));
+	}
+
+	/**
+	 * Support method appending the lowest bits of value to the bit stream.
+	 *
+	 * @param position - current length of the bit stream
+	 * @param value
+	 * @param bits
+	 * @return new length of the bit stream
+	 */
+	private int write(int position, int value, int bits) {
+		for (int bit = bits - 1; bit >= 0; bit--) {
+			if (((value >>> bit) & 1) != 0)
+				words[position >>> 6] |= 1L << (63 - (position & 63));
+			position++;
+		}
+		return position;
+	}
+
+	/**
+	 * Support method reading bits from the bit stream.
+	 *
+	 * @param position
+	 * @param bits
+	 * @return int
+	 */
+	private int read(int position, int bits) {
+		int value = 0;
+		for (int i = 0; i < bits; i++, position++) {
+			value = (value << 1) | (int) ((words[position >>> 6] >>> (63 - (position & 63))) & 1);
+		}
+		return value;
+	}
+
+	private int computeHash() {
+		return 31 * (31 * Arrays.hashCode(words) + numberOfStates) + alphabetSize;
+	}
+
+	/**
+	 * Returns whether the key is available as a single long value.
+	 *
+	 * @return boolean
+	 */
+	public boolean fitsInLong() {
+		return bitLength <= 63;
+	}
+
+	/**
+	 * Returns the key as a single non-negative long value.
+	 *
+	 * @return long
+	 */
+	public long toLong() {
+		if (!fitsInLong())
+			throw new RuntimeException("Automaton key of " + bitLength + " bits does not fit into a long.");
+		return words[0] >>> (64 - bitLength);
+	}
+
+	/**
+	 * Returns the canonically numbered DFA described by this key.
+	 *
+	 * @return SimpleDFA
+	 */
+	public SimpleDFA toAutomaton() {
+		int bitsPerState = bitsPerState(numberOfStates);
+		int[][] transitionMatrix = new int[numberOfStates][alphabetSize];
+		boolean[] finalityArray = new boolean[numberOfStates];
+
+		int position = 0;
+		for (int state = 0; state < numberOfStates; state++) {
+			for (int symbol = 0; symbol < alphabetSize; symbol++) {
+				transitionMatrix[state][symbol] = read(position, bitsPerState);
+				position += bitsPerState;
+			}
+		}
+		for (int state = 0; state < numberOfStates; state++) {
+			finalityArray[state] = read(position++, 1) == 1;
+		}
+		return new SimpleDFA(numberOfStates, alphabetSize, transitionMatrix, finalityArray);
+	}
+
+	/**
+	 * Getters.
+	 */
+
+	public int getNumberOfStates() {
+		return numberOfStates;
+	}
+
+	public int getAlphabetSize() {
+		return alphabetSize;
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof AutomatonKey))
+			return false;
+		AutomatonKey other = (AutomatonKey) obj;
+		return hash == other.hash && numberOfStates == other.numberOfStates
+				&& alphabetSize == other.alphabetSize && Arrays.equals(words, other.words);
+	}
+
+	@Override
+	public String toString() {
+		return "AutomatonKey [numberOfStates=" + numberOfStates + ", alphabetSize=" + alphabetSize + ", words="
+				+ Arrays.toString(words) + "]";
+	}
+
+}
@@ -0,0 +1,406 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.util.Arrays;
+
+/**
+ *
+ * DFA minimization by Brzozowski's double reversal: the subset construction of
+ * the reversal of a DFA accessible from its initial state yields the minimal
+ * DFA of the reversed language, so determinizing the reversal twice yields the
+ * minimal DFA of the language itself. Only the states reachable from the
+ * initial state enter the subsets, so the unreachable states of an input (such
+ * as most of the product states of a cut automaton) cost nothing. The subsets
+ * are bitsets of long words stored in one pool and looked up by an open
+ * addressing hash table, the reversal is never built - the predecessors are
+ * read from inverse transition lists - and the first reversal is passed to the
+ * second one in flat arrays.
+ *
+ * A subset construction costs one visit of every inverse transition of every
+ * state of every subset, which is linear in the size of the input when the
+ * minimal DFA of the reversed language is small (e.g. automata with many
+ * equivalent states), but the first reversal may grow exponentially. The
+ * methods taking a work limit give up once either construction has visited
+ * more than workLimit * k * n * log2(n) inverse transitions (the order of the
+ * work of Hopcroft's algorithm). determinizeReversal also serves the subclass
+ * tests needing the minimal DFA of the reversed language itself.
+ *
+ * The states of the results are numbered in breadth-first order from the
+ * initial state, as by HopcroftMinimizer. Instances are not thread-safe, the
+ * working arrays are reused between calls.
+ *
+ */
+public class BrzozowskiMinimizer implements DFAMinimizer {
+
+	// reachable states in breadth-first order and their new indices
+	private int[] order = new int[0];
+	private int[] reachableIndex = new int[0];
+	// the automaton to reverse by its breadth-first indices,
+	// transitions[state * k + symbol]
+	private int[] transitions = new int[0];
+	private boolean[] finality = new boolean[0];
+	// inverse transitions: sources of (symbol, target) are
+	// sources[sourceStart[symbol * n + target] .. sourceStart[symbol * n + target + 1])
+	private int[] sourceStart = new int[0];
+	private int[] sources = new int[0];
+	private int[] nextSource = new int[0];
+	// subsets as bitsets of words longs each, subset i at pool[i * words]
+	private long[] pool = new long[0];
+	// open addressing hash table of subset indices + 1, 0 for free slots
+	private int[] table = new int[0];
+	// the determinized reversal, subsetTransitions[subset * k + symbol]
+	private int[] subsetTransitions = new int[0];
+	private boolean[] subsetFinality = new boolean[0];
+	// the subset under construction
+	private long[] scratch = new long[0];
+
+	@Override
+	public SimpleDFA minimize(SimpleDFA dfa) {
+		return minimize(dfa, Double.POSITIVE_INFINITY);
+	}
+
+	@Override
+	public int countMinimalStates(SimpleDFA dfa) {
+		return countMinimalStates(dfa, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * Returns the minimal DFA equivalent to the input DFA, or null if the
+	 * minimization exceeds the work limit.
+	 *
+	 * @param dfa
+	 * @param workLimit
+	 * @return SimpleDFA which is minimal, or null
+	 */
+	public SimpleDFA minimize(SimpleDFA dfa, double workLimit) {
+		int states = reverseTwice(dfa, workLimit);
+		return states == -1 ? null : toAutomaton(states, dfa.getAlphabetSize());
+	}
+
+	/**
+	 * Returns the number of states of the minimal DFA equivalent to the input
+	 * DFA, or -1 if the minimization exceeds the work limit.
+	 *
+	 * @param dfa
+	 * @param workLimit
+	 * @return int
+	 */
+	public int countMinimalStates(SimpleDFA dfa, double workLimit) {
+		return reverseTwice(dfa, workLimit);
+	}
+
+	/**
+	 * Returns the minimal DFA of the reversed language, given by the subset
+	 * construction of the reversal of the reachable part of the input DFA, with
+	 * states numbered in breadth-first order.
+	 *
+	 * @param dfa
+	 * @return SimpleDFA which is minimal
+	 */
+	public SimpleDFA determinizeReversal(SimpleDFA dfa) {
+		int n = collectReachableStates(dfa);
+		return toAutomaton(determinizeReversal(n, dfa.getAlphabetSize(), Long.MAX_VALUE), dfa.getAlphabetSize());
+	}
+
+	/**
+	 * Support method determinizing the reversal of the reachable part of the
+	 * input DFA and then the reversal of the result, which is left in the subset
+	 * arrays.
+	 *
+	 * @param dfa
+	 * @param workLimit
+	 * @return number of states of the minimal DFA, or -1 if a construction
+	 *         exceeded the work limit
+	 */
+	private int reverseTwice(SimpleDFA dfa, double workLimit) {
+		int alphabetSize = dfa.getAlphabetSize();
+		int n = collectReachableStates(dfa);
+		long work = (long) Math.min(Long.MAX_VALUE,
+				workLimit * alphabetSize * n * (32 - Integer.numberOfLeadingZeros(n)));
+		int reversalStates = determinizeReversal(n, alphabetSize, work);
+		if (reversalStates == -1)
+			return -1;
+
+		ensureInputCapacity(reversalStates, alphabetSize);
+		System.arraycopy(subsetTransitions, 0, transitions, 0, reversalStates * alphabetSize);
+		System.arraycopy(subsetFinality, 0, finality, 0, reversalStates);
+		return determinizeReversal(reversalStates, alphabetSize, work);
+	}
+
+	/**
+	 * Support method collecting the states reachable from the initial state in
+	 * breadth-first order and storing their transitions and finality in the
+	 * flat arrays.
+	 *
+	 * @param dfa
+	 * @return number of reachable states
+	 */
+	private int collectReachableStates(SimpleDFA dfa) {
+		int numberOfStates = dfa.getNumberOfStates();
+		int alphabetSize = dfa.getAlphabetSize();
+		int[][] transitionMatrix = dfa.getTransitionMatrix();
+		if (order.length < numberOfStates) {
+			order = new int[numberOfStates];
+			reachableIndex = new int[numberOfStates];
+		}
+		Arrays.fill(reachableIndex, 0, numberOfStates, -1);
+
+		int head = 0;
+		int tail = 0;
+		order[tail] = 0;
+		reachableIndex[0] = tail++;
+		while (head < tail) {
+			int state = order[head++];
+			for (int symbol = 0; symbol < alphabetSize; symbol++) {
+				int target = transitionMatrix[state][symbol];
+				if (reachableIndex[target] == -1) {
+					order[tail] = target;
+					reachableIndex[target] = tail++;
+				}
+			}
+		}
+
+		ensureInputCapacity(tail, alphabetSize);
+		for (int state = 0; state < tail; state++) {
+			for (int symbol = 0; symbol < alphabetSize; symbol++)
+				transitions[state * alphabetSize + symbol] = reachableIndex[transitionMatrix[order[state]][symbol]];
+			finality[state] = dfa.getFinalityArray()[order[state]];
+		}
+		return tail;
+	}
+
+	/**
+	 * Support method determinizing the reversal of the automaton in the flat
+	 * arrays, whose states 0 .. n - 1 must all be reachable, into the subset
+	 * arrays. The subsets are numbered in breadth-first order.
+	 *
+	 * @param n            - number of states
+	 * @param alphabetSize
+	 * @param work         - number of inverse transitions (and bitset words)
+	 *                     which may be visited
+	 * @return number of subsets, or -1 if the work ran out
+	 */
+	private int determinizeReversal(int n, int alphabetSize, long work) {
+		int words = (n + 63) >>> 6;
+		buildInverseTransitions(n, alphabetSize);
+		if (scratch.length < words)
+			scratch = new long[words];
+		int tableMask = resetTable(64);
+
+		// the initial subset of the reversal are the final states
+		Arrays.fill(scratch, 0, words, 0);
+		for (int state = 0; state < n; state++)
+			if (finality[state])
+				scratch[state >>> 6] |= 1L << state;
+		ensureSubsetCapacity(1, words, alphabetSize);
+		insert(0, words, tableMask);
+		int subsets = 1;
+
+		for (int subset = 0; subset < subsets; subset++) {
+			int base = subset * words;
+			// accepting iff the subset contains the initial state
+			subsetFinality[subset] = (pool[base] & 1L) != 0;
+			for (int symbol = 0; symbol < alphabetSize; symbol++) {
+				Arrays.fill(scratch, 0, words, 0);
+				int offset = symbol * n;
+				work -= words;
+				for (int word = 0; word < words; word++) {
+					long bits = pool[base + word];
+					while (bits != 0) {
+						int target = (word << 6) + Long.numberOfTrailingZeros(bits);
+						bits &= bits - 1;
+						int from = sourceStart[offset + target];
+						int to = sourceStart[offset + target + 1];
+						work -= to - from;
+						for (int j = from; j < to; j++)
+							scratch[sources[j] >>> 6] |= 1L << sources[j];
+					}
+				}
+				if (work < 0)
+					return -1;
+
+				int found = lookup(words, tableMask);
+				if (found == -1) {
+					ensureSubsetCapacity(subsets + 1, words, alphabetSize);
+					if (2 * (subsets + 1) > tableMask)
+						tableMask = rehash(subsets, words, tableMask);
+					found = subsets++;
+					insert(found, words, tableMask);
+				}
+				subsetTransitions[subset * alphabetSize + symbol] = found;
+			}
+		}
+		return subsets;
+	}
+
+	/**
+	 * Support method building the inverse transitions of the automaton in the
+	 * flat arrays.
+	 *
+	 * @param n            - number of states
+	 * @param alphabetSize
+	 */
+	private void buildInverseTransitions(int n, int alphabetSize) {
+		if (sources.length < n * alphabetSize) {
+			sources = new int[n * alphabetSize];
+			sourceStart = new int[n * alphabetSize + 1];
+			nextSource = new int[n * alphabetSize];
+		}
+		Arrays.fill(sourceStart, 0, n * alphabetSize + 1, 0);
+		for (int state = 0; state < n; state++)
+			for (int symbol = 0; symbol < alphabetSize; symbol++)
+				sourceStart[symbol * n + transitions[state * alphabetSize + symbol] + 1]++;
+		for (int i = 0; i < n * alphabetSize; i++)
+			sourceStart[i + 1] += sourceStart[i];
+		System.arraycopy(sourceStart, 0, nextSource, 0, n * alphabetSize);
+		for (int state = 0; state < n; state++)
+			for (int symbol = 0; symbol < alphabetSize; symbol++)
+				sources[nextSource[symbol * n + transitions[state * alphabetSize + symbol]]++] = state;
+	}
+
+	/**
+	 * Support method returning the index of the subset in the scratch bitset,
+	 * or -1 if it is new.
+	 *
+	 * @param words
+	 * @param tableMask
+	 * @return int
+	 */
+	private int lookup(int words, int tableMask) {
+		for (int slot = hash(scratch, 0, words) & tableMask;; slot = (slot + 1) & tableMask) {
+			int entry = table[slot];
+			if (entry == 0)
+				return -1;
+			if (Arrays.equals(pool, (entry - 1) * words, entry * words, scratch, 0, words))
+				return entry - 1;
+		}
+	}
+
+	/**
+	 * Support method storing the scratch bitset as the given subset and adding
+	 * it to the hash table.
+	 *
+	 * @param subset
+	 * @param words
+	 * @param tableMask
+	 */
+	private void insert(int subset, int words, int tableMask) {
+		System.arraycopy(scratch, 0, pool, subset * words, words);
+		int slot = hash(pool, subset * words, words) & tableMask;
+		while (table[slot] != 0)
+			slot = (slot + 1) & tableMask;
+		table[slot] = subset + 1;
+	}
+
+	/**
+	 * Support method doubling the hash table and reinserting the stored subsets.
+	 *
+	 * @param subsets
+	 * @param words
+	 * @param tableMask
+	 * @return the new mask of the hash table
+	 */
+	private int rehash(int subsets, int words, int tableMask) {
+		int newMask = resetTable(2 * (tableMask + 1));
+		for (int subset = 0; subset < subsets; subset++) {
+			int slot = hash(pool, subset * words, words) & newMask;
+			while (table[slot] != 0)
+				slot = (slot + 1) & newMask;
+			table[slot] = subset + 1;
+		}
+		return newMask;
+	}
+
+	/**
+	 * Support method clearing the hash table with the given (power of two)
+	 * number of slots.
+	 *
+	 * @param slots
+	 * @return the mask of the hash table
+	 */
+	private int resetTable(int slots) {
+		if (table.length < slots)
+			table = new int[slots];
+		Arrays.fill(table, 0, slots, 0);
+		return slots - 1;
+	}
+
+	/**
+	 * Support method growing the flat arrays of the automaton to reverse.
+	 *
+	 * @param n
+	 * @param alphabetSize
+	 */
+	private void ensureInputCapacity(int n, int alphabetSize) {
+		if (transitions.length < n * alphabetSize)
+			transitions = new int[n * alphabetSize];
+		if (finality.length < n)
+			finality = new boolean[n];
+	}
+
+	/**
+	 * Support method growing the subset arrays, keeping their content.
+	 *
+	 * @param subsets
+	 * @param words
+	 * @param alphabetSize
+	 */
+	private void ensureSubsetCapacity(int subsets, int words, int alphabetSize) {
+		if (pool.length < (long) subsets * words) {
+			long capacity = Math.max((long) subsets * words, 2L * pool.length);
+			if (capacity > Integer.MAX_VALUE - 8)
+				throw new RuntimeException("Too many subsets for the Brzozowski minimization.");
+			pool = Arrays.copyOf(pool, (int) capacity);
+		}
+		if (subsetFinality.length < subsets)
+			subsetFinality = Arrays.copyOf(subsetFinality, Math.max(subsets, 2 * subsetFinality.length));
+		if (subsetTransitions.length < subsets * alphabetSize)
+			subsetTransitions = Arrays.copyOf(subsetTransitions,
+					Math.max(subsets * alphabetSize, 2 * subsetTransitions.length));
+	}
+
+	/**
+	 * Support method copying the subset arrays into a new DFA.
+	 *
+	 * @param subsets
+	 * @param alphabetSize
+	 * @return SimpleDFA
+	 */
+	private SimpleDFA toAutomaton(int subsets, int alphabetSize) {
+		int[][] transitionMatrix = new int[subsets][alphabetSize];
+		for (int subset = 0; subset < subsets; subset++)
+			System.arraycopy(subsetTransitions, subset * alphabetSize, transitionMatrix[subset], 0, alphabetSize);
+		return new SimpleDFA(subsets, alphabetSize, transitionMatrix, Arrays.copyOf(subsetFinality, subsets));
+	}
+
+	/**
+	 * Support method hashing a bitset.
+	 *
+	 * @param bits
+	 * @param from
+	 * @param words
+	 * @return int
+	 */
+	private static int hash(long[] bits, int from, int words) {
+		long hash = 0;
+		for (int word = from; word < from + words; word++)
+			hash = (hash + bits[word]) * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32));
+	}
+
+}
@@ -39,9 +39,47 @@ import java.util.Stack;
  * The subword freeness test is incomplete! There exist DFAs accepting subword
  * free languages that are not captured. The improvement of the test is left for
  * future work.
+ * 
+ * The results of all twelve tests can be obtained at once as a subclass mask,
+ * where bit i is set iff the language belongs to the subclass SUBCLASSES[i].
  */
 public class ConvexSubclassTester extends SimpleDFAOperator {
 
+	// subclass abbreviations in the order of their subclass mask bits
+	public static final String[] SUBCLASSES = { "LID", "RID", "TSID", "ASID", "PF", "SF", "FF", "SwF", "PC", "SC",
+			"FC", "SwC" };
+
+	/**
+	 * Returns the subclass mask bit of the given subclass abbreviation.
+	 * 
+	 * @param subclass - Subclass abbreviation
+	 * @return int
+	 */
+	public static int subclassMask(String subclass) {
+		for (int i = 0; i < SUBCLASSES.length; i++) {
+			if (SUBCLASSES[i].equals(subclass))
+				return 1 << i;
+		}
+		throw new RuntimeException("Undefined subclass " + subclass + ".");
+	}
+
+	/**
+	 * Method testing the membership of a language given by a SimpleDFA in every
+	 * subclass.
+	 * 
+	 * @param dfa - Deterministic finite automaton (accepted language to be
+	 *            tested)
+	 * @return int - subclass mask, bit i set means membership to SUBCLASSES[i]
+	 */
+	public int classify(SimpleDFA dfa) {
+		int mask = 0;
+		for (int i = 0; i < SUBCLASSES.length; i++) {
+			if (testSubclass(SUBCLASSES[i], dfa))
+				mask |= 1 << i;
+		}
+		return mask;
+	}
+
 	/**
 	 * Method testing subclass membership of a language given by a SimpleDFA.
 	 * 
@@ -51,6 +89,35 @@ public class ConvexSubclassTester extends SimpleDFAOperator {
 	 * @return boolean - True means membership to given subclass, False otherwise
 	 */
 	public boolean testSubclass(String subclass, SimpleDFA dfa) {
+		if (!EngineMetrics.ENABLED)
+			return runSubclassTest(subclass, dfa);
+
+		SubclassTestEvent event = new SubclassTestEvent();
+		event.begin();
+		long start = System.nanoTime();
+		boolean result = runSubclassTest(subclass, dfa);
+		long nanos = System.nanoTime() - start;
+		for (int i = 0; i < SUBCLASSES.length; i++)
+			if (SUBCLASSES[i].equals(subclass))
+				EngineMetrics.recordSubclassTest(i, nanos);
+		event.end();
+		if (event.shouldCommit()) {
+			event.subclass = subclass;
+			event.states = dfa.getNumberOfStates();
+			event.member = result;
+			event.commit();
+		}
+		return result;
+	}
+
+	/**
+	 * Support method dispatching the subclass test.
+	 * 
+	 * @param subclass
+	 * @param dfa
+	 * @return boolean
+	 */
+	private boolean runSubclassTest(String subclass, SimpleDFA dfa) {
 		switch (subclass) {
 		case "LID":
 			return isLeftIdeal(dfa);
@@ -113,7 +180,7 @@ public class ConvexSubclassTester extends SimpleDFAOperator {
 	 */
 	public boolean isSuffixFree(SimpleDFA dfa) {
 		if (isNonReturning(dfa))
-			return isPrefixFree(minimize(determinize(reverse(dfa))));
+			return isPrefixFree(minimalReversal(dfa));
 		return false;
 	}
 
@@ -235,6 +302,8 @@ public class ConvexSubclassTester extends SimpleDFAOperator {
 		// algorithm is sensitive to improper DFA state indexing - we renumber DFA
 		// states to find the optimal indexing
 		permutationLoop: for (SimpleDFA dfa : getAutomatonStatePermutations(inputDfa)) {
+			if (EngineMetrics.ENABLED)
+				EngineMetrics.PERMUTATIONS_TRIED.increment();
 
 			int[] correctNumbering = getNonExitingFinalSinkState(dfa);
 
@@ -268,6 +337,8 @@ public class ConvexSubclassTester extends SimpleDFAOperator {
 	public boolean isSubwordFree(SimpleDFA inputDfa) {
 
 		permutationLoop: for (SimpleDFA dfa : getAutomatonStatePermutations(inputDfa)) {
+			if (EngineMetrics.ENABLED)
+				EngineMetrics.PERMUTATIONS_TRIED.increment();
 
 			boolean finalStateFlag = false;
 
@@ -389,7 +460,20 @@ public class ConvexSubclassTester extends SimpleDFAOperator {
 	 * @return boolean
 	 */
 	public boolean isLeftIdeal(SimpleDFA dfa) {
-		return isRightIdeal(minimize(determinize(reverse(dfa))));
+		return isRightIdeal(minimalReversal(dfa));
+	}
+
+	/**
+	 * Returns the minimal DFA accepting the reverse of the language accepted by
+	 * the given SimpleDFA. The tests using it (LID, SF, TSID and ASID) only check
+	 * the structure of the minimal DFA, so they do not depend on its state
+	 * numbering.
+	 * 
+	 * @param dfa
+	 * @return SimpleDFA
+	 */
+	protected SimpleDFA minimalReversal(SimpleDFA dfa) {
+		return determinizeReversal(dfa);
 	}
 
 	/**
@@ -142,9 +142,33 @@ public class CutAutomaton {
 		}
 
 		automaton = new SimpleDFA(numberOfStates, alphabetSize, transitionMatrix, finalityArray);
+		if (EngineMetrics.ENABLED)
+			EngineMetrics.recordCut(numberOfStates, countReachableStates(transitionMatrix));
 
 	}
 
+	/**
+	 * Support method counting the states reachable from the initial state, only
+	 * used by the metrics.
+	 * 
+	 * @param transitionMatrix
+	 * @return int
+	 */
+	private static int countReachableStates(int[][] transitionMatrix) {
+		boolean[] reached = new boolean[transitionMatrix.length];
+		int[] queue = new int[transitionMatrix.length];
+		int tail = 0;
+		reached[0] = true;
+		queue[tail++] = 0;
+		for (int head = 0; head < tail; head++)
+			for (int target : transitionMatrix[queue[head]])
+				if (!reached[target]) {
+					reached[target] = true;
+					queue[tail++] = target;
+				}
+		return tail;
+	}
+
 	/**
 	 * Returns resulting cut automaton.
 	 * 
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+/**
+ *
+ * A DFA minimization engine. The engines return isomorphic minimal DFAs, but
+ * their state numbering may differ; the engines of this interface number the
+ * states in breadth-first order from the initial state (the canonical form of
+ * AutomatonKey). SimpleDFAOperator.minimize, whose numbering the published
+ * witness files keep, is not one of them.
+ *
+ * Implementations keep working arrays and are not thread-safe.
+ *
+ */
+public interface DFAMinimizer {
+
+	// names of the engines accepted by forEngine
+	String HOPCROFT = "hopcroft";
+	String BRZOZOWSKI = "brzozowski";
+	String AUTO = "auto";
+
+	/**
+	 * Returns the minimal DFA equivalent to the input DFA, with states numbered
+	 * in breadth-first order.
+	 *
+	 * @param dfa
+	 * @return SimpleDFA which is minimal
+	 */
+	SimpleDFA minimize(SimpleDFA dfa);
+
+	/**
+	 * Returns the number of states of the minimal DFA equivalent to the input
+	 * DFA.
+	 *
+	 * @param dfa
+	 * @return int
+	 */
+	default int countMinimalStates(SimpleDFA dfa) {
+		return minimize(dfa).getNumberOfStates();
+	}
+
+	/**
+	 * Returns a new minimizer of the given engine: hopcroft (partition
+	 * refinement), brzozowski (double reversal) or auto (see AutoMinimizer).
+	 *
+	 * @param engine
+	 * @return DFAMinimizer
+	 */
+	static DFAMinimizer forEngine(String engine) {
+		switch (engine) {
+		case HOPCROFT:
+			return new HopcroftMinimizer();
+		case BRZOZOWSKI:
+			return new BrzozowskiMinimizer();
+		case AUTO:
+			return new AutoMinimizer();
+		default:
+			throw new RuntimeException("Unknown minimization engine " + engine + ".");
+		}
+	}
+
+}
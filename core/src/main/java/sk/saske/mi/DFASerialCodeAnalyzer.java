@@ -147,6 +147,31 @@ public class DFASerialCodeAnalyzer {
 		automaton.setFinalityArray(finalityArray);
 	}
 
+	/**
+	 * Returns the automaton encoding of the given SimpleDFA, the inverse of parse.
+	 * State indexes above 9 are written as letters (a = 10, b = 11, ...), which is
+	 * how parse reads them.
+	 * 
+	 * @param dfa
+	 * @return automaton encoding
+	 */
+	public String encode(SimpleDFA dfa) {
+		if (dfa.getNumberOfStates() > Character.MAX_RADIX)
+			throw new InvalidDFASerialCodeException(
+					"Too many states to encode (greater than " + Character.MAX_RADIX + ").");
+
+		StringBuilder code = new StringBuilder();
+		for (int state = 0; state < dfa.getNumberOfStates(); state++) {
+			for (int symbol = 0; symbol < dfa.getAlphabetSize(); symbol++) {
+				code.append(Character.forDigit(dfa.getTransitionMatrix()[state][symbol], Character.MAX_RADIX));
+			}
+		}
+		for (boolean finality : dfa.getFinalityArray()) {
+			code.append(finality ? 't' : 'f');
+		}
+		return code.toString();
+	}
+
 	/**
 	 * Getters.
 	 */
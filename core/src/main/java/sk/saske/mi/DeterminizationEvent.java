@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ *
+ * JFR event of a slow subset construction (see EngineMetrics).
+ *
+ */
+@Name("sk.saske.mi.Determinization")
+@Label("Determinization")
+@Category("Cut Convex Subclasses")
+@Description("Subset construction of SimpleDFAOperator.determinize")
+@Threshold("1 ms")
+class DeterminizationEvent extends Event {
+
+	@Label("MNFA states")
+	int mnfaStates;
+
+	@Label("DFA states")
+	int dfaStates;
+
+}
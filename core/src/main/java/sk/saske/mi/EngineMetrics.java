@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ *
+ * Opt-in counters and timers of the automaton engines. The metrics are enabled
+ * by the system property sk.saske.mi.metrics=true; ENABLED is a static final
+ * flag, so with the metrics disabled the JIT compiler removes the
+ * instrumentation of the hot paths entirely.
+ *
+ * With the metrics enabled the counters are exposed by the MBean
+ * sk.saske.mi:type=EngineMetrics (e.g. in JConsole or VisualVM) and the slow
+ * determinizations, minimizations and subclass tests are recorded as the JFR
+ * events sk.saske.mi.Determinization, sk.saske.mi.Minimization and
+ * sk.saske.mi.SubclassTest when a flight recording is running.
+ *
+ */
+public final class EngineMetrics implements EngineMetricsMXBean {
+
+	public static final String PROPERTY = "sk.saske.mi.metrics";
+	public static final boolean ENABLED = Boolean.getBoolean(PROPERTY);
+	public static final String OBJECT_NAME = "sk.saske.mi:type=EngineMetrics";
+
+	// subset construction: calls and resulting DFA states
+	public static final LongAdder DETERMINIZATIONS = new LongAdder();
+	public static final LongAdder DETERMINIZED_STATES = new LongAdder();
+	// SimpleDFAOperator.minimize: calls and refinement rounds
+	public static final LongAdder MINIMIZATIONS = new LongAdder();
+	public static final LongAdder REFINEMENT_ROUNDS = new LongAdder();
+	// cut constructions: allocated (full product) and reachable states
+	public static final LongAdder CUT_AUTOMATA = new LongAdder();
+	public static final LongAdder CUT_ALLOCATED_STATES = new LongAdder();
+	public static final LongAdder CUT_REACHABLE_STATES = new LongAdder();
+	// state permutations tried by the factor-free and subword-free tests
+	public static final LongAdder PERMUTATIONS_TRIED = new LongAdder();
+	// subclass tests and their total time, indexed like
+	// ConvexSubclassTester.SUBCLASSES
+	private static final LongAdder[] SUBCLASS_TESTS = new LongAdder[ConvexSubclassTester.SUBCLASSES.length];
+	private static final LongAdder[] SUBCLASS_TEST_NANOS = new LongAdder[ConvexSubclassTester.SUBCLASSES.length];
+
+	private static final EngineMetrics INSTANCE = new EngineMetrics();
+
+	static {
+		for (int i = 0; i < SUBCLASS_TESTS.length; i++) {
+			SUBCLASS_TESTS[i] = new LongAdder();
+			SUBCLASS_TEST_NANOS[i] = new LongAdder();
+		}
+		if (ENABLED) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+			} catch (JMException e) {
+				throw new RuntimeException("Cannot register " + OBJECT_NAME + ".", e);
+			}
+		}
+	}
+
+	private EngineMetrics() {
+	}
+
+	/**
+	 * Records a finished subclass test.
+	 *
+	 * @param subclassIndex - index in ConvexSubclassTester.SUBCLASSES
+	 * @param nanos
+	 */
+	public static void recordSubclassTest(int subclassIndex, long nanos) {
+		SUBCLASS_TESTS[subclassIndex].increment();
+		SUBCLASS_TEST_NANOS[subclassIndex].add(nanos);
+	}
+
+	/**
+	 * Records a cut construction.
+	 *
+	 * @param allocatedStates
+	 * @param reachableStates
+	 */
+	public static void recordCut(long allocatedStates, long reachableStates) {
+		CUT_AUTOMATA.increment();
+		CUT_ALLOCATED_STATES.add(allocatedStates);
+		CUT_REACHABLE_STATES.add(reachableStates);
+	}
+
+	/**
+	 * Returns the metrics instance, e.g. for printing a summary.
+	 *
+	 * @return EngineMetrics
+	 */
+	public static EngineMetrics getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Getters.
+	 */
+
+	@Override
+	public long getDeterminizations() {
+		return DETERMINIZATIONS.sum();
+	}
+
+	@Override
+	public long getDeterminizedStates() {
+		return DETERMINIZED_STATES.sum();
+	}
+
+	@Override
+	public long getMinimizations() {
+		return MINIMIZATIONS.sum();
+	}
+
+	@Override
+	public long getRefinementRounds() {
+		return REFINEMENT_ROUNDS.sum();
+	}
+
+	@Override
+	public long getCutAutomata() {
+		return CUT_AUTOMATA.sum();
+	}
+
+	@Override
+	public long getCutAllocatedStates() {
+		return CUT_ALLOCATED_STATES.sum();
+	}
+
+	@Override
+	public long getCutReachableStates() {
+		return CUT_REACHABLE_STATES.sum();
+	}
+
+	@Override
+	public long getPermutationsTried() {
+		return PERMUTATIONS_TRIED.sum();
+	}
+
+	@Override
+	public Map<String, Long> getSubclassTests() {
+		return bySubclass(SUBCLASS_TESTS);
+	}
+
+	@Override
+	public Map<String, Long> getSubclassTestNanos() {
+		return bySubclass(SUBCLASS_TEST_NANOS);
+	}
+
+	@Override
+	public void reset() {
+		for (LongAdder adder : new LongAdder[] { DETERMINIZATIONS, DETERMINIZED_STATES, MINIMIZATIONS,
+				REFINEMENT_ROUNDS, CUT_AUTOMATA, CUT_ALLOCATED_STATES, CUT_REACHABLE_STATES, PERMUTATIONS_TRIED })
+			adder.reset();
+		for (int i = 0; i < SUBCLASS_TESTS.length; i++) {
+			SUBCLASS_TESTS[i].reset();
+			SUBCLASS_TEST_NANOS[i].reset();
+		}
+	}
+
+	private static Map<String, Long> bySubclass(LongAdder[] adders) {
+		Map<String, Long> result = new LinkedHashMap<>();
+		for (int i = 0; i < adders.length; i++)
+			result.put(ConvexSubclassTester.SUBCLASSES[i], adders[i].sum());
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "determinizations " + getDeterminizations() + " (" + getDeterminizedStates() + " states), minimizations "
+				+ getMinimizations() + " (" + getRefinementRounds() + " refinement rounds), cut automata "
+				+ getCutAutomata() + " (" + getCutReachableStates() + " of " + getCutAllocatedStates()
+				+ " states reachable), permutations tried " + getPermutationsTried() + ", subclass tests "
+				+ getSubclassTests() + ", subclass test nanos " + getSubclassTestNanos();
+	}
+
+}
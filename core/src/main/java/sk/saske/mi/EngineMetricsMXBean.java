@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.util.Map;
+
+/**
+ *
+ * Management interface of EngineMetrics, registered as
+ * sk.saske.mi:type=EngineMetrics when the metrics are enabled.
+ *
+ */
+public interface EngineMetricsMXBean {
+
+	long getDeterminizations();
+
+	long getDeterminizedStates();
+
+	long getMinimizations();
+
+	long getRefinementRounds();
+
+	long getCutAutomata();
+
+	long getCutAllocatedStates();
+
+	long getCutReachableStates();
+
+	long getPermutationsTried();
+
+	Map<String, Long> getSubclassTests();
+
+	Map<String, Long> getSubclassTestNanos();
+
+	void reset();
+
+}
@@ -0,0 +1,376 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.util.Arrays;
+
+/**
+ *
+ * DFA minimization by Hopcroft's partition refinement algorithm in
+ * O(k n log n) time, where k is the alphabet size and n the number of states.
+ * The blocks of the partition are kept as ranges of one permutation array of
+ * the states and the splitters are (block, symbol) pairs processed from a work
+ * list, always adding the smaller half of a split block. This makes cut
+ * automata with tens of thousands of states feasible, which the refinement of
+ * SimpleDFAOperator.minimize (quadratic work per refinement round) is not.
+ *
+ * The states of the minimal DFA are numbered in breadth-first order from the
+ * initial state, i.e. the result is in the canonical form of AutomatonKey. The
+ * minimal DFA is isomorphic to the one of SimpleDFAOperator.minimize, but the
+ * state numbering generally differs, so the sweeps keep the latter wherever
+ * the published witness files depend on it.
+ *
+ * countMinimalStates only counts the states of the minimal DFA of an
+ * automaton given by flat arrays. Once the working arrays have grown to the
+ * largest input (or were reserved by the constructor), it allocates nothing.
+ *
+ * Instances are not thread-safe, the working arrays are reused between calls.
+ *
+ */
+public class HopcroftMinimizer implements DFAMinimizer {
+
+	// reachable states in breadth-first order and their new indices
+	private int[] order = new int[0];
+	private int[] reachableIndex = new int[0];
+	// transitions and finality of the reachable states by their new indices,
+	// transitions[state * k + symbol]
+	private int[] transitions = new int[0];
+	private boolean[] finality = new boolean[0];
+	// inverse transitions: sources of (symbol, target) are
+	// sources[sourceStart[symbol * n + target] .. sourceStart[symbol * n + target + 1])
+	private int[] sourceStart = new int[0];
+	private int[] sources = new int[0];
+	private int[] nextSource = new int[0];
+	// partition: block b is elements[blockStart[b] .. blockEnd[b]), location is
+	// the position of a state in elements
+	private int[] elements = new int[0];
+	private int[] location = new int[0];
+	private int[] blockOf = new int[0];
+	private int[] blockStart = new int[0];
+	private int[] blockEnd = new int[0];
+	private int[] markedCount = new int[0];
+	private int[] touched = new int[0];
+	private int[] splitter = new int[0];
+	// work list of (block, symbol) splitters
+	private int[] workList = new int[0];
+	private boolean[] inWorkList = new boolean[0];
+
+	/**
+	 * Constructor for a minimizer growing its working arrays on demand.
+	 */
+	public HopcroftMinimizer() {
+	}
+
+	/**
+	 * Constructor for a minimizer with working arrays reserved for automata with
+	 * up to the given number of states.
+	 *
+	 * @param numberOfStates
+	 * @param alphabetSize
+	 */
+	public HopcroftMinimizer(int numberOfStates, int alphabetSize) {
+		ensureCapacity(numberOfStates, alphabetSize);
+	}
+
+	/**
+	 * Returns the minimal DFA equivalent to the input DFA, with states numbered
+	 * in breadth-first order.
+	 *
+	 * @param dfa
+	 * @return SimpleDFA which is minimal
+	 */
+	@Override
+	public SimpleDFA minimize(SimpleDFA dfa) {
+		int alphabetSize = dfa.getAlphabetSize();
+		int blocks = refineReachable(dfa);
+
+		// quotient automaton numbered in breadth-first order
+		int[] blockIndex = new int[blocks];
+		Arrays.fill(blockIndex, -1);
+		int[] blockOrder = new int[blocks];
+		int[][] minimalTransitions = new int[blocks][alphabetSize];
+		boolean[] minimalFinality = new boolean[blocks];
+		int head = 0;
+		int tail = 0;
+		blockOrder[tail] = blockOf[0];
+		blockIndex[blockOf[0]] = tail++;
+		while (head < tail) {
+			int block = blockOrder[head];
+			int representative = elements[blockStart[block]];
+			minimalFinality[head] = finality[representative];
+			for (int symbol = 0; symbol < alphabetSize; symbol++) {
+				int target = blockOf[transitions[representative * alphabetSize + symbol]];
+				if (blockIndex[target] == -1) {
+					blockOrder[tail] = target;
+					blockIndex[target] = tail++;
+				}
+				minimalTransitions[head][symbol] = blockIndex[target];
+			}
+			head++;
+		}
+		return new SimpleDFA(blocks, alphabetSize, minimalTransitions, minimalFinality);
+	}
+
+	@Override
+	public int countMinimalStates(SimpleDFA dfa) {
+		return refineReachable(dfa);
+	}
+
+	/**
+	 * Returns the number of states of the minimal DFA equivalent to the given
+	 * DFA, whose states 0 .. numberOfStates - 1 must all be reachable from the
+	 * initial state 0.
+	 *
+	 * @param numberOfStates
+	 * @param alphabetSize
+	 * @param transitions    - transitions[state * alphabetSize + symbol]
+	 * @param finality
+	 * @return int
+	 */
+	public int countMinimalStates(int numberOfStates, int alphabetSize, int[] transitions, boolean[] finality) {
+		ensureCapacity(numberOfStates, alphabetSize);
+		return refine(numberOfStates, alphabetSize, transitions, finality);
+	}
+
+	/**
+	 * Support method refining the partition of the reachable states of a DFA,
+	 * which are stored in the flat arrays by their breadth-first index.
+	 *
+	 * @param dfa
+	 * @return number of blocks
+	 */
+	private int refineReachable(SimpleDFA dfa) {
+		int alphabetSize = dfa.getAlphabetSize();
+		int[][] transitionMatrix = dfa.getTransitionMatrix();
+		int n = collectReachableStates(dfa);
+		ensureCapacity(n, alphabetSize);
+		for (int state = 0; state < n; state++) {
+			for (int symbol = 0; symbol < alphabetSize; symbol++)
+				transitions[state * alphabetSize + symbol] = reachableIndex[transitionMatrix[order[state]][symbol]];
+			finality[state] = dfa.getFinalityArray()[order[state]];
+		}
+		return refine(n, alphabetSize, transitions, finality);
+	}
+
+	/**
+	 * Support method collecting the states reachable from the initial state in
+	 * breadth-first order.
+	 *
+	 * @param dfa
+	 * @return number of reachable states
+	 */
+	private int collectReachableStates(SimpleDFA dfa) {
+		int numberOfStates = dfa.getNumberOfStates();
+		int[][] transitionMatrix = dfa.getTransitionMatrix();
+		if (order.length < numberOfStates) {
+			order = new int[numberOfStates];
+			reachableIndex = new int[numberOfStates];
+		}
+		Arrays.fill(reachableIndex, 0, numberOfStates, -1);
+
+		int head = 0;
+		int tail = 0;
+		order[tail] = 0;
+		reachableIndex[0] = tail++;
+		while (head < tail) {
+			int state = order[head++];
+			for (int symbol = 0; symbol < dfa.getAlphabetSize(); symbol++) {
+				int target = transitionMatrix[state][symbol];
+				if (reachableIndex[target] == -1) {
+					order[tail] = target;
+					reachableIndex[target] = tail++;
+				}
+			}
+		}
+		return tail;
+	}
+
+	/**
+	 * Support method computing the coarsest partition of the reachable states
+	 * compatible with the transitions and the finality.
+	 *
+	 * @param n             - number of reachable states
+	 * @param alphabetSize
+	 * @param transitions   - transitions[state * alphabetSize + symbol]
+	 * @param finalityArray
+	 * @return number of blocks
+	 */
+	private int refine(int n, int alphabetSize, int[] transitions, boolean[] finalityArray) {
+		buildInverseTransitions(n, alphabetSize, transitions);
+
+		// initial partition: non-final states first, then final states
+		int nonFinal = 0;
+		for (int state = 0; state < n; state++)
+			if (!finalityArray[state])
+				nonFinal++;
+		int nextNonFinal = 0;
+		int nextFinal = nonFinal;
+		for (int state = 0; state < n; state++) {
+			int position = finalityArray[state] ? nextFinal++ : nextNonFinal++;
+			elements[position] = state;
+			location[state] = position;
+		}
+		int blocks = 0;
+		if (nonFinal > 0) {
+			blockStart[blocks] = 0;
+			blockEnd[blocks++] = nonFinal;
+		}
+		if (nonFinal < n) {
+			blockStart[blocks] = nonFinal;
+			blockEnd[blocks++] = n;
+		}
+		for (int block = 0; block < blocks; block++)
+			for (int position = blockStart[block]; position < blockEnd[block]; position++)
+				blockOf[elements[position]] = block;
+		Arrays.fill(markedCount, 0, n, 0);
+		Arrays.fill(inWorkList, 0, n * alphabetSize, false);
+
+		int workListSize = 0;
+		if (blocks == 2) {
+			int smaller = size(0) <= size(1) ? 0 : 1;
+			for (int symbol = 0; symbol < alphabetSize; symbol++)
+				workListSize = push(workListSize, smaller, symbol, alphabetSize);
+		}
+
+		while (workListSize > 0) {
+			int entry = workList[--workListSize];
+			int splitterBlock = entry / alphabetSize;
+			int symbol = entry % alphabetSize;
+			inWorkList[entry] = false;
+
+			// the splitter block may be reordered by the marking below
+			int splitterSize = size(splitterBlock);
+			System.arraycopy(elements, blockStart[splitterBlock], splitter, 0, splitterSize);
+
+			int touchedCount = 0;
+			for (int i = 0; i < splitterSize; i++) {
+				int offset = symbol * n + splitter[i];
+				for (int j = sourceStart[offset]; j < sourceStart[offset + 1]; j++) {
+					int source = sources[j];
+					int block = blockOf[source];
+					int markedEnd = blockStart[block] + markedCount[block];
+					if (location[source] >= markedEnd) {
+						// move the source to the marked prefix of its block
+						int other = elements[markedEnd];
+						elements[location[source]] = other;
+						location[other] = location[source];
+						elements[markedEnd] = source;
+						location[source] = markedEnd;
+						if (markedCount[block]++ == 0)
+							touched[touchedCount++] = block;
+					}
+				}
+			}
+
+			for (int i = 0; i < touchedCount; i++) {
+				int block = touched[i];
+				int marked = markedCount[block];
+				markedCount[block] = 0;
+				if (marked == size(block))
+					continue;
+
+				// the marked prefix becomes a new block
+				int newBlock = blocks++;
+				blockStart[newBlock] = blockStart[block];
+				blockEnd[newBlock] = blockStart[block] + marked;
+				blockStart[block] = blockEnd[newBlock];
+				for (int position = blockStart[newBlock]; position < blockEnd[newBlock]; position++)
+					blockOf[elements[position]] = newBlock;
+
+				for (int c = 0; c < alphabetSize; c++) {
+					if (inWorkList[block * alphabetSize + c])
+						workListSize = push(workListSize, newBlock, c, alphabetSize);
+					else
+						workListSize = push(workListSize, size(newBlock) <= size(block) ? newBlock : block, c,
+								alphabetSize);
+				}
+			}
+		}
+		return blocks;
+	}
+
+	/**
+	 * Support method building the inverse transitions.
+	 *
+	 * @param n
+	 * @param alphabetSize
+	 * @param transitions
+	 */
+	private void buildInverseTransitions(int n, int alphabetSize, int[] transitions) {
+		Arrays.fill(sourceStart, 0, n * alphabetSize + 1, 0);
+		for (int state = 0; state < n; state++)
+			for (int symbol = 0; symbol < alphabetSize; symbol++)
+				sourceStart[symbol * n + transitions[state * alphabetSize + symbol] + 1]++;
+		for (int i = 0; i < n * alphabetSize; i++)
+			sourceStart[i + 1] += sourceStart[i];
+		System.arraycopy(sourceStart, 0, nextSource, 0, n * alphabetSize);
+		for (int state = 0; state < n; state++)
+			for (int symbol = 0; symbol < alphabetSize; symbol++)
+				sources[nextSource[symbol * n + transitions[state * alphabetSize + symbol]]++] = state;
+	}
+
+	/**
+	 * Support method adding a splitter to the work list.
+	 *
+	 * @param workListSize
+	 * @param block
+	 * @param symbol
+	 * @param alphabetSize
+	 * @return new size of the work list
+	 */
+	private int push(int workListSize, int block, int symbol, int alphabetSize) {
+		int entry = block * alphabetSize + symbol;
+		if (!inWorkList[entry]) {
+			inWorkList[entry] = true;
+			workList[workListSize++] = entry;
+		}
+		return workListSize;
+	}
+
+	private int size(int block) {
+		return blockEnd[block] - blockStart[block];
+	}
+
+	/**
+	 * Support method growing the working arrays.
+	 *
+	 * @param n
+	 * @param alphabetSize
+	 */
+	private void ensureCapacity(int n, int alphabetSize) {
+		if (elements.length < n) {
+			elements = new int[n];
+			location = new int[n];
+			blockOf = new int[n];
+			blockStart = new int[n];
+			blockEnd = new int[n];
+			markedCount = new int[n];
+			touched = new int[n];
+			splitter = new int[n];
+			finality = new boolean[n];
+		}
+		if (sources.length < n * alphabetSize) {
+			transitions = new int[n * alphabetSize];
+			sources = new int[n * alphabetSize];
+			sourceStart = new int[n * alphabetSize + 1];
+			nextSource = new int[n * alphabetSize];
+			workList = new int[n * alphabetSize];
+			inWorkList = new boolean[n * alphabetSize];
+		}
+	}
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ *
+ * JFR event of a slow minimization (see EngineMetrics).
+ *
+ */
+@Name("sk.saske.mi.Minimization")
+@Label("Minimization")
+@Category("Cut Convex Subclasses")
+@Description("Partition refinement of SimpleDFAOperator.minimize")
+@Threshold("1 ms")
+class MinimizationEvent extends Event {
+
+	@Label("Reachable states")
+	int states;
+
+	@Label("Minimal states")
+	int minimalStates;
+
+	@Label("Refinement rounds")
+	int rounds;
+
+}
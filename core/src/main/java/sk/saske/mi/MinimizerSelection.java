@@ -0,0 +1,385 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ *
+ * Selection of the engine of SimpleDFAOperator.countMinimalStates per input. The
+ * inputs are grouped by the alphabet size, the density of final states (below
+ * a quarter, up to three quarters, above) and the size (the number of states
+ * rounded down to a power of two), and every group is mapped to the engine
+ * that was fastest on the calibration samples of the group. An input of a
+ * group without calibration uses the nearest calibrated group (by alphabet
+ * size first, then density, then size), and without any calibration the
+ * defaults below.
+ *
+ * SimpleDFAOperator.minimize is not selected: its state numbering, on which
+ * the published witness files depend, must not depend on the calibration, so
+ * it always uses REFINEMENT if it passes its self-check and PARTITION
+ * otherwise (see SimpleDFAOperator.minimize).
+ *
+ * The selection is stored as a properties file with one line
+ * count.k<alphabet size>.d<density>.s<size>=engine per group, written by
+ * calibrate and store (see MinimizerCalibrationRunner of module sweep).
+ * Files of earlier versions also selecting the engine of minimize (keys
+ * minimize.*) are rejected and have to be recalibrated.
+ * getDefault loads the file given by the system property
+ * sk.saske.mi.minimizerSelection, or minimizerSelection.properties in the
+ * working directory if it exists.
+ *
+ * A selection is immutable once created (by calibrate, load or withEngine), so
+ * the default selection can be shared by the operators of all threads. The
+ * resolved engines are cached in an array without synchronization; resolving
+ * is deterministic and the cached values are immutable strings, so a thread
+ * missing another thread's entry only resolves it again.
+ *
+ */
+public class MinimizerSelection {
+
+	// selected operation
+	public static final String COUNT = "count";
+	// operation of the earlier selection files, no longer selected
+	private static final String MINIMIZE = "minimize";
+	// engines: the object partition refinement of SimpleDFAOperator, its flat
+	// twin RefinementMinimizer and the DFAMinimizer engines
+	public static final String PARTITION = "partition";
+	public static final String REFINEMENT = "refinement";
+	public static final String HOPCROFT = DFAMinimizer.HOPCROFT;
+	public static final String BRZOZOWSKI = DFAMinimizer.BRZOZOWSKI;
+
+	// location of the selection file
+	public static final String PROPERTY = "sk.saske.mi.minimizerSelection";
+	public static final String DEFAULT_FILE = "minimizerSelection.properties";
+
+	// groups with fewer calibration samples are not calibrated
+	public static final int MIN_SAMPLES = 20;
+
+	// the selection loaded by getDefault
+	private static volatile MinimizerSelection defaultSelection;
+
+	// the resolved engines are cached for alphabet sizes up to this one
+	private static final int MAX_CACHED_ALPHABET_SIZE = 26;
+
+	// engine by group key, sorted for store and for the nearest group lookup
+	// (unmodifiable)
+	private final Map<String, String> engines;
+	// selected engines by alphabet size, density and size, resolved on first use
+	private final String[] resolved = new String[(MAX_CACHED_ALPHABET_SIZE + 1) * 3 * 32];
+
+	/**
+	 * Constructor for the empty selection, which uses the defaults.
+	 */
+	public MinimizerSelection() {
+		this(new TreeMap<>());
+	}
+
+	/**
+	 * Support constructor for a selection of the given engines.
+	 *
+	 * @param engines - engine by group key, copied
+	 */
+	private MinimizerSelection(Map<String, String> engines) {
+		this.engines = Collections.unmodifiableMap(new TreeMap<>(engines));
+	}
+
+	/**
+	 * Returns the engine selected for the given operation and input.
+	 *
+	 * @param operation - COUNT
+	 * @param dfa
+	 * @return engine name
+	 */
+	public String select(String operation, SimpleDFA dfa) {
+		if (!operation.equals(COUNT))
+			throw new RuntimeException("Unknown minimizer operation " + operation + ".");
+		int alphabetSize = dfa.getAlphabetSize();
+		int density = densityOf(dfa);
+		int size = sizeOf(dfa);
+		if (alphabetSize > MAX_CACHED_ALPHABET_SIZE)
+			return resolve(operation, alphabetSize, density, size);
+		int index = (alphabetSize * 3 + density) * 32 + size;
+		String engine = resolved[index];
+		if (engine == null) {
+			engine = resolve(operation, alphabetSize, density, size);
+			resolved[index] = engine;
+		}
+		return engine;
+	}
+
+	/**
+	 * Support method looking up the engine of a group or of the nearest
+	 * calibrated group.
+	 *
+	 * @param operation
+	 * @param alphabetSize
+	 * @param density
+	 * @param size
+	 * @return engine name
+	 */
+	private String resolve(String operation, int alphabetSize, int density, int size) {
+		String engine = engines.get(key(operation, alphabetSize, density, size));
+		if (engine != null)
+			return engine;
+
+		long bestDistance = Long.MAX_VALUE;
+		for (Map.Entry<String, String> entry : engines.entrySet()) {
+			String[] parts = entry.getKey().split("\\.");
+			if (!parts[0].equals(operation))
+				continue;
+			long distance = Math.abs(Integer.parseInt(parts[1].substring(1)) - alphabetSize) * 10_000L
+					+ Math.abs(Integer.parseInt(parts[2].substring(1)) - density) * 100L
+					+ Math.abs(Integer.parseInt(parts[3].substring(1)) - size);
+			if (distance < bestDistance) {
+				bestDistance = distance;
+				engine = entry.getValue();
+			}
+		}
+		if (engine != null)
+			return engine;
+		return HOPCROFT;
+	}
+
+	/**
+	 * Returns the engine calibrated for the group of the given input, or null if
+	 * the group itself was not calibrated (unlike select, which falls back to the
+	 * nearest group and the defaults).
+	 *
+	 * @param operation - COUNT
+	 * @param dfa
+	 * @return engine name or null
+	 */
+	public String selectCalibrated(String operation, SimpleDFA dfa) {
+		return engines.get(key(operation, dfa.getAlphabetSize(), densityOf(dfa), sizeOf(dfa)));
+	}
+
+	/**
+	 * Returns a copy of this selection with the engine of a group replaced.
+	 *
+	 * @param operation
+	 * @param alphabetSize
+	 * @param density
+	 * @param size
+	 * @param engine
+	 * @return MinimizerSelection
+	 */
+	public MinimizerSelection withEngine(String operation, int alphabetSize, int density, int size, String engine) {
+		TreeMap<String, String> changed = new TreeMap<>(engines);
+		changed.put(key(operation, alphabetSize, density, size), engine);
+		return new MinimizerSelection(changed);
+	}
+
+	/**
+	 * Returns the engines by group key.
+	 *
+	 * @return unmodifiable sorted map
+	 */
+	public Map<String, String> getEngines() {
+		return engines;
+	}
+
+	/**
+	 * Returns the density group of an automaton: 0 if less than a quarter of its
+	 * states is final, 2 if more than three quarters, 1 otherwise.
+	 *
+	 * @param dfa
+	 * @return int
+	 */
+	public static int densityOf(SimpleDFA dfa) {
+		int finalStates = 0;
+		for (boolean finality : dfa.getFinalityArray())
+			if (finality)
+				finalStates++;
+		int n = dfa.getNumberOfStates();
+		if (4 * finalStates < n)
+			return 0;
+		return 4 * finalStates > 3 * n ? 2 : 1;
+	}
+
+	/**
+	 * Returns the size group of an automaton, the binary logarithm of its
+	 * number of states rounded down.
+	 *
+	 * @param dfa
+	 * @return int
+	 */
+	public static int sizeOf(SimpleDFA dfa) {
+		return 31 - Integer.numberOfLeadingZeros(dfa.getNumberOfStates());
+	}
+
+	/**
+	 * Support method returning the key of a group.
+	 *
+	 * @param operation
+	 * @param alphabetSize
+	 * @param density
+	 * @param size
+	 * @return String
+	 */
+	private static String key(String operation, int alphabetSize, int density, int size) {
+		return operation + ".k" + alphabetSize + ".d" + density + ".s" + size;
+	}
+
+	/**
+	 * Calibrates the selection on the given samples: the samples are grouped,
+	 * every engine counts the minimal states of the samples of every group with
+	 * at least MIN_SAMPLES samples the given number of times, and the engine
+	 * with the shortest time (the best of the repetitions) is selected.
+	 *
+	 * @param samples
+	 * @param repetitions
+	 * @return MinimizerSelection
+	 */
+	public static MinimizerSelection calibrate(Collection<SimpleDFA> samples, int repetitions) {
+		TreeMap<String, List<SimpleDFA>> groups = new TreeMap<>();
+		for (SimpleDFA dfa : samples)
+			groups.computeIfAbsent(key("", dfa.getAlphabetSize(), densityOf(dfa), sizeOf(dfa)), g -> new ArrayList<>())
+					.add(dfa);
+
+		TreeMap<String, String> engines = new TreeMap<>();
+		for (List<SimpleDFA> group : groups.values()) {
+			if (group.size() < MIN_SAMPLES)
+				continue;
+			SimpleDFA first = group.get(0);
+			engines.put(key(COUNT, first.getAlphabetSize(), densityOf(first), sizeOf(first)),
+					fastest(List.of(PARTITION, REFINEMENT, HOPCROFT, BRZOZOWSKI), group, repetitions));
+		}
+		return new MinimizerSelection(engines);
+	}
+
+	/**
+	 * Support method returning the engine counting the minimal states of a group
+	 * in the shortest time.
+	 *
+	 * @param candidates
+	 * @param group
+	 * @param repetitions
+	 * @return engine name
+	 */
+	private static String fastest(List<String> candidates, List<SimpleDFA> group, int repetitions) {
+		String fastest = null;
+		long fastestNanos = Long.MAX_VALUE;
+		for (String engine : candidates) {
+			MinimizerSelection fixed = new MinimizerSelection().withEngine(COUNT, group.get(0).getAlphabetSize(),
+					densityOf(group.get(0)), sizeOf(group.get(0)), engine);
+			SimpleDFAOperator operator = new SimpleDFAOperator();
+			operator.setMinimizerSelection(fixed);
+
+			long best = Long.MAX_VALUE;
+			long checksum = 0;
+			// the first run warms up
+			for (int repetition = 0; repetition <= repetitions; repetition++) {
+				long start = System.nanoTime();
+				for (SimpleDFA dfa : group)
+					checksum += operator.countMinimalStates(dfa);
+				long elapsed = System.nanoTime() - start;
+				if (repetition > 0)
+					best = Math.min(best, elapsed);
+			}
+			if (checksum == 0)
+				throw new RuntimeException("Empty calibration group.");
+			if (best < fastestNanos) {
+				fastestNanos = best;
+				fastest = engine;
+			}
+		}
+		return fastest;
+	}
+
+	/**
+	 * Loads a selection from a properties file.
+	 *
+	 * @param file
+	 * @return MinimizerSelection
+	 * @throws IOException
+	 */
+	public static MinimizerSelection load(Path file) throws IOException {
+		Properties properties = new Properties();
+		try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			properties.load(reader);
+		}
+		TreeMap<String, String> engines = new TreeMap<>();
+		for (String key : properties.stringPropertyNames()) {
+			if (key.startsWith(MINIMIZE + "."))
+				throw new RuntimeException("The minimizer selection " + file + " selects the engine of minimize ("
+						+ key + "), which is no longer calibrated; recalibrate it with MinimizerCalibrationRunner.");
+			if (!key.matches(COUNT + "\\.k\\d+\\.d[0-2]\\.s\\d+"))
+				throw new RuntimeException("Invalid minimizer selection key " + key + " in " + file + ".");
+			String engine = properties.getProperty(key).trim();
+			if (!List.of(PARTITION, REFINEMENT, HOPCROFT, BRZOZOWSKI).contains(engine))
+				throw new RuntimeException("Invalid minimization engine " + engine + " of " + key + " in " + file + ".");
+			engines.put(key, engine);
+		}
+		return new MinimizerSelection(engines);
+	}
+
+	/**
+	 * Stores the selection as a properties file.
+	 *
+	 * @param file
+	 * @throws IOException
+	 */
+	public void store(Path file) throws IOException {
+		StringBuilder sb = new StringBuilder(
+				"# minimal state count engine by alphabet size, final state density and log2 of the state count\n");
+		for (Map.Entry<String, String> entry : engines.entrySet())
+			sb.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+		Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Returns the selection used by new SimpleDFAOperator instances, loaded on
+	 * the first call (see the class description).
+	 *
+	 * @return MinimizerSelection
+	 */
+	public static MinimizerSelection getDefault() {
+		MinimizerSelection selection = defaultSelection;
+		if (selection != null)
+			return selection;
+		synchronized (MinimizerSelection.class) {
+			if (defaultSelection == null) {
+				String property = System.getProperty(PROPERTY);
+				Path file = Paths.get(property != null ? property : DEFAULT_FILE);
+				if (property != null || Files.isRegularFile(file)) {
+					try {
+						defaultSelection = load(file);
+					} catch (IOException e) {
+						throw new RuntimeException("Cannot read the minimizer selection " + file + ".", e);
+					}
+				} else {
+					defaultSelection = new MinimizerSelection();
+				}
+			}
+			return defaultSelection;
+		}
+	}
+
+}
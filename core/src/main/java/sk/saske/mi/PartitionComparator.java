@@ -23,9 +23,13 @@ import java.util.Comparator;
  * Support class for comparing partitions in different iterations of the
  * minimization algorithm. Based on this comparator the iterations are stopped
  * in the Hopcroft algorithm.
+ * 
+ * @deprecated SimpleDFAOperator.minimize detects the fixpoint by the number of
+ *             classes, since every round refines the previous partition.
  *
  */
 
+@Deprecated
 public class PartitionComparator implements Comparator<SimpleAutomatonStatePartition> {
 
 	private boolean sameContentFlag = true;
@@ -0,0 +1,373 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.util.Arrays;
+
+/**
+ *
+ * Flat-array implementation of the partition refinement of
+ * SimpleDFAOperator.minimize, producing the same minimal DFA with the same
+ * state numbering (on which the published witness files depend) without
+ * creating any objects per state or class.
+ *
+ * The numbering of the partition refinement is determined by the order in
+ * which the states of a class are visited, which is the iteration order of the
+ * HashSet of SimpleAutomatonEquivalenceClass: states by their bucket (the state
+ * modulo the capacity of the set, which only depends on its size) and within a
+ * bucket by insertion. This order is reproduced exactly as long as no bucket
+ * is turned into a tree, which needs 9 states in one bucket; with at most
+ * MAX_REPRODUCIBLE_STATES reachable states no bucket gets more than 8.
+ * countMinimalStates does not depend on the order and accepts any input.
+ *
+ * Instances are not thread-safe, the working arrays are reused between calls.
+ *
+ */
+public class RefinementMinimizer {
+
+	// largest number of reachable states whose numbering is reproduced
+	public static final int MAX_REPRODUCIBLE_STATES = 128;
+
+	// new indices of the reachable states (in ascending order), -1 otherwise
+	private int[] reachableIndex = new int[0];
+	private int[] queue = new int[0];
+	// transitions and finality of the reachable states by their new indices,
+	// transitions[state * k + symbol]
+	private int[] transitions = new int[0];
+	private boolean[] finality = new boolean[0];
+	// partition: class c is members[classStart[c] .. classStart[c + 1]) in the
+	// visiting order, classOf is the class of a state
+	private int[] members = new int[0];
+	private int[] classStart = new int[0];
+	private int[] classOf = new int[0];
+	// refined partition: signatures (previous class and classes of the
+	// successors) of the new classes and their states in insertion order
+	private int[] signatures = new int[0];
+	private int[] newClassOf = new int[0];
+	private int[] newMembers = new int[0];
+	private int[] newClassStart = new int[0];
+	// open addressing hash table of new class indices + 1, 0 for free slots
+	private int[] table = new int[0];
+	// reachable states and refinement rounds of the last minimization
+	private int lastReachableStates;
+	private int lastRounds;
+
+	/**
+	 * Returns the minimal DFA equivalent to the input DFA numbered exactly as by
+	 * SimpleDFAOperator.minimize. The input must have at most
+	 * MAX_REPRODUCIBLE_STATES reachable states.
+	 *
+	 * @param dfa
+	 * @return SimpleDFA which is minimal
+	 */
+	public SimpleDFA minimize(SimpleDFA dfa) {
+		int alphabetSize = dfa.getAlphabetSize();
+		int n = collectReachableStates(dfa);
+		if (n > MAX_REPRODUCIBLE_STATES)
+			throw new RuntimeException("Numbering of the partition refinement not reproducible for " + n
+					+ " reachable states.");
+		int classes = refine(n, alphabetSize, true);
+
+		int[][] transitionMatrix = new int[classes][];
+		boolean[] finalityArray = new boolean[classes];
+		for (int c = 0; c < classes; c++) {
+			transitionMatrix[c] = Arrays.copyOfRange(signatures, c * (alphabetSize + 1) + 1,
+					(c + 1) * (alphabetSize + 1));
+			finalityArray[c] = finality[members[classStart[c]]];
+		}
+
+		// the class of the initial state is swapped with class 0 as by
+		// SimpleDFAOperator.changeInitialState
+		int initial = classOf[0];
+		if (initial != 0) {
+			int[] transitionsOfInitial = transitionMatrix[initial];
+			transitionMatrix[initial] = transitionMatrix[0];
+			transitionMatrix[0] = transitionsOfInitial;
+			boolean finalityOfInitial = finalityArray[initial];
+			finalityArray[initial] = finalityArray[0];
+			finalityArray[0] = finalityOfInitial;
+			for (int[] row : transitionMatrix)
+				for (int symbol = 0; symbol < alphabetSize; symbol++)
+					if (row[symbol] == 0)
+						row[symbol] = initial;
+					else if (row[symbol] == initial)
+						row[symbol] = 0;
+		}
+		return new SimpleDFA(classes, alphabetSize, transitionMatrix, finalityArray);
+	}
+
+	/**
+	 * Returns the number of states of the minimal DFA equivalent to the input
+	 * DFA.
+	 *
+	 * @param dfa
+	 * @return int
+	 */
+	public int countMinimalStates(SimpleDFA dfa) {
+		int n = collectReachableStates(dfa);
+		return refine(n, dfa.getAlphabetSize(), false);
+	}
+
+	/**
+	 * Getters of the last minimization: the number of reachable states and of
+	 * refinement rounds, counted as by SimpleDFAOperator.getLastRefinementRounds.
+	 */
+
+	public int getLastReachableStates() {
+		return lastReachableStates;
+	}
+
+	public int getLastRounds() {
+		return lastRounds;
+	}
+
+	/**
+	 * Support method numbering the reachable states in ascending order of their
+	 * indices (as SimpleDFAOperator.removeUnreachableStates does) and storing
+	 * their transitions and finality in the flat arrays.
+	 *
+	 * @param dfa
+	 * @return number of reachable states
+	 */
+	private int collectReachableStates(SimpleDFA dfa) {
+		int numberOfStates = dfa.getNumberOfStates();
+		int alphabetSize = dfa.getAlphabetSize();
+		int[][] transitionMatrix = dfa.getTransitionMatrix();
+		if (reachableIndex.length < numberOfStates) {
+			reachableIndex = new int[numberOfStates];
+			queue = new int[numberOfStates];
+		}
+		Arrays.fill(reachableIndex, 0, numberOfStates, -1);
+
+		int tail = 0;
+		queue[tail++] = 0;
+		reachableIndex[0] = 0;
+		for (int head = 0; head < tail; head++)
+			for (int symbol = 0; symbol < alphabetSize; symbol++) {
+				int target = transitionMatrix[queue[head]][symbol];
+				if (reachableIndex[target] == -1) {
+					reachableIndex[target] = 0;
+					queue[tail++] = target;
+				}
+			}
+		int n = 0;
+		for (int state = 0; state < numberOfStates; state++)
+			if (reachableIndex[state] != -1)
+				reachableIndex[state] = n++;
+		lastReachableStates = n;
+
+		ensureCapacity(n, alphabetSize);
+		for (int state = 0; state < numberOfStates; state++) {
+			int index = reachableIndex[state];
+			if (index == -1)
+				continue;
+			for (int symbol = 0; symbol < alphabetSize; symbol++)
+				transitions[index * alphabetSize + symbol] = reachableIndex[transitionMatrix[state][symbol]];
+			finality[index] = dfa.getFinalityArray()[state];
+		}
+		return n;
+	}
+
+	/**
+	 * Support method refining the partition into non-final and final states
+	 * until the number of classes stops growing. Every round visits the classes
+	 * in order and the states of a class in their visiting order, and numbers
+	 * the new classes by their first state visited.
+	 *
+	 * @param n            - number of reachable states
+	 * @param alphabetSize
+	 * @param ordered      - whether to keep the visiting order of the HashSets
+	 * @return number of classes
+	 */
+	private int refine(int n, int alphabetSize, boolean ordered) {
+		// the initial classes, the non-final one possibly empty
+		int classes = 2;
+		int position = 0;
+		classStart[0] = 0;
+		for (int state = 0; state < n; state++)
+			if (!finality[state]) {
+				members[position++] = state;
+				classOf[state] = 0;
+			}
+		classStart[1] = position;
+		for (int state = 0; state < n; state++)
+			if (finality[state]) {
+				members[position++] = state;
+				classOf[state] = 1;
+			}
+		classStart[2] = position;
+		if (ordered) {
+			sortByBucket(members, classStart[0], classStart[1]);
+			sortByBucket(members, classStart[1], classStart[2]);
+		}
+
+		int rounds = 0;
+		while (true) {
+			int tableMask = Integer.highestOneBit(Math.max(4 * n, 4)) - 1;
+			Arrays.fill(table, 0, tableMask + 1, 0);
+			int newClasses = 0;
+			newClassStart[0] = 0;
+			for (int c = 0; c < classes; c++) {
+				for (int i = classStart[c]; i < classStart[c + 1]; i++) {
+					int state = members[i];
+					int found = findClass(c, state, alphabetSize, tableMask, newClasses);
+					if (found == newClasses) {
+						newClasses++;
+						newClassStart[found + 1] = 0;
+					}
+					newClassOf[state] = found;
+					newClassStart[found + 1]++;
+				}
+			}
+
+			// states of the new classes in insertion order
+			for (int c = 0; c < newClasses; c++)
+				newClassStart[c + 1] += newClassStart[c];
+			for (int i = 0; i < classStart[classes]; i++) {
+				int state = members[i];
+				newMembers[newClassStart[newClassOf[state]]++] = state;
+			}
+			for (int c = newClasses; c > 0; c--)
+				newClassStart[c] = newClassStart[c - 1];
+			newClassStart[0] = 0;
+			if (ordered)
+				for (int c = 0; c < newClasses; c++)
+					sortByBucket(newMembers, newClassStart[c], newClassStart[c + 1]);
+
+			rounds++;
+			boolean fixpoint = newClasses == classes;
+			int[] swap = members;
+			members = newMembers;
+			newMembers = swap;
+			swap = classStart;
+			classStart = newClassStart;
+			newClassStart = swap;
+			swap = classOf;
+			classOf = newClassOf;
+			newClassOf = swap;
+			classes = newClasses;
+			if (fixpoint)
+				break;
+		}
+		lastRounds = rounds;
+		return classes;
+	}
+
+	/**
+	 * Support method returning the new class of a state of class c, adding a
+	 * new class (with index newClasses) if no state of c with the same classes
+	 * of the successors was visited yet.
+	 *
+	 * @param c
+	 * @param state
+	 * @param alphabetSize
+	 * @param tableMask
+	 * @param newClasses
+	 * @return index of the new class
+	 */
+	private int findClass(int c, int state, int alphabetSize, int tableMask, int newClasses) {
+		int width = alphabetSize + 1;
+		int hash = c;
+		for (int symbol = 0; symbol < alphabetSize; symbol++)
+			hash = hash * 31 + classOf[transitions[state * alphabetSize + symbol]];
+		hash *= 0x9E3779B9;
+
+		for (int slot = (hash ^ (hash >>> 16)) & tableMask;; slot = (slot + 1) & tableMask) {
+			int entry = table[slot];
+			if (entry == 0) {
+				table[slot] = newClasses + 1;
+				int base = newClasses * width;
+				signatures[base] = c;
+				for (int symbol = 0; symbol < alphabetSize; symbol++)
+					signatures[base + 1 + symbol] = classOf[transitions[state * alphabetSize + symbol]];
+				return newClasses;
+			}
+			int base = (entry - 1) * width;
+			if (signatures[base] == c && matches(base, state, alphabetSize))
+				return entry - 1;
+		}
+	}
+
+	/**
+	 * Support method comparing the stored signature with the classes of the
+	 * successors of a state.
+	 *
+	 * @param base
+	 * @param state
+	 * @param alphabetSize
+	 * @return boolean
+	 */
+	private boolean matches(int base, int state, int alphabetSize) {
+		for (int symbol = 0; symbol < alphabetSize; symbol++)
+			if (signatures[base + 1 + symbol] != classOf[transitions[state * alphabetSize + symbol]])
+				return false;
+		return true;
+	}
+
+	/**
+	 * Support method ordering the states of a class from insertion order into
+	 * the iteration order of a HashSet of the same states: stably by the state
+	 * modulo the capacity, which is the least power of two from 16 holding the
+	 * states at load factor 0.75.
+	 *
+	 * @param states
+	 * @param from
+	 * @param to
+	 */
+	private static void sortByBucket(int[] states, int from, int to) {
+		int capacity = 16;
+		while (to - from > capacity * 3 / 4)
+			capacity *= 2;
+		int mask = capacity - 1;
+		for (int i = from + 1; i < to; i++) {
+			int state = states[i];
+			int j = i - 1;
+			while (j >= from && (states[j] & mask) > (state & mask)) {
+				states[j + 1] = states[j];
+				j--;
+			}
+			states[j + 1] = state;
+		}
+	}
+
+	/**
+	 * Support method growing the working arrays.
+	 *
+	 * @param n
+	 * @param alphabetSize
+	 */
+	private void ensureCapacity(int n, int alphabetSize) {
+		if (transitions.length < n * alphabetSize)
+			transitions = new int[n * alphabetSize];
+		if (finality.length < n) {
+			finality = new boolean[n];
+			members = new int[n];
+			newMembers = new int[n];
+			classOf = new int[n];
+			newClassOf = new int[n];
+		}
+		if (classStart.length < n + 3) {
+			classStart = new int[n + 3];
+			newClassStart = new int[n + 3];
+		}
+		if (signatures.length < (n + 2) * (alphabetSize + 1))
+			signatures = new int[(n + 2) * (alphabetSize + 1)];
+		if (table.length < Integer.highestOneBit(Math.max(4 * n, 4)))
+			table = new int[Integer.highestOneBit(Math.max(4 * n, 4))];
+	}
+
+}
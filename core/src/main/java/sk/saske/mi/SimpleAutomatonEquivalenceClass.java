@@ -35,6 +35,9 @@ public class SimpleAutomatonEquivalenceClass {
 	private int[] classTransition;
 	// flag whether class contains final states
 	private boolean isFinal;
+	// partition containing this class and the index of the class in it
+	private SimpleAutomatonStatePartition owner;
+	private int indexInOwner;
 
 	/**
 	 * Constructor for equivalence class implementation.
@@ -79,10 +82,12 @@ public class SimpleAutomatonEquivalenceClass {
 
 	public void addState(int state) {
 		statesInClass.add(state);
+		if (owner != null)
+			owner.stateAdded(indexInOwner, state);
 	}
 
 	public void addState(int state, boolean finality) {
-		statesInClass.add(state);
+		addState(state);
 		this.isFinal = finality;
 	}
 
@@ -104,6 +109,9 @@ public class SimpleAutomatonEquivalenceClass {
 
 	public void setStatesInClass(HashSet<Integer> statesInClass) {
 		this.statesInClass = statesInClass;
+		if (owner != null)
+			for (Integer state : statesInClass)
+				owner.stateAdded(indexInOwner, state.intValue());
 	}
 
 	public int[] getPartitionTransition() {
@@ -132,4 +140,15 @@ public class SimpleAutomatonEquivalenceClass {
 		return result;
 	}
 
+	/**
+	 * Support method registering the partition containing this class.
+	 * 
+	 * @param owner
+	 * @param indexInOwner
+	 */
+	void setOwner(SimpleAutomatonStatePartition owner, int indexInOwner) {
+		this.owner = owner;
+		this.indexInOwner = indexInOwner;
+	}
+
 }
@@ -0,0 +1,275 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 
+ * Class for implementing state partitions for Hopcroft minimization.
+ * 
+ * Besides the list of classes the partition keeps a state to class index array
+ * and a hash map of the class signatures (origin class in the previous
+ * partition and class transitions), so both getClassIndexOfState and
+ * containsStateClassTransition take constant time and a refinement round is
+ * linear in states times symbols. States have to be added through the
+ * partition or SimpleAutomatonEquivalenceClass.addState for the index to see
+ * them; lookups missing the index fall back to scanning the classes.
+ *
+ */
+
+public class SimpleAutomatonStatePartition {
+
+	// variable for saving the partition of states
+	private List<SimpleAutomatonEquivalenceClass> partition;
+	// class index of every state, -1 for states not in the partition
+	private int[] classIndexOfState = new int[0];
+	// class index by class signature
+	private Map<ClassSignature, Integer> classBySignature = new HashMap<>();
+	// indices of the classes added without a signature
+	private List<Integer> unsignedClasses = new ArrayList<>();
+
+	/**
+	 * 
+	 * Signature of a class of a refined partition: the class of the previous
+	 * partition its states come from and the classes of their transitions.
+	 *
+	 */
+	private static final class ClassSignature {
+
+		private final SimpleAutomatonEquivalenceClass originClass;
+		private final int[] transitions;
+		private final int hash;
+
+		ClassSignature(SimpleAutomatonEquivalenceClass originClass, int[] transitions) {
+			this.originClass = originClass;
+			this.transitions = transitions;
+			this.hash = 31 * System.identityHashCode(originClass) + Arrays.hashCode(transitions);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof ClassSignature))
+				return false;
+			ClassSignature other = (ClassSignature) obj;
+			return originClass == other.originClass && Arrays.equals(transitions, other.transitions);
+		}
+
+	}
+
+	/**
+	 * Constructor for state partition implementation.
+	 */
+	public SimpleAutomatonStatePartition() {
+		this.partition = new ArrayList<>();
+	}
+
+	/**
+	 * Returns the equivalence class index of the target state, for which the given
+	 * input state transitions on the given input symbol for a given automaton.
+	 * 
+	 * @param state
+	 * @param symbol
+	 * @param automaton
+	 * @return int - index of equivalence class in this partition
+	 */
+	public int getClassOfTransitionForState(int state, int symbol, SimpleDFA automaton) {
+		int targetState = automaton.applySingleInput(state, symbol);
+		return getClassIndexOfState(targetState);
+	}
+
+	/**
+	 * Returns the equivalence class index in this partition to which the given
+	 * state belongs.
+	 * 
+	 * @param state
+	 * @return int - returns -1 if the state index is not present in partition
+	 */
+	public int getClassIndexOfState(int state) {
+		if (state >= 0 && state < classIndexOfState.length) {
+			int index = classIndexOfState[state];
+			if (index >= 0 && partition.get(index).containsState(state))
+				return index;
+		}
+
+		for (int i = 0; i < partition.size(); i++)
+			if (partition.get(i).containsState(state)) {
+				stateAdded(i, state);
+				return i;
+			}
+
+		return -1;
+	}
+
+	/**
+	 * Returns the equivalence class object in this partition to which the given
+	 * state belongs.
+	 * 
+	 * @param state
+	 * @return SimpleAutomatonEquivalenceClass
+	 */
+	public SimpleAutomatonEquivalenceClass getClassOfState(int state) {
+		int index = getClassIndexOfState(state);
+		return partition.get(index);
+	}
+
+	/**
+	 * Returns the number of equivalence classes in partition.
+	 * 
+	 * @return int
+	 */
+	public int getPartitionSize() {
+		return partition.size();
+	}
+
+	/**
+	 * Returns the equivalence class index with the initial state
+	 * 
+	 * @return int
+	 */
+	public int getInitClassNumber() {
+		return getClassIndexOfState(0);
+	}
+
+	public List<SimpleAutomatonEquivalenceClass> getEquivalenceClassesOfPartition() {
+		return partition;
+	}
+
+	/**
+	 * Returns the equivalence class in the partition list with the given index.
+	 * 
+	 * @param index
+	 * @return SimpleAutomatonEquivalenceClass
+	 */
+	public SimpleAutomatonEquivalenceClass getEquivalenceClassInPartition(int index) {
+		return partition.get(index);
+	}
+
+	/**
+	 * Add new equivalence class to partition based on given parameters.
+	 * 
+	 * @param alphabetSize - size of Sigma
+	 * @param finality     - whether the class contains final states
+	 */
+	public void addNewClass(int alphabetSize, boolean finality) {
+		SimpleAutomatonEquivalenceClass newClass = new SimpleAutomatonEquivalenceClass(alphabetSize, finality);
+		addClass(newClass, null);
+	}
+
+	/**
+	 * Add new equivalence class to partition based on given parameters.
+	 * 
+	 * @param state                     - representing state in class
+	 * @param alphabetSize              - size of Sigma
+	 * @param characteristicTransitions - transitions of class
+	 * @param finality                  - whether the class contains final states
+	 */
+	public void addNewClass(int state, int alphabetSize, int[] characteristicTransitions, boolean finality) {
+		SimpleAutomatonEquivalenceClass newClass = new SimpleAutomatonEquivalenceClass(state, alphabetSize,
+				characteristicTransitions, finality);
+		addClass(newClass, null);
+	}
+
+	/**
+	 * Add new equivalence class of a refined partition, registering its signature
+	 * for containsStateClassTransition.
+	 * 
+	 * @param state                     - representing state in class
+	 * @param alphabetSize              - size of Sigma
+	 * @param characteristicTransitions - transitions of class
+	 * @param finality                  - whether the class contains final states
+	 * @param originClass               - class of the state in the previous
+	 *                                  partition
+	 */
+	public void addNewClass(int state, int alphabetSize, int[] characteristicTransitions, boolean finality,
+			SimpleAutomatonEquivalenceClass originClass) {
+		SimpleAutomatonEquivalenceClass newClass = new SimpleAutomatonEquivalenceClass(state, alphabetSize,
+				characteristicTransitions, finality);
+		addClass(newClass, new ClassSignature(originClass, characteristicTransitions.clone()));
+	}
+
+	/**
+	 * Support method adding a class and indexing its states and signature.
+	 * 
+	 * @param newClass
+	 * @param signature - null if unknown
+	 */
+	private void addClass(SimpleAutomatonEquivalenceClass newClass, ClassSignature signature) {
+		int index = partition.size();
+		partition.add(newClass);
+		newClass.setOwner(this, index);
+		for (Integer state : newClass.getStatesInClass())
+			stateAdded(index, state.intValue());
+		if (signature == null)
+			unsignedClasses.add(index);
+		else
+			classBySignature.putIfAbsent(signature, index);
+	}
+
+	/**
+	 * Support method indexing a state added to the class with the given index.
+	 * Like the class scan, the index keeps the lowest class of a state.
+	 * 
+	 * @param classIndex
+	 * @param state
+	 */
+	void stateAdded(int classIndex, int state) {
+		if (state >= classIndexOfState.length) {
+			int length = classIndexOfState.length;
+			classIndexOfState = Arrays.copyOf(classIndexOfState, Math.max(state + 1, 2 * length));
+			Arrays.fill(classIndexOfState, length, classIndexOfState.length, -1);
+		}
+		int index = classIndexOfState[state];
+		if (index < 0 || index > classIndex || !partition.get(index).containsState(state))
+			classIndexOfState[state] = classIndex;
+	}
+
+	/**
+	 * Returns the index of the class with the given transitions whose states
+	 * come from the given class of the previous partition, or -1 if there is no
+	 * such class.
+	 * 
+	 * @param scTransition - classes of the transitions in the previous partition
+	 * @param originClass  - class in the previous partition
+	 * @return int
+	 */
+	public int containsStateClassTransition(int[] scTransition, SimpleAutomatonEquivalenceClass originClass) {
+		Integer signed = classBySignature.get(new ClassSignature(originClass, scTransition));
+		int result = signed != null ? signed.intValue() : -1;
+
+		// classes without a signature are matched by comparing them
+		for (int index : unsignedClasses) {
+			if (result != -1 && index > result)
+				break;
+			SimpleAutomatonEquivalenceClass cl = partition.get(index);
+			if (Arrays.equals(cl.getPartitionTransition(), scTransition) && cl.getClassSize() > 0
+					&& originClass.containsState(cl.getStatesInClassAsList()[0]))
+				return index;
+		}
+		return result;
+	}
+
+}
@@ -23,6 +23,7 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
+import java.util.SplittableRandom;
 import java.util.Stack;
 
 /**
@@ -36,6 +37,18 @@ public class SimpleDFAOperator {
 	// auxiliary variables for saving possible DFA state renumberings
 	private List<int[]> stateNumberPermutation = new ArrayList<>();
 	private List<SimpleDFA> automatonStatePermutations = new ArrayList<>();
+	// refinement rounds of the last minimization and of all minimizations
+	private int lastRefinementRounds;
+	private long totalRefinementRounds;
+	private long minimizations;
+	// engine selection of countMinimalStates and the engines, created on first
+	// use
+	private MinimizerSelection minimizerSelection = MinimizerSelection.getDefault();
+	private RefinementMinimizer refinementMinimizer;
+	private HopcroftMinimizer hopcroftMinimizer;
+	private BrzozowskiMinimizer brzozowskiMinimizer;
+	// result of the self-check of RefinementMinimizer, null before it ran
+	private static volatile Boolean refinementVerified;
 
 	/**
 	 * Modify input DFA, so that it accepts the complement of the input language.
@@ -182,6 +195,11 @@ public class SimpleDFAOperator {
 	 * @return SimpleDFA
 	 */
 	public SimpleDFA determinize(SimpleMNFA mnfa) {
+		DeterminizationEvent event = null;
+		if (EngineMetrics.ENABLED) {
+			event = new DeterminizationEvent();
+			event.begin();
+		}
 		int numOfStates;
 		int alphabetSize = mnfa.getAlphabetSize();
 		int[][] transitionMatrix;
@@ -252,6 +270,16 @@ public class SimpleDFAOperator {
 			finalityArray[state] = finalityArrayBuild.get(state);
 		}
 
+		if (event != null) {
+			EngineMetrics.DETERMINIZATIONS.increment();
+			EngineMetrics.DETERMINIZED_STATES.add(numOfStates);
+			event.end();
+			if (event.shouldCommit()) {
+				event.mnfaStates = mnfa.getNumberOfStates();
+				event.dfaStates = numOfStates;
+				event.commit();
+			}
+		}
 		return new SimpleDFA(numOfStates, alphabetSize, transitionMatrix, finalityArray);
 	}
 
@@ -296,95 +324,283 @@ public class SimpleDFAOperator {
 		return new SimpleMNFA(numberOfStates, alphabetSize, transitionMatrix, initialityArray, finalityArray, complete);
 	}
 
+	/**
+	 * Returns the minimal DFA accepting the reverse of the language accepted by
+	 * the input SimpleDFA. It is equivalent to minimize(determinize(reverse(dfa)))
+	 * up to state numbering (states are numbered in breadth-first order): the
+	 * subsets of states reachable in the subset construction of the reversal of a
+	 * DFA without unreachable states are pairwise distinguishable, so the subset
+	 * construction is done directly on bitmask subsets (BrzozowskiMinimizer) and
+	 * no minimization is needed.
+	 * 
+	 * @param dfa
+	 * @return SimpleDFA which is minimal
+	 */
+	public SimpleDFA determinizeReversal(SimpleDFA dfa) {
+		SimpleDFA reversal = brzozowskiMinimizer().determinizeReversal(dfa);
+		if (EngineMetrics.ENABLED) {
+			EngineMetrics.DETERMINIZATIONS.increment();
+			EngineMetrics.DETERMINIZED_STATES.add(reversal.getNumberOfStates());
+		}
+		return reversal;
+	}
+
 	/**
 	 * Perform Hopcroft minimization on input SimpleDFA.
 	 * 
+	 * The partition is refined round by round until a fixpoint. Every class of a
+	 * refined partition is a subset of a class of the previous one, so the
+	 * fixpoint is reached exactly when a round does not increase the number of
+	 * classes. Automata with up to RefinementMinimizer.MAX_REPRODUCIBLE_STATES
+	 * states are refined on flat arrays (RefinementMinimizer), larger ones on
+	 * the partition objects. Both produce the same state numbering, which the
+	 * published witness files depend on; since RefinementMinimizer reproduces it
+	 * by emulating the iteration order of HashSet, it is checked against the
+	 * partition objects once per JVM (see isRefinementVerified) and not used if
+	 * the check fails.
+	 * 
 	 * @param automaton
 	 * @return SimpleDFA which is minimal
 	 */
 	public SimpleDFA minimize(SimpleDFA automaton) {
-		automaton = removeUnreachableStates(automaton);
+		MinimizationEvent event = null;
+		if (EngineMetrics.ENABLED) {
+			event = new MinimizationEvent();
+			event.begin();
+		}
 
-		List<SimpleAutomatonStatePartition> partitionIterations = new ArrayList<>();
+		SimpleDFA minimal;
+		int reachableStates;
+		if (automaton.getNumberOfStates() <= RefinementMinimizer.MAX_REPRODUCIBLE_STATES && isRefinementVerified()) {
+			minimal = refinementMinimizer().minimize(automaton);
+			lastRefinementRounds = refinementMinimizer.getLastRounds();
+			reachableStates = refinementMinimizer.getLastReachableStates();
+		} else {
+			automaton = removeUnreachableStates(automaton);
+			minimal = minimizeByPartition(automaton);
+			reachableStates = automaton.getNumberOfStates();
+		}
+		totalRefinementRounds += lastRefinementRounds;
+		minimizations++;
+
+		if (event != null) {
+			EngineMetrics.MINIMIZATIONS.increment();
+			EngineMetrics.REFINEMENT_ROUNDS.add(lastRefinementRounds);
+			event.end();
+			if (event.shouldCommit()) {
+				event.states = reachableStates;
+				event.minimalStates = minimal.getNumberOfStates();
+				event.rounds = lastRefinementRounds;
+				event.commit();
+			}
+		}
+		return minimal;
+	}
 
-		SimpleAutomatonStatePartition firstPartition = new SimpleAutomatonStatePartition();
-		firstPartition.addNewClass(automaton.getAlphabetSize(), false);
-		firstPartition.addNewClass(automaton.getAlphabetSize(), true);
+	/**
+	 * Returns the number of states of the minimal DFA equivalent to the input
+	 * SimpleDFA, computed by the engine of the minimizer selection (see
+	 * MinimizerSelection). Unlike minimize it does not count as a
+	 * minimization in the metrics.
+	 * 
+	 * @param automaton
+	 * @return int
+	 */
+	public int countMinimalStates(SimpleDFA automaton) {
+		switch (minimizerSelection.select(MinimizerSelection.COUNT, automaton)) {
+		case MinimizerSelection.REFINEMENT:
+			return refinementMinimizer().countMinimalStates(automaton);
+		case MinimizerSelection.HOPCROFT:
+			if (hopcroftMinimizer == null)
+				hopcroftMinimizer = new HopcroftMinimizer();
+			return hopcroftMinimizer.countMinimalStates(automaton);
+		case MinimizerSelection.BRZOZOWSKI:
+			return brzozowskiMinimizer().countMinimalStates(automaton);
+		default:
+			return minimizeByPartition(removeUnreachableStates(automaton)).getNumberOfStates();
+		}
+	}
+
+	/**
+	 * Support method refining the partition objects of an automaton without
+	 * unreachable states.
+	 * 
+	 * @param automaton
+	 * @return SimpleDFA which is minimal
+	 */
+	private SimpleDFA minimizeByPartition(SimpleDFA automaton) {
+		SimpleAutomatonStatePartition partition = new SimpleAutomatonStatePartition();
+		partition.addNewClass(automaton.getAlphabetSize(), false);
+		partition.addNewClass(automaton.getAlphabetSize(), true);
 
 		for (int state = 0; state < automaton.getNumberOfStates(); state++) {
 			if (automaton.getFinalityArray()[state]) {
-				firstPartition.getEquivalenceClassInPartition(1).addState(state);
+				partition.getEquivalenceClassInPartition(1).addState(state);
 			} else {
-				firstPartition.getEquivalenceClassInPartition(0).addState(state);
+				partition.getEquivalenceClassInPartition(0).addState(state);
+			}
+		}
+
+		int rounds = 0;
+		while (true) {
+			SimpleAutomatonStatePartition refinedPartition = refinePartition(automaton, partition);
+			rounds++;
+			boolean fixpoint = refinedPartition.getPartitionSize() == partition.getPartitionSize();
+			partition = refinedPartition;
+			if (fixpoint)
+				break;
+		}
+		lastRefinementRounds = rounds;
+		return createAutomatonFromPartition(partition);
+	}
+
+	/**
+	 * Returns whether RefinementMinimizer numbers the minimal DFAs exactly as the
+	 * partition objects. The check runs on the first call in the JVM: both
+	 * engines minimize a fixed sample of random DFAs (including unreachable and
+	 * many equivalent states) with 1 to MAX_REPRODUCIBLE_STATES states over 1 to
+	 * 3 symbols. A failure is reported on the standard error output.
+	 * 
+	 * @return boolean
+	 */
+	public static boolean isRefinementVerified() {
+		Boolean verified = refinementVerified;
+		if (verified != null)
+			return verified;
+		synchronized (SimpleDFAOperator.class) {
+			if (refinementVerified == null) {
+				SimpleDFA mismatch = findRefinementMismatch();
+				if (mismatch != null)
+					System.err.println("RefinementMinimizer does not reproduce the state numbering of the partition "
+							+ "refinement (e.g. of a DFA with " + mismatch.getNumberOfStates() + " states over "
+							+ mismatch.getAlphabetSize() + " symbols), minimize uses the partition refinement only.");
+				refinementVerified = mismatch == null;
 			}
+			return refinementVerified;
 		}
-		partitionIterations.add(firstPartition);
+	}
+
+	/**
+	 * Support method returning a sample DFA which RefinementMinimizer and the
+	 * partition objects minimize differently, or null if there is none. Half of
+	 * the samples have uniformly random transitions and finality (of densities
+	 * 0.1, 0.5 and 0.9), the other half are expansions of random DFAs with 2 or
+	 * 5 states, whose states fall into a few large classes.
+	 * 
+	 * @return SimpleDFA or null
+	 */
+	private static SimpleDFA findRefinementMismatch() {
+		SimpleDFAOperator operator = new SimpleDFAOperator();
+		RefinementMinimizer refinement = new RefinementMinimizer();
+		SplittableRandom random = new SplittableRandom(0x5EEDL);
+		for (int n = 1; n <= RefinementMinimizer.MAX_REPRODUCIBLE_STATES; n += n < 20 ? 1 : 9) {
+			for (int alphabetSize = 1; alphabetSize <= 3; alphabetSize++) {
+				for (int kind = 0; kind < 5; kind++) {
+					int[][] transitionMatrix = new int[n][alphabetSize];
+					boolean[] finalityArray = new boolean[n];
+					if (kind < 3) {
+						double density = kind == 0 ? 0.1 : kind == 1 ? 0.5 : 0.9;
+						for (int state = 0; state < n; state++) {
+							for (int symbol = 0; symbol < alphabetSize; symbol++)
+								transitionMatrix[state][symbol] = random.nextInt(n);
+							finalityArray[state] = random.nextDouble() < density;
+						}
+					} else {
+						// state i behaves as the state image[i] of a random DFA with m states
+						int m = kind == 3 ? 2 : 5;
+						if (n < m)
+							continue;
+						int[] image = new int[n];
+						for (int state = 0; state < n; state++)
+							image[state] = state < m ? state : random.nextInt(m);
+						int[][] base = new int[m][alphabetSize];
+						boolean[] baseFinality = new boolean[m];
+						for (int state = 0; state < m; state++) {
+							for (int symbol = 0; symbol < alphabetSize; symbol++)
+								base[state][symbol] = random.nextInt(m);
+							baseFinality[state] = random.nextBoolean();
+						}
+						for (int state = 0; state < n; state++) {
+							for (int symbol = 0; symbol < alphabetSize; symbol++) {
+								int target;
+								do {
+									target = random.nextInt(n);
+								} while (image[target] != base[image[state]][symbol]);
+								transitionMatrix[state][symbol] = target;
+							}
+							finalityArray[state] = baseFinality[image[state]];
+						}
+					}
+					SimpleDFA dfa = new SimpleDFA(n, alphabetSize, transitionMatrix, finalityArray);
+					SimpleDFA expected = operator.minimizeByPartition(operator.removeUnreachableStates(dfa));
+					SimpleDFA actual = refinement.minimize(dfa);
+					if (!Arrays.deepEquals(expected.getTransitionMatrix(), actual.getTransitionMatrix())
+							|| !Arrays.equals(expected.getFinalityArray(), actual.getFinalityArray()))
+						return dfa;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Support method returning the flat refinement engine, created on first use.
+	 * 
+	 * @return RefinementMinimizer
+	 */
+	private RefinementMinimizer refinementMinimizer() {
+		if (refinementMinimizer == null)
+			refinementMinimizer = new RefinementMinimizer();
+		return refinementMinimizer;
+	}
+
+	/**
+	 * Support method returning the subset construction engine of the reversal,
+	 * created on first use.
+	 * 
+	 * @return BrzozowskiMinimizer
+	 */
+	private BrzozowskiMinimizer brzozowskiMinimizer() {
+		if (brzozowskiMinimizer == null)
+			brzozowskiMinimizer = new BrzozowskiMinimizer();
+		return brzozowskiMinimizer;
+	}
 
-		SimpleAutomatonStatePartition secondPartition = new SimpleAutomatonStatePartition();
-		for (SimpleAutomatonEquivalenceClass cl : partitionIterations.get(0).getEquivalenceClassesOfPartition()) {
+	/**
+	 * Support method performing one refinement round of the Hopcroft minimization:
+	 * states of a class stay together iff their transitions lead to the same
+	 * classes.
+	 * 
+	 * @param automaton
+	 * @param partition
+	 * @return refined SimpleAutomatonStatePartition
+	 */
+	private SimpleAutomatonStatePartition refinePartition(SimpleDFA automaton,
+			SimpleAutomatonStatePartition partition) {
+		SimpleAutomatonStatePartition newPartition = new SimpleAutomatonStatePartition();
+		for (SimpleAutomatonEquivalenceClass cl : partition.getEquivalenceClassesOfPartition()) {
 
 			for (Integer stateInteger : cl.getStatesInClass()) {
 
 				int state = stateInteger.intValue();
-				SimpleAutomatonEquivalenceClass originClass = partitionIterations.get(0).getClassOfState(state);
 				int[] stateClassTransitions = new int[automaton.getAlphabetSize()];
 
 				for (int i = 0; i < stateClassTransitions.length; i++) {
-					int targetClass = partitionIterations.get(0)
-							.getClassIndexOfState(automaton.applySingleInput(state, i));
+					int targetClass = partition.getClassIndexOfState(automaton.applySingleInput(state, i));
 					stateClassTransitions[i] = targetClass;
 				}
 
-				int belongsToClassIndex = secondPartition.containsStateClassTransition(stateClassTransitions,
-						originClass);
+				int belongsToClassIndex = newPartition.containsStateClassTransition(stateClassTransitions, cl);
 				if (belongsToClassIndex == -1) {
-					secondPartition.addNewClass(state, stateClassTransitions.length, stateClassTransitions,
-							automaton.getFinalityArray()[state]);
+					newPartition.addNewClass(state, stateClassTransitions.length, stateClassTransitions,
+							automaton.getFinalityArray()[state], cl);
 				} else {
-					secondPartition.getEquivalenceClassInPartition(belongsToClassIndex).addState(state,
+					newPartition.getEquivalenceClassInPartition(belongsToClassIndex).addState(state,
 							automaton.getFinalityArray()[state]);
 				}
 			}
 		}
-		partitionIterations.add(secondPartition);
-
-		int partitionRefinementCounter = 1;
-		while (!stopMinimization(partitionIterations.get(partitionRefinementCounter - 1),
-				partitionIterations.get(partitionRefinementCounter))) {
-
-			SimpleAutomatonStatePartition newPartition = new SimpleAutomatonStatePartition();
-			for (SimpleAutomatonEquivalenceClass cl : partitionIterations.get(partitionRefinementCounter)
-					.getEquivalenceClassesOfPartition()) {
-
-				for (Integer stateInteger : cl.getStatesInClass()) {
-
-					int state = stateInteger.intValue();
-					SimpleAutomatonEquivalenceClass originClass = partitionIterations.get(partitionRefinementCounter)
-							.getClassOfState(state);
-					int[] stateClassTransitions = new int[automaton.getAlphabetSize()];
-
-					for (int i = 0; i < stateClassTransitions.length; i++) {
-						int targetClass = partitionIterations.get(partitionRefinementCounter)
-								.getClassIndexOfState(automaton.applySingleInput(state, i));
-						stateClassTransitions[i] = targetClass;
-					}
-
-					int belongsToClassIndex = newPartition.containsStateClassTransition(stateClassTransitions,
-							originClass);
-					if (belongsToClassIndex == -1) {
-						newPartition.addNewClass(state, stateClassTransitions.length, stateClassTransitions,
-								automaton.getFinalityArray()[state]);
-					} else {
-						newPartition.getEquivalenceClassInPartition(belongsToClassIndex).addState(state,
-								automaton.getFinalityArray()[state]);
-					}
-				}
-			}
-			partitionIterations.add(newPartition);
-			partitionRefinementCounter++;
-		}
-
-		return createAutomatonFromPartition(partitionIterations.get(partitionIterations.size() - 1));
+		return newPartition;
 	}
 
 	/**
@@ -473,23 +689,6 @@ public class SimpleDFAOperator {
 		return result;
 	}
 
-	/**
-	 * Support method for DFA minimization indicating partition refinement halt. The
-	 * inputs represent two partitions in subsequent iterations of the Hopcroft
-	 * minimization algorithm.
-	 * 
-	 * @param p
-	 * @param k
-	 * @return boolean
-	 */
-	private boolean stopMinimization(SimpleAutomatonStatePartition p, SimpleAutomatonStatePartition k) {
-		PartitionComparator pComp = new PartitionComparator();
-		if (pComp.compare(p, k) == 0)
-			if (pComp.isSameContent())
-				return true;
-		return false;
-	}
-
 	/**
 	 * Support method for creating a SimpleDFA from the final state partition of the
 	 * Hopcroft minimization algorithm.
@@ -672,6 +871,43 @@ public class SimpleDFAOperator {
 
 	}
 
+	/**
+	 * Returns every permutation of the alphabet symbols in lexicographic order
+	 * (the identity first), usable as an alphabet mapping for homomorphicImage.
+	 * 
+	 * @param alphabetSize
+	 * @return an array of alphabet mappings
+	 */
+	public int[][] getAlphabetPermutations(int alphabetSize) {
+		List<int[]> permutations = new ArrayList<>();
+		int[] permutation = new int[alphabetSize];
+		for (int symbol = 0; symbol < alphabetSize; symbol++)
+			permutation[symbol] = symbol;
+
+		while (true) {
+			permutations.add(permutation.clone());
+
+			// advance to the lexicographically next permutation
+			int i = alphabetSize - 2;
+			while (i >= 0 && permutation[i] >= permutation[i + 1])
+				i--;
+			if (i < 0)
+				break;
+			int j = alphabetSize - 1;
+			while (permutation[j] <= permutation[i])
+				j--;
+			int tmp = permutation[i];
+			permutation[i] = permutation[j];
+			permutation[j] = tmp;
+			for (int left = i + 1, right = alphabetSize - 1; left < right; left++, right--) {
+				tmp = permutation[left];
+				permutation[left] = permutation[right];
+				permutation[right] = tmp;
+			}
+		}
+		return permutations.toArray(new int[permutations.size()][]);
+	}
+
 	/**
 	 * Returns a DFA with newly mapped transition symbols based on input mapping.
 	 * 
@@ -698,4 +934,34 @@ public class SimpleDFAOperator {
 		return new SimpleDFA(numOfStates, alphabetSize, transitionMatrix, finalityArray);
 	}
 
+	/**
+	 * Getters of the minimization metrics: the number of refinement rounds of the
+	 * last minimization (the last round confirms the fixpoint), the total number
+	 * of rounds and the number of minimizations performed by this operator.
+	 */
+
+	public int getLastRefinementRounds() {
+		return lastRefinementRounds;
+	}
+
+	public long getTotalRefinementRounds() {
+		return totalRefinementRounds;
+	}
+
+	public long getMinimizations() {
+		return minimizations;
+	}
+
+	/**
+	 * Getter and setter of the minimizer selection.
+	 */
+
+	public MinimizerSelection getMinimizerSelection() {
+		return minimizerSelection;
+	}
+
+	public void setMinimizerSelection(MinimizerSelection minimizerSelection) {
+		this.minimizerSelection = minimizerSelection;
+	}
+
 }
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ *
+ * Symmetry of the cut operation under alphabet permutations: for every
+ * permutation p of the alphabet, cut(p(A), p(B)) = p(cut(A, B)), so both pairs
+ * have minimal cut automata of the same size. The pairs of two automata lists
+ * fall into orbits of pairs equivalent up to a simultaneous alphabet
+ * permutation (and isomorphism); it suffices to evaluate one representative of
+ * every orbit and to count it with the orbit size.
+ *
+ * Orbits are computed within the given lists only, so the histogram counts are
+ * exact for any lists. Lists reduced modulo alphabet permutation (such as
+ * structuredAutomataLists) have almost only trivial orbits; the reduction pays
+ * off for lists closed under alphabet permutations (see closeUnderPermutations),
+ * where it saves up to a factor of k!.
+ *
+ */
+public class AlphabetSymmetry {
+
+	// Sigma size
+	private int alphabetSize;
+	// every permutation of the alphabet, the identity first
+	private int[][] permutations;
+	// image indices of the first and second list, imagesA[permutation][indexA]
+	private int[][] imagesA;
+	private int[][] imagesB;
+
+	/**
+	 * Constructor computing the permutation images of both lists.
+	 *
+	 * @param automataA    - first operands
+	 * @param automataB    - second operands
+	 * @param alphabetSize
+	 */
+	public AlphabetSymmetry(SimpleDFA[] automataA, SimpleDFA[] automataB, int alphabetSize) {
+		this.alphabetSize = alphabetSize;
+		this.permutations = new SimpleDFAOperator().getAlphabetPermutations(alphabetSize);
+		this.imagesA = permutationImages(automataA, permutations);
+		this.imagesB = permutationImages(automataB, permutations);
+	}
+
+	/**
+	 * Returns, for every permutation and every automaton of the given array, the
+	 * index of an automaton of the array isomorphic to its permutation image, or
+	 * -1 if there is none.
+	 *
+	 * @param automata
+	 * @param permutations
+	 * @return int[][] - images[permutation][index]
+	 */
+	public static int[][] permutationImages(SimpleDFA[] automata, int[][] permutations) {
+		SimpleDFAOperator operator = new SimpleDFAOperator();
+		Map<AutomatonKey, Integer> indices = new HashMap<>();
+		for (int i = automata.length - 1; i >= 0; i--)
+			indices.put(new AutomatonKey(automata[i]), i);
+
+		int[][] images = new int[permutations.length][automata.length];
+		for (int p = 0; p < permutations.length; p++)
+			for (int i = 0; i < automata.length; i++) {
+				Integer image = indices
+						.get(new AutomatonKey(operator.homomorphicImage(automata[i], permutations[p])));
+				images[p][i] = image == null ? -1 : image;
+			}
+		return images;
+	}
+
+	/**
+	 * Writes the distinct pairs of the orbit of (indexA, indexB) within the lists
+	 * to membersA and membersB (each of length at least k!) and returns their
+	 * number. The pair itself is always the first member.
+	 *
+	 * @param indexA
+	 * @param indexB
+	 * @param membersA
+	 * @param membersB
+	 * @return int - orbit size
+	 */
+	public int orbit(int indexA, int indexB, int[] membersA, int[] membersB) {
+		int size = 0;
+		permutationLoop: for (int p = 0; p < permutations.length; p++) {
+			int imageA = imagesA[p][indexA];
+			int imageB = imagesB[p][indexB];
+			if (imageA == -1 || imageB == -1)
+				continue;
+			for (int i = 0; i < size; i++)
+				if (membersA[i] == imageA && membersB[i] == imageB)
+					continue permutationLoop;
+			membersA[size] = imageA;
+			membersB[size] = imageB;
+			size++;
+		}
+		return size;
+	}
+
+	/**
+	 * Returns whether (indexA, indexB) is the representative of its orbit, i.e.
+	 * the lexicographically smallest pair of the orbit.
+	 *
+	 * @param indexA
+	 * @param indexB
+	 * @return boolean
+	 */
+	public boolean isRepresentative(int indexA, int indexB) {
+		for (int p = 1; p < permutations.length; p++) {
+			int imageA = imagesA[p][indexA];
+			int imageB = imagesB[p][indexB];
+			if (imageA == -1 || imageB == -1)
+				continue;
+			if (imageA < indexA || (imageA == indexA && imageB < indexB))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the given list of automaton encodings extended by the encodings of
+	 * all alphabet permutation images of its automata, with canonical (BFS)
+	 * state numbering, without duplicates and sorted.
+	 *
+	 * @param codes
+	 * @param numberOfStates
+	 * @param alphabetSize
+	 * @return list of encodings
+	 */
+	public static List<String> closeUnderPermutations(List<String> codes, int numberOfStates, int alphabetSize) {
+		SimpleDFAOperator operator = new SimpleDFAOperator();
+		int[][] permutations = operator.getAlphabetPermutations(alphabetSize);
+		DFASerialCodeAnalyzer analyzer = new DFASerialCodeAnalyzer(numberOfStates, alphabetSize);
+
+		Set<String> closure = new LinkedHashSet<>();
+		for (String code : codes) {
+			analyzer.parse(code.trim());
+			SimpleDFA dfa = analyzer.getParsedAutomaton();
+			for (int[] permutation : permutations)
+				closure.add(analyzer.encode(new AutomatonKey(operator.homomorphicImage(dfa, permutation)).toAutomaton()));
+		}
+
+		List<String> result = new ArrayList<>(closure);
+		Collections.sort(result);
+		return result;
+	}
+
+	/**
+	 * Getters.
+	 */
+
+	public int getAlphabetSize() {
+		return alphabetSize;
+	}
+
+	public int getNumberOfPermutations() {
+		return permutations.length;
+	}
+
+}
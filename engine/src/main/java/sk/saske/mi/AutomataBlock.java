@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+/**
+ *
+ * A block of DFAs over a common alphabet stored in struct-of-arrays form: the
+ * transition matrices of all automata are concatenated into a single int array
+ * (automaton by automaton, state by state, symbol by symbol) and the finality
+ * arrays into a single boolean array. Operations iterating over many automata
+ * (e.g. CutAutomatonBatch) then walk contiguous memory instead of chasing the
+ * row arrays of every SimpleDFA.
+ *
+ */
+public class AutomataBlock {
+
+	// Sigma size
+	private int alphabetSize;
+	// number of automata
+	private int size;
+	// number of states of every automaton
+	private int[] numberOfStates;
+	// first state of every automaton in the concatenated arrays
+	private int[] stateOffsets;
+	// concatenated transition matrices, transitions[(offset + state) * k + symbol]
+	private int[] transitions;
+	// concatenated finality arrays, finality[offset + state]
+	private boolean[] finality;
+
+	/**
+	 * Constructor for the block.
+	 *
+	 * @param automata - DFAs over a common alphabet
+	 */
+	public AutomataBlock(SimpleDFA[] automata) {
+		this.size = automata.length;
+		this.alphabetSize = automata.length == 0 ? 1 : automata[0].getAlphabetSize();
+		this.numberOfStates = new int[size];
+		this.stateOffsets = new int[size + 1];
+
+		for (int i = 0; i < size; i++) {
+			if (automata[i].getAlphabetSize() != alphabetSize)
+				throw new RuntimeException("Unequal alphabet size in automata block.");
+			numberOfStates[i] = automata[i].getNumberOfStates();
+			stateOffsets[i + 1] = stateOffsets[i] + numberOfStates[i];
+		}
+
+		this.transitions = new int[stateOffsets[size] * alphabetSize];
+		this.finality = new boolean[stateOffsets[size]];
+		for (int i = 0; i < size; i++) {
+			for (int state = 0; state < numberOfStates[i]; state++) {
+				int row = stateOffsets[i] + state;
+				for (int symbol = 0; symbol < alphabetSize; symbol++)
+					transitions[row * alphabetSize + symbol] = automata[i].getTransitionMatrix()[state][symbol];
+				finality[row] = automata[i].getFinalityArray()[state];
+			}
+		}
+	}
+
+	/**
+	 * Returns the target state of the given automaton of the block.
+	 *
+	 * @param automaton - index of the automaton in the block
+	 * @param state
+	 * @param symbol
+	 * @return int
+	 */
+	public int applySingleInput(int automaton, int state, int symbol) {
+		return transitions[(stateOffsets[automaton] + state) * alphabetSize + symbol];
+	}
+
+	/**
+	 * Returns whether the given state of the given automaton of the block is
+	 * final.
+	 *
+	 * @param automaton - index of the automaton in the block
+	 * @param state
+	 * @return boolean
+	 */
+	public boolean isFinal(int automaton, int state) {
+		return finality[stateOffsets[automaton] + state];
+	}
+
+	/**
+	 * Getters. The array getters expose the internal storage, which must not be
+	 * modified.
+	 */
+
+	public int getAlphabetSize() {
+		return alphabetSize;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public int getNumberOfStates(int automaton) {
+		return numberOfStates[automaton];
+	}
+
+	public int getStateOffset(int automaton) {
+		return stateOffsets[automaton];
+	}
+
+	public int[] getTransitions() {
+		return transitions;
+	}
+
+	public boolean[] getFinality() {
+		return finality;
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ *
+ * Bounded least-recently-used cache of results of structural computations on
+ * automata, keyed by the canonical automaton encoding. The cache may be shared
+ * by several threads. Values are computed outside of the lock, so two threads
+ * missing the same key at once may both compute it; the computations are
+ * expected to be deterministic, which makes this harmless.
+ *
+ * @param <V> - type of the cached results
+ */
+public class AutomatonCache<V> {
+
+	// maximal number of cached entries
+	private int capacity;
+	// cached entries in access order
+	private LinkedHashMap<AutomatonKey, V> entries;
+
+	// statistics
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * Constructor for the cache.
+	 *
+	 * @param capacity - maximal number of cached entries
+	 */
+	public AutomatonCache(int capacity) {
+		if (capacity < 1)
+			throw new RuntimeException("Invalid cache capacity (must be positive).");
+		this.capacity = capacity;
+		this.entries = new LinkedHashMap<AutomatonKey, V>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<AutomatonKey, V> eldest) {
+				if (size() > AutomatonCache.this.capacity) {
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Returns the cached result for the given key, computing and caching it on a
+	 * miss.
+	 *
+	 * @param key
+	 * @param computation
+	 * @return V
+	 */
+	public V get(AutomatonKey key, Supplier<V> computation) {
+		synchronized (this) {
+			V value = entries.get(key);
+			if (value != null) {
+				hits++;
+				return value;
+			}
+			misses++;
+		}
+
+		V value = computation.get();
+		synchronized (this) {
+			entries.put(key, value);
+		}
+		return value;
+	}
+
+	/**
+	 * Removes every cached entry, the statistics are kept.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * Getters.
+	 */
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public synchronized int getSize() {
+		return entries.size();
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Returns the ratio of lookups answered from the cache.
+	 *
+	 * @return double
+	 */
+	public synchronized double getHitRatio() {
+		return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "AutomatonCache [capacity=" + capacity + ", size=" + entries.size() + ", hits=" + hits + ", misses="
+				+ misses + ", evictions=" + evictions + "]";
+	}
+
+}
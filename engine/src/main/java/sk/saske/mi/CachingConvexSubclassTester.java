@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+/**
+ *
+ * Subclass tester memoizing minimal state counts, minimal reversals and
+ * subclass masks in bounded caches keyed by the canonical automaton encoding,
+ * so that automata occurring in several lists (or reversals shared by the LID,
+ * SF, TSID and ASID tests of one automaton) are processed once.
+ *
+ * Only results independent of the state numbering are cached: isomorphic
+ * automata share a key, so a cached automaton may be numbered differently from
+ * a fresh computation. The minimal reversals are only used by the structural
+ * subclass tests, and minimize is not overridden, so the tester can be used as
+ * a SimpleDFAOperator (e.g. for witness files) without changing any numbering.
+ *
+ * The tester itself is not thread-safe (like its superclass), but the caches
+ * can be shared by the testers of several threads. A null cache disables the
+ * caching of its results. Cached reversals are copied, so callers may modify
+ * them.
+ *
+ */
+public class CachingConvexSubclassTester extends ConvexSubclassTester {
+
+	// default number of entries of each cache
+	public static final int DEFAULT_CAPACITY = 1 << 16;
+
+	private AutomatonCache<Integer> stateCountCache;
+	private AutomatonCache<SimpleDFA> reversalCache;
+	private AutomatonCache<Integer> classificationCache;
+
+	/**
+	 * Constructor for a tester with its own caches of default capacity.
+	 */
+	public CachingConvexSubclassTester() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor for a tester with its own caches.
+	 *
+	 * @param capacity - number of entries of each cache
+	 */
+	public CachingConvexSubclassTester(int capacity) {
+		this(new AutomatonCache<>(capacity), new AutomatonCache<>(capacity), new AutomatonCache<>(capacity));
+	}
+
+	/**
+	 * Constructor for a tester using the given (possibly shared or null) caches.
+	 *
+	 * @param stateCountCache
+	 * @param reversalCache
+	 * @param classificationCache
+	 */
+	public CachingConvexSubclassTester(AutomatonCache<Integer> stateCountCache,
+			AutomatonCache<SimpleDFA> reversalCache, AutomatonCache<Integer> classificationCache) {
+		this.stateCountCache = stateCountCache;
+		this.reversalCache = reversalCache;
+		this.classificationCache = classificationCache;
+	}
+
+	@Override
+	public int countMinimalStates(SimpleDFA automaton) {
+		if (stateCountCache == null)
+			return super.countMinimalStates(automaton);
+		return stateCountCache.get(new AutomatonKey(automaton), () -> super.countMinimalStates(automaton));
+	}
+
+	@Override
+	protected SimpleDFA minimalReversal(SimpleDFA dfa) {
+		if (reversalCache == null)
+			return super.minimalReversal(dfa);
+		return reversalCache.get(new AutomatonKey(dfa), () -> super.minimalReversal(dfa)).copy();
+	}
+
+	@Override
+	public int classify(SimpleDFA dfa) {
+		if (classificationCache == null)
+			return super.classify(dfa);
+		return classificationCache.get(new AutomatonKey(dfa), () -> super.classify(dfa));
+	}
+
+	/**
+	 * Getters.
+	 */
+
+	public AutomatonCache<Integer> getStateCountCache() {
+		return stateCountCache;
+	}
+
+	public AutomatonCache<SimpleDFA> getReversalCache() {
+		return reversalCache;
+	}
+
+	public AutomatonCache<Integer> getClassificationCache() {
+		return classificationCache;
+	}
+
+}
@@ -0,0 +1,465 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.io.DataOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ *
+ * Persistent index of the subclass masks (see ConvexSubclassTester.classify)
+ * of every minimal initially connected DFA with n states over an alphabet of
+ * size k, up to isomorphism. The index is built once per (n, k) by enumerating
+ * the canonical DFAs, and memory-mapped on later runs, so obtaining the list of
+ * a subclass (the X_n.txt files of structuredAutomataLists) or filtering a list
+ * by a subclass combination is a lookup.
+ *
+ * The lists of structuredAutomataLists contain a single automaton of every
+ * class of automata equal up to a permutation of the alphabet symbols - the one
+ * with the lexicographically smallest encoding. The index covers every minimal
+ * DFA and flags these representatives, so lists may be produced either way.
+ *
+ * File layout (big-endian): magic, format version, n, k and the number of
+ * entries as ints, followed by the sorted AutomatonKey long values of all
+ * entries and then by their subclass masks as shorts, where the highest bit
+ * flags the representatives. Keys sort in the lexicographic order of the
+ * automaton encodings.
+ *
+ */
+public class ClassificationIndex {
+
+	// file format identification
+	private static final int MAGIC = 0x43435358;
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 5 * Integer.BYTES;
+	// stored mask bit flagging the representatives of alphabet permutations
+	private static final int REPRESENTATIVE_FLAG = 1 << 15;
+	private static final int SUBCLASS_BITS = (1 << ConvexSubclassTester.SUBCLASSES.length) - 1;
+	// number of transition structures classified by a single build task
+	private static final int BUILD_CHUNK = 256;
+	// default capacity of the minimal reversal cache of a build
+	private static final int REVERSAL_CACHE_CAPACITY = 1024;
+
+	// number of DFA states
+	private int numberOfStates;
+	// Sigma size
+	private int alphabetSize;
+	// number of indexed automata
+	private int size;
+	// mapped sorted keys and their masks
+	private LongBuffer keys;
+	private ShortBuffer masks;
+
+	/**
+	 * Constructor opening (memory-mapping) an existing index file.
+	 *
+	 * @param file
+	 * @throws IOException
+	 */
+	public ClassificationIndex(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (channel.size() < HEADER_BYTES || buffer.getInt(0) != MAGIC)
+				throw new IOException("Not a classification index: " + file);
+			if (buffer.getInt(4) != VERSION)
+				throw new IOException("Unsupported classification index version " + buffer.getInt(4) + ": " + file);
+
+			numberOfStates = buffer.getInt(8);
+			alphabetSize = buffer.getInt(12);
+			size = buffer.getInt(16);
+			if (channel.size() != HEADER_BYTES + (long) size * (Long.BYTES + Short.BYTES))
+				throw new IOException("Truncated classification index: " + file);
+
+			buffer.position(HEADER_BYTES);
+			ByteBuffer keySection = buffer.slice();
+			keySection.limit(size * Long.BYTES);
+			keys = keySection.asLongBuffer();
+
+			buffer.position(HEADER_BYTES + size * Long.BYTES);
+			masks = buffer.slice().asShortBuffer();
+		}
+	}
+
+	/**
+	 * Opens the index file if it exists, otherwise builds it first.
+	 *
+	 * @param file
+	 * @param numberOfStates
+	 * @param alphabetSize
+	 * @param threads        - number of threads classifying the automata
+	 * @return ClassificationIndex
+	 * @throws IOException
+	 */
+	public static ClassificationIndex openOrBuild(Path file, int numberOfStates, int alphabetSize, int threads)
+			throws IOException {
+		if (!Files.exists(file))
+			build(file, numberOfStates, alphabetSize, threads);
+		ClassificationIndex index = new ClassificationIndex(file);
+		if (index.numberOfStates != numberOfStates || index.alphabetSize != alphabetSize)
+			throw new IOException("Classification index " + file + " was built for " + index.numberOfStates
+					+ " states and alphabet size " + index.alphabetSize + ".");
+		return index;
+	}
+
+	/**
+	 * Builds the index file of all minimal initially connected DFAs with the given
+	 * number of states and alphabet size. The file is written to a temporary
+	 * sibling first and moved into place when complete.
+	 *
+	 * @param file
+	 * @param numberOfStates
+	 * @param alphabetSize
+	 * @param threads        - number of threads classifying the automata
+	 * @throws IOException
+	 */
+	public static void build(Path file, int numberOfStates, int alphabetSize, int threads) throws IOException {
+		build(file, numberOfStates, alphabetSize, threads, new AutomatonCache<>(REVERSAL_CACHE_CAPACITY));
+	}
+
+	/**
+	 * Builds the index file like build(file, numberOfStates, alphabetSize,
+	 * threads). The automata are classified by CachingConvexSubclassTester with
+	 * the given cache of minimal reversals shared by all threads, so the LID, SF,
+	 * TSID and ASID tests of an automaton determinize its reversal once; the
+	 * statistics of the cache report the reuse.
+	 *
+	 * @param file
+	 * @param numberOfStates
+	 * @param alphabetSize
+	 * @param threads        - number of threads classifying the automata
+	 * @param reversalCache
+	 * @throws IOException
+	 */
+	public static void build(Path file, int numberOfStates, int alphabetSize, int threads,
+			AutomatonCache<SimpleDFA> reversalCache) throws IOException {
+		int bitsPerState = Math.max(1, 32 - Integer.numberOfLeadingZeros(numberOfStates - 1));
+		if (numberOfStates * alphabetSize * bitsPerState + numberOfStates > 63)
+			throw new RuntimeException("Automata with " + numberOfStates + " states over " + alphabetSize
+					+ " symbols are too large to be indexed.");
+
+		List<int[][]> structures = new ArrayList<>();
+		enumerateStructures(new int[numberOfStates][alphabetSize], 0, 1, structures);
+
+		List<ClassifiedChunk> classified = new ArrayList<>();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+		try {
+			List<Future<ClassifiedChunk>> chunks = new ArrayList<>();
+			for (int from = 0; from < structures.size(); from += BUILD_CHUNK) {
+				List<int[][]> chunk = structures.subList(from, Math.min(structures.size(), from + BUILD_CHUNK));
+				chunks.add(executor
+						.submit(() -> classifyStructures(chunk, numberOfStates, alphabetSize, reversalCache)));
+			}
+			for (Future<ClassifiedChunk> chunk : chunks)
+				classified.add(chunk.get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Classification index build interrupted.", e);
+		} catch (ExecutionException e) {
+			throw new IOException("Classification index build failed.", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+
+		int size = 0;
+		for (ClassifiedChunk chunk : classified)
+			size += chunk.keys.length;
+
+		Path parent = file.toAbsolutePath().getParent();
+		if (parent != null)
+			Files.createDirectories(parent);
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(numberOfStates);
+			out.writeInt(alphabetSize);
+			out.writeInt(size);
+
+			long previous = -1;
+			for (ClassifiedChunk chunk : classified) {
+				for (long key : chunk.keys) {
+					if (key <= previous)
+						throw new RuntimeException("Classification index keys out of order.");
+					previous = key;
+					out.writeLong(key);
+				}
+			}
+			for (ClassifiedChunk chunk : classified)
+				for (short mask : chunk.masks)
+					out.writeShort(mask);
+		}
+		Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Support method enumerating every transition structure in canonical
+	 * (breadth-first) numbering in the lexicographic order of the encodings. A
+	 * target may be any discovered state or the next undiscovered one, and the row
+	 * of a state may only be filled once the state was discovered.
+	 *
+	 * @param transitionMatrix - partially filled transition matrix
+	 * @param position         - index of the next transition (state * k + symbol)
+	 * @param discovered       - number of states discovered so far
+	 * @param structures       - output list of complete transition matrices
+	 */
+	private static void enumerateStructures(int[][] transitionMatrix, int position, int discovered,
+			List<int[][]> structures) {
+		int numberOfStates = transitionMatrix.length;
+		int alphabetSize = transitionMatrix[0].length;
+
+		if (position == numberOfStates * alphabetSize) {
+			if (discovered == numberOfStates) {
+				int[][] copy = new int[numberOfStates][];
+				for (int state = 0; state < numberOfStates; state++)
+					copy[state] = transitionMatrix[state].clone();
+				structures.add(copy);
+			}
+			return;
+		}
+
+		int state = position / alphabetSize;
+		if (state >= discovered)
+			return;
+
+		int maxTarget = Math.min(discovered, numberOfStates - 1);
+		for (int target = 0; target <= maxTarget; target++) {
+			transitionMatrix[state][position % alphabetSize] = target;
+			enumerateStructures(transitionMatrix, position + 1, target == discovered ? discovered + 1 : discovered,
+					structures);
+		}
+	}
+
+	/**
+	 * Support method classifying every minimal DFA with one of the given
+	 * transition structures, in the order of their encodings.
+	 *
+	 * @param structures
+	 * @param numberOfStates
+	 * @param alphabetSize
+	 * @param reversalCache
+	 * @return ClassifiedChunk
+	 */
+	private static ClassifiedChunk classifyStructures(List<int[][]> structures, int numberOfStates, int alphabetSize,
+			AutomatonCache<SimpleDFA> reversalCache) {
+		// every classified automaton is distinct, only the reversals are reused
+		ConvexSubclassTester tester = new CachingConvexSubclassTester(null, reversalCache, null);
+		int[][] alphabetPermutations = tester.getAlphabetPermutations(alphabetSize);
+		List<Long> keys = new ArrayList<>();
+		List<Short> masks = new ArrayList<>();
+
+		for (int[][] transitionMatrix : structures) {
+			for (int finality = 0; finality < 1 << numberOfStates; finality++) {
+				boolean[] finalityArray = new boolean[numberOfStates];
+				for (int state = 0; state < numberOfStates; state++)
+					finalityArray[state] = ((finality >>> (numberOfStates - 1 - state)) & 1) != 0;
+
+				SimpleDFA dfa = new SimpleDFA(numberOfStates, alphabetSize, transitionMatrix, finalityArray);
+				if (tester.countMinimalStates(dfa) != numberOfStates)
+					continue;
+
+				long key = new AutomatonKey(dfa).toLong();
+				boolean representative = true;
+				for (int i = 1; i < alphabetPermutations.length && representative; i++)
+					if (new AutomatonKey(tester.homomorphicImage(dfa, alphabetPermutations[i])).toLong() < key)
+						representative = false;
+
+				keys.add(key);
+				masks.add((short) (tester.classify(dfa) | (representative ? REPRESENTATIVE_FLAG : 0)));
+			}
+		}
+
+		ClassifiedChunk result = new ClassifiedChunk();
+		result.keys = new long[keys.size()];
+		result.masks = new short[masks.size()];
+		for (int i = 0; i < result.keys.length; i++) {
+			result.keys[i] = keys.get(i);
+			result.masks[i] = masks.get(i);
+		}
+		return result;
+	}
+
+	/**
+	 * Keys and masks of the minimal DFAs of one build task.
+	 */
+	private static class ClassifiedChunk {
+		private long[] keys;
+		private short[] masks;
+	}
+
+	/**
+	 * Returns the position of the key in the index, or -1 if it is not indexed.
+	 *
+	 * @param key
+	 * @return int
+	 */
+	private int find(long key) {
+		int low = 0;
+		int high = size - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			long value = keys.get(middle);
+			if (value < key)
+				low = middle + 1;
+			else if (value > key)
+				high = middle - 1;
+			else
+				return middle;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the subclass mask of the given DFA, or -1 if the DFA is not a
+	 * minimal DFA covered by this index.
+	 *
+	 * @param dfa
+	 * @return int
+	 */
+	public int getMask(SimpleDFA dfa) {
+		if (dfa.getNumberOfStates() != numberOfStates || dfa.getAlphabetSize() != alphabetSize)
+			return -1;
+		int position = find(new AutomatonKey(dfa).toLong());
+		return position == -1 ? -1 : masks.get(position) & SUBCLASS_BITS;
+	}
+
+	/**
+	 * Returns the subclass mask of the DFA with the given encoding, or -1 if the
+	 * DFA is not covered by this index.
+	 *
+	 * @param code
+	 * @return int
+	 */
+	public int getMask(String code) {
+		code = code.trim();
+		if (code.length() != numberOfStates * (alphabetSize + 1))
+			return -1;
+		DFASerialCodeAnalyzer analyzer = new DFASerialCodeAnalyzer(numberOfStates, alphabetSize);
+		analyzer.parse(code);
+		return getMask(analyzer.getParsedAutomaton());
+	}
+
+	/**
+	 * Returns the encodings of the representatives (up to alphabet permutation) of
+	 * all indexed automata belonging to every subclass in requiredMask and to no
+	 * subclass in forbiddenMask, in lexicographic order. With a single required
+	 * subclass X this is the list X_n.txt, with no required subclass ALLdfa_n.txt.
+	 *
+	 * @param requiredMask
+	 * @param forbiddenMask
+	 * @return list of automaton encodings
+	 */
+	public List<String> list(int requiredMask, int forbiddenMask) {
+		return list(requiredMask, forbiddenMask, true);
+	}
+
+	/**
+	 * Returns the encodings of all indexed automata belonging to every subclass in
+	 * requiredMask and to no subclass in forbiddenMask, in lexicographic order.
+	 *
+	 * @param requiredMask
+	 * @param forbiddenMask
+	 * @param representativesOnly - whether to skip automata that are alphabet
+	 *                            permutations of a lexicographically smaller one
+	 * @return list of automaton encodings
+	 */
+	public List<String> list(int requiredMask, int forbiddenMask, boolean representativesOnly) {
+		DFASerialCodeAnalyzer encoder = new DFASerialCodeAnalyzer(numberOfStates, alphabetSize);
+		List<String> result = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			int stored = masks.get(i) & 0xFFFF;
+			if (representativesOnly && (stored & REPRESENTATIVE_FLAG) == 0)
+				continue;
+			int mask = stored & SUBCLASS_BITS;
+			if ((mask & requiredMask) == requiredMask && (mask & forbiddenMask) == 0)
+				result.add(encoder.encode(new AutomatonKey(numberOfStates, alphabetSize, keys.get(i)).toAutomaton()));
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the encodings of the given list belonging to every subclass in
+	 * requiredMask and to no subclass in forbiddenMask. Encodings not covered by
+	 * the index are dropped.
+	 *
+	 * @param codes
+	 * @param requiredMask
+	 * @param forbiddenMask
+	 * @return list of automaton encodings
+	 */
+	public List<String> filter(List<String> codes, int requiredMask, int forbiddenMask) {
+		List<String> result = new ArrayList<>();
+		for (String code : codes) {
+			int mask = getMask(code);
+			if (mask != -1 && (mask & requiredMask) == requiredMask && (mask & forbiddenMask) == 0)
+				result.add(code.trim());
+		}
+		return result;
+	}
+
+	/**
+	 * Writes a list of encodings in the format of structuredAutomataLists (one
+	 * encoding per line).
+	 *
+	 * @param codes
+	 * @param file
+	 * @throws IOException
+	 */
+	public static void writeList(List<String> codes, Path file) throws IOException {
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			for (String code : codes) {
+				writer.write(code);
+				writer.write('\n');
+			}
+		}
+	}
+
+	/**
+	 * Getters.
+	 */
+
+	public int getNumberOfStates() {
+		return numberOfStates;
+	}
+
+	public int getAlphabetSize() {
+		return alphabetSize;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.util.Arrays;
+
+/**
+ *
+ * Batched cut construction for a fixed first automaton A and many second
+ * automata B stored in an AutomataBlock. Everything depending only on A - the
+ * next states of A, the "goes to a final state" mask of every state and the
+ * resulting B-independent transitions - is computed once in the constructor,
+ * so the per-B work is reduced to the B-dependent transitions of the
+ * reachable part of the cut automaton.
+ *
+ * States are numbered as in CutAutomaton. The cut automata produced by this
+ * class contain only the reachable states, kept in increasing order of their
+ * CutAutomaton numbers; minimize therefore yields exactly the same automaton
+ * as for new CutAutomaton(A, B).getAutomaton().
+ *
+ * An instance keeps scratch buffers and must not be shared between threads.
+ *
+ */
+public class CutAutomatonBatch {
+
+	// the first input automaton
+	private SimpleDFA automatonA;
+	private int numberOfStatesA;
+	private int alphabetSize;
+	// number of the CutAutomaton state (0, 0) - 0 if the initial state of A is
+	// final, numberOfStatesA otherwise
+	private int pairBase;
+	// next state of A, nextA[a * k + symbol]
+	private int[] nextA;
+	// bit symbol set iff state a goes to a final state of A on symbol
+	private int[] goesToFinalMask;
+	// cut state reached on entering a final state of A (B reset to its initial
+	// state), indexed like nextA, -1 for non-final targets
+	private int[] finalTarget;
+
+	// scratch buffers
+	private int[] queue = new int[0];
+	private int[] renumbering = new int[0];
+
+	/**
+	 * Constructor precomputing the A-dependent part of the cut construction.
+	 *
+	 * @param a - first input DFA
+	 */
+	public CutAutomatonBatch(SimpleDFA a) {
+		this.automatonA = a;
+		this.numberOfStatesA = a.getNumberOfStates();
+		this.alphabetSize = a.getAlphabetSize();
+		this.pairBase = a.getFinalityArray()[0] ? 0 : numberOfStatesA;
+
+		this.nextA = new int[numberOfStatesA * alphabetSize];
+		this.goesToFinalMask = new int[numberOfStatesA];
+		this.finalTarget = new int[numberOfStatesA * alphabetSize];
+		for (int state = 0; state < numberOfStatesA; state++) {
+			for (int symbol = 0; symbol < alphabetSize; symbol++) {
+				int target = a.getTransitionMatrix()[state][symbol];
+				nextA[state * alphabetSize + symbol] = target;
+				if (a.getFinalityArray()[target]) {
+					goesToFinalMask[state] |= 1 << symbol;
+					finalTarget[state * alphabetSize + symbol] = numberOfStatesA + target;
+				} else {
+					finalTarget[state * alphabetSize + symbol] = -1;
+				}
+			}
+		}
+		// without the prefix part, entering a final state leads to the pair (0, a')
+		if (pairBase == 0)
+			for (int i = 0; i < finalTarget.length; i++)
+				if (finalTarget[i] != -1)
+					finalTarget[i] -= numberOfStatesA;
+	}
+
+	/**
+	 * Support method returning the target of a cut state (numbered as in
+	 * CutAutomaton) on a symbol, for the B automaton of the block starting at
+	 * stateOffsetB.
+	 *
+	 * @param state
+	 * @param symbol
+	 * @param transitionsB - concatenated transitions of the block
+	 * @param stateOffsetB
+	 * @return int
+	 */
+	private int target(int state, int symbol, int[] transitionsB, int stateOffsetB) {
+		int stateA;
+		int stateB;
+		if (state < pairBase) {
+			stateA = state;
+			stateB = -1;
+		} else {
+			stateA = (state - pairBase) % numberOfStatesA;
+			stateB = (state - pairBase) / numberOfStatesA;
+		}
+
+		int index = stateA * alphabetSize + symbol;
+		if ((goesToFinalMask[stateA] & (1 << symbol)) != 0)
+			return finalTarget[index];
+		if (stateB == -1)
+			return nextA[index];
+		return pairBase + transitionsB[(stateOffsetB + stateB) * alphabetSize + symbol] * numberOfStatesA
+				+ nextA[index];
+	}
+
+	/**
+	 * Support method marking the reachable cut states of the given B in the
+	 * renumbering buffer (value 0 for reachable states) and returning their
+	 * number.
+	 *
+	 * @param block
+	 * @param indexB
+	 * @return int
+	 */
+	private int exploreReachable(AutomataBlock block, int indexB) {
+		int size = pairBase + numberOfStatesA * block.getNumberOfStates(indexB);
+		if (queue.length < size) {
+			queue = new int[size];
+			renumbering = new int[size];
+		}
+		return exploreReachable(block, indexB, queue, renumbering);
+	}
+
+	/**
+	 * Support method exploring the reachable cut states of the given B in the
+	 * given buffers. The queue holds the reachable states in breadth-first order
+	 * and the renumbering is 0 for reachable states and -1 for the others.
+	 *
+	 * @param block
+	 * @param indexB
+	 * @param queue
+	 * @param renumbering
+	 * @return number of reachable states
+	 */
+	private int exploreReachable(AutomataBlock block, int indexB, int[] queue, int[] renumbering) {
+		int size = pairBase + numberOfStatesA * block.getNumberOfStates(indexB);
+		Arrays.fill(renumbering, 0, size, -1);
+
+		int[] transitionsB = block.getTransitions();
+		int stateOffsetB = block.getStateOffset(indexB);
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = 0;
+		renumbering[0] = 0;
+		while (head < tail) {
+			int state = queue[head++];
+			for (int symbol = 0; symbol < alphabetSize; symbol++) {
+				int target = target(state, symbol, transitionsB, stateOffsetB);
+				if (renumbering[target] == -1) {
+					renumbering[target] = 0;
+					queue[tail++] = target;
+				}
+			}
+		}
+		return tail;
+	}
+
+	/**
+	 * Returns the number of reachable states of the cut automaton of A and the
+	 * given B of the block, without constructing it.
+	 *
+	 * @param block
+	 * @param indexB
+	 * @return int
+	 */
+	public int countReachableStates(AutomataBlock block, int indexB) {
+		return exploreReachable(block, indexB);
+	}
+
+	/**
+	 * Returns the number of states of the minimal cut automaton of A and the
+	 * given B of the block, i.e. the state count of minimize(cut(block, indexB)),
+	 * without constructing either automaton. The cut is explored, renumbered in
+	 * breadth-first order and minimized within the buffers of the arena, so no
+	 * memory is allocated unless the arena has to grow.
+	 *
+	 * @param block
+	 * @param indexB
+	 * @param arena  - scratch buffers of the calling thread
+	 * @return int
+	 */
+	public int countMinimalStates(AutomataBlock block, int indexB, CutScratchArena arena) {
+		if (block.getAlphabetSize() != alphabetSize || arena.getAlphabetSize() != alphabetSize)
+			throw new RuntimeException("Unequal alphabet size for cut.");
+
+		int size = pairBase + numberOfStatesA * block.getNumberOfStates(indexB);
+		arena.ensureCapacity(size);
+		int[] queue = arena.getQueue();
+		int[] renumbering = arena.getRenumbering();
+		int numberOfStates = exploreReachable(block, indexB, queue, renumbering);
+		for (int i = 0; i < numberOfStates; i++)
+			renumbering[queue[i]] = i;
+
+		int[] transitionsB = block.getTransitions();
+		int stateOffsetB = block.getStateOffset(indexB);
+		int[] transitions = arena.getTransitions();
+		boolean[] finality = arena.getFinality();
+		for (int i = 0; i < numberOfStates; i++) {
+			int state = queue[i];
+			for (int symbol = 0; symbol < alphabetSize; symbol++)
+				transitions[i * alphabetSize + symbol] = renumbering[target(state, symbol, transitionsB,
+						stateOffsetB)];
+			// final states pair a state of A with a final state of B
+			finality[i] = state >= pairBase && block.isFinal(indexB, (state - pairBase) / numberOfStatesA);
+		}
+
+		if (EngineMetrics.ENABLED)
+			EngineMetrics.recordCut(size, numberOfStates);
+		return arena.getMinimizer().countMinimalStates(numberOfStates, alphabetSize, transitions, finality);
+	}
+
+	/**
+	 * Returns the reachable part of the cut automaton of A and the given B of the
+	 * block.
+	 *
+	 * @param block
+	 * @param indexB
+	 * @return SimpleDFA
+	 */
+	public SimpleDFA cut(AutomataBlock block, int indexB) {
+		if (block.getAlphabetSize() != alphabetSize)
+			throw new RuntimeException("Unequal alphabet size for cut.");
+
+		exploreReachable(block, indexB);
+		int size = pairBase + numberOfStatesA * block.getNumberOfStates(indexB);
+
+		// number reachable states in increasing order of their CutAutomaton numbers
+		int numberOfStates = 0;
+		for (int state = 0; state < size; state++)
+			if (renumbering[state] != -1)
+				renumbering[state] = numberOfStates++;
+
+		int[] transitionsB = block.getTransitions();
+		int stateOffsetB = block.getStateOffset(indexB);
+		int[][] transitionMatrix = new int[numberOfStates][alphabetSize];
+		boolean[] finalityArray = new boolean[numberOfStates];
+		for (int state = 0; state < size; state++) {
+			int newState = renumbering[state];
+			if (newState == -1)
+				continue;
+			for (int symbol = 0; symbol < alphabetSize; symbol++)
+				transitionMatrix[newState][symbol] = renumbering[target(state, symbol, transitionsB, stateOffsetB)];
+			// final states pair a state of A with a final state of B
+			if (state >= pairBase)
+				finalityArray[newState] = block.isFinal(indexB, (state - pairBase) / numberOfStatesA);
+		}
+
+		if (EngineMetrics.ENABLED)
+			EngineMetrics.recordCut(size, numberOfStates);
+		return new SimpleDFA(numberOfStates, alphabetSize, transitionMatrix, finalityArray);
+	}
+
+	/**
+	 * Returns the reachable cut automata of A and every B of the block in the
+	 * range [from, to).
+	 *
+	 * @param block
+	 * @param from
+	 * @param to
+	 * @return an array of cut automata
+	 */
+	public SimpleDFA[] cutAll(AutomataBlock block, int from, int to) {
+		SimpleDFA[] result = new SimpleDFA[to - from];
+		for (int indexB = from; indexB < to; indexB++)
+			result[indexB - from] = cut(block, indexB);
+		return result;
+	}
+
+	/**
+	 * Returns the minimal cut automata of A and every B of the block in the range
+	 * [from, to).
+	 *
+	 * @param block
+	 * @param from
+	 * @param to
+	 * @param operator - operator used for minimization
+	 * @return an array of minimal cut automata
+	 */
+	public SimpleDFA[] minimizeAll(AutomataBlock block, int from, int to, SimpleDFAOperator operator) {
+		SimpleDFA[] result = new SimpleDFA[to - from];
+		for (int indexB = from; indexB < to; indexB++)
+			result[indexB - from] = operator.minimize(cut(block, indexB));
+		return result;
+	}
+
+	/**
+	 * Getters.
+	 */
+
+	public SimpleDFA getAutomatonA() {
+		return automatonA;
+	}
+
+}
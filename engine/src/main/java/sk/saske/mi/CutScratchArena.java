@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+/**
+ *
+ * Scratch buffers of one worker for the allocation-free per-pair pipeline of
+ * CutAutomatonBatch.countMinimalStates: the reachable cut states are explored,
+ * renumbered, stored as flat transitions and counted by a HopcroftMinimizer,
+ * all within these buffers. They are preallocated for the largest cut
+ * automaton of a sweep (n_A * n_B + n_A states) and only grow when a larger
+ * one occurs, so a steady-state sweep produces no garbage per pair.
+ *
+ * An arena must not be shared between threads; the sweeps keep one per worker
+ * in a ThreadLocal.
+ *
+ */
+public class CutScratchArena {
+
+	private int alphabetSize;
+	// breadth-first queue and renumbering of the cut states
+	private int[] queue;
+	private int[] renumbering;
+	// flat transitions and finality of the reachable cut states
+	private int[] transitions;
+	private boolean[] finality;
+	private HopcroftMinimizer minimizer;
+
+	/**
+	 * Constructor preallocating the buffers for cut automata with up to the
+	 * given number of states.
+	 *
+	 * @param maxStates
+	 * @param alphabetSize
+	 */
+	public CutScratchArena(int maxStates, int alphabetSize) {
+		this.alphabetSize = alphabetSize;
+		allocate(Math.max(1, maxStates));
+	}
+
+	/**
+	 * Grows the buffers for cut automata with the given number of states, if
+	 * necessary.
+	 *
+	 * @param states
+	 */
+	void ensureCapacity(int states) {
+		if (queue.length < states)
+			allocate(Math.max(states, 2 * queue.length));
+	}
+
+	/**
+	 * Support method allocating the buffers.
+	 *
+	 * @param states
+	 */
+	private void allocate(int states) {
+		this.queue = new int[states];
+		this.renumbering = new int[states];
+		this.transitions = new int[states * alphabetSize];
+		this.finality = new boolean[states];
+		this.minimizer = new HopcroftMinimizer(states, alphabetSize);
+	}
+
+	/**
+	 * Getters.
+	 */
+
+	public int getAlphabetSize() {
+		return alphabetSize;
+	}
+
+	public int getCapacity() {
+		return queue.length;
+	}
+
+	int[] getQueue() {
+		return queue;
+	}
+
+	int[] getRenumbering() {
+		return renumbering;
+	}
+
+	int[] getTransitions() {
+		return transitions;
+	}
+
+	boolean[] getFinality() {
+		return finality;
+	}
+
+	HopcroftMinimizer getMinimizer() {
+		return minimizer;
+	}
+
+}
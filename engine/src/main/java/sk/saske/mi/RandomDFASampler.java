@@ -0,0 +1,452 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ *
+ * Sampler of random minimal DFAs with a given number of states, optionally
+ * restricted to a subclass.
+ *
+ * Rejection (Method.REJECTION, always used for all minimal DFAs): complete DFAs
+ * with initial state 0 are drawn uniformly and rejected unless every state is
+ * reachable, the DFA is minimal and it belongs to the subclass. Every initially
+ * connected DFA (up to isomorphism) corresponds to the same number (n - 1)! of
+ * drawn tables, so the accepted automata are uniform among the minimal DFAs of
+ * the subclass up to isomorphism. (Unlike structuredAutomataLists, automata
+ * equal up to an alphabet permutation are distinct here.) Cheap necessary
+ * conditions on the minimal DFAs of the subclass (see
+ * satisfiesNecessaryConditions) reject most draws before the expensive tests,
+ * but the subclasses become exponentially rare among random DFAs as n grows, so
+ * rejection is feasible only for about n <= 6; a sample fails with an exception
+ * after maxAttempts draws.
+ *
+ * Markov chain (Method.CHAIN, the default for subclasses): the chain starts
+ * from a member of the subclass built directly (at least n - 1 a's for the
+ * ideals, fewer than n - 1 a's for the closed classes, the single word
+ * a^(n - 2) for the free classes) and in each step redirects a random
+ * transition to a random state or flips the finality of a random state,
+ * keeping the change iff the result passes the same test as a rejection draw.
+ * The proposal is symmetric, so the uniform distribution over the tables
+ * reachable from the start is stationary, i.e. the chain targets the same
+ * distribution as rejection. It is an approximation: consecutive samples are
+ * correlated (BURN_IN_SWEEPS and THINNING_SWEEPS sweeps of n * (k + 1) steps
+ * are run before the first and between consecutive samples) and the mixing
+ * time, as well as whether single changes connect all members of a subclass,
+ * is not established. FF and SwF tests enumerate all n! state permutations and
+ * are only usable for small n with either method.
+ *
+ * A sampler is not thread-safe, every thread should use its own.
+ *
+ */
+public class RandomDFASampler {
+
+	// default maximal number of draws for a single sample
+	public static final long DEFAULT_MAX_ATTEMPTS = 10_000_000L;
+	// the largest number of states the permutation based FF and SwF tests allow
+	public static final int MAX_PERMUTATION_TEST_STATES = 8;
+	// chain sweeps (of n * (k + 1) steps) before the first sample
+	public static final int BURN_IN_SWEEPS = 100;
+	// chain sweeps between consecutive samples
+	public static final int THINNING_SWEEPS = 10;
+
+	/**
+	 * Sampling methods, see the class description.
+	 */
+	public enum Method {
+		REJECTION, CHAIN
+	}
+
+	private int numberOfStates;
+	private int alphabetSize;
+	// subclass abbreviation, null for all minimal DFAs
+	private String subclass;
+	private long maxAttempts = DEFAULT_MAX_ATTEMPTS;
+	private Method method = Method.CHAIN;
+	private ConvexSubclassTester tester = new ConvexSubclassTester();
+
+	// current member of the chain, null before the burn-in
+	private int[][] chainMatrix;
+	private boolean[] chainFinality;
+
+	// statistics (draws or chain steps)
+	private long attempts;
+	private long accepted;
+
+	// auxiliary buffers for the reachability test
+	private int[] queue;
+	private boolean[] reached;
+
+	/**
+	 * Constructor for the sampler.
+	 *
+	 * @param numberOfStates
+	 * @param alphabetSize
+	 * @param subclass       - subclass abbreviation (see
+	 *                       ConvexSubclassTester.SUBCLASSES), null or "ALLdfa"
+	 *                       for all minimal DFAs
+	 */
+	public RandomDFASampler(int numberOfStates, int alphabetSize, String subclass) {
+		if (numberOfStates < 1 || alphabetSize < 1)
+			throw new RuntimeException("Invalid number of states or alphabet size.");
+		if ("ALLdfa".equals(subclass))
+			subclass = null;
+		if (subclass != null)
+			ConvexSubclassTester.subclassMask(subclass);
+		if (("FF".equals(subclass) || "SwF".equals(subclass)) && numberOfStates > MAX_PERMUTATION_TEST_STATES)
+			throw new RuntimeException("The " + subclass + " test is limited to " + MAX_PERMUTATION_TEST_STATES
+					+ " states (it enumerates all state permutations).");
+
+		this.numberOfStates = numberOfStates;
+		this.alphabetSize = alphabetSize;
+		this.subclass = subclass;
+		this.queue = new int[numberOfStates];
+		this.reached = new boolean[numberOfStates];
+	}
+
+	/**
+	 * Returns a random minimal DFA of the subclass with canonical (BFS) state
+	 * numbering, uniform if sampled by rejection.
+	 *
+	 * @param random
+	 * @return SimpleDFA
+	 */
+	public SimpleDFA sample(SplittableRandom random) {
+		if (subclass == null || method == Method.REJECTION)
+			return sampleByRejection(random);
+
+		if (chainMatrix == null) {
+			startChain(random);
+			runChain(random, BURN_IN_SWEEPS);
+		} else {
+			runChain(random, THINNING_SWEEPS);
+		}
+		return new AutomatonKey(new SimpleDFA(numberOfStates, alphabetSize, chainMatrix, chainFinality))
+				.toAutomaton();
+	}
+
+	/**
+	 * Support method drawing random tables until one is accepted.
+	 *
+	 * @param random
+	 * @return SimpleDFA
+	 */
+	private SimpleDFA sampleByRejection(SplittableRandom random) {
+		for (long attempt = 0; attempt < maxAttempts; attempt++) {
+			attempts++;
+			int[][] transitionMatrix = new int[numberOfStates][alphabetSize];
+			boolean[] finalityArray = new boolean[numberOfStates];
+			for (int state = 0; state < numberOfStates; state++) {
+				for (int symbol = 0; symbol < alphabetSize; symbol++)
+					transitionMatrix[state][symbol] = random.nextInt(numberOfStates);
+				finalityArray[state] = random.nextBoolean();
+			}
+			if (!acceptsTable(transitionMatrix, finalityArray))
+				continue;
+
+			accepted++;
+			return new AutomatonKey(new SimpleDFA(numberOfStates, alphabetSize, transitionMatrix, finalityArray))
+					.toAutomaton();
+		}
+		throw new RuntimeException("No " + (subclass == null ? "minimal DFA" : subclass + " DFA") + " with "
+				+ numberOfStates + " states found in " + maxAttempts
+				+ " random draws, the subclass is too rare for rejection sampling.");
+	}
+
+	/**
+	 * Support method setting the chain to a member of the subclass: the minimal
+	 * DFA of the words with at least n - 1 a's (ideals), with fewer than n - 1
+	 * a's (closed classes) or of the single word a^(n - 2) (free classes), or a
+	 * rejection sample if that is not a member (e.g. for a single state).
+	 *
+	 * @param random
+	 */
+	private void startChain(SplittableRandom random) {
+		int last = numberOfStates - 1;
+		chainMatrix = new int[numberOfStates][alphabetSize];
+		chainFinality = new boolean[numberOfStates];
+		for (int state = 0; state < numberOfStates; state++) {
+			switch (subclass) {
+			case "PF":
+			case "SF":
+			case "FF":
+			case "SwF":
+				// state i has read a^i, the last state is the dead state
+				Arrays.fill(chainMatrix[state], last);
+				if (state < last - 1)
+					chainMatrix[state][0] = state + 1;
+				chainFinality[state] = state == last - 1;
+				break;
+			case "PC":
+			case "SC":
+			case "FC":
+			case "SwC":
+				// state i has read i a's (the last state at least n - 1)
+				Arrays.fill(chainMatrix[state], state);
+				chainMatrix[state][0] = Math.min(state + 1, last);
+				chainFinality[state] = state != last;
+				break;
+			default:
+				Arrays.fill(chainMatrix[state], state);
+				chainMatrix[state][0] = Math.min(state + 1, last);
+				chainFinality[state] = state == last;
+			}
+		}
+		if (acceptsTable(chainMatrix, chainFinality))
+			return;
+
+		SimpleDFA dfa = sampleByRejection(random);
+		chainMatrix = dfa.getTransitionMatrix();
+		chainFinality = dfa.getFinalityArray();
+	}
+
+	/**
+	 * Support method running the given number of sweeps of the chain.
+	 *
+	 * @param random
+	 * @param sweeps
+	 */
+	private void runChain(SplittableRandom random, int sweeps) {
+		int transitions = numberOfStates * alphabetSize;
+		long steps = (long) sweeps * (transitions + numberOfStates);
+		for (long step = 0; step < steps; step++) {
+			attempts++;
+			int coordinate = random.nextInt(transitions + numberOfStates);
+			if (coordinate < transitions) {
+				int[] row = chainMatrix[coordinate / alphabetSize];
+				int symbol = coordinate % alphabetSize;
+				int previous = row[symbol];
+				row[symbol] = random.nextInt(numberOfStates);
+				if (row[symbol] == previous || acceptsTable(chainMatrix, chainFinality))
+					accepted++;
+				else
+					row[symbol] = previous;
+			} else {
+				int state = coordinate - transitions;
+				chainFinality[state] = !chainFinality[state];
+				if (acceptsTable(chainMatrix, chainFinality))
+					accepted++;
+				else
+					chainFinality[state] = !chainFinality[state];
+			}
+		}
+	}
+
+	/**
+	 * Returns whether the given DFA with the number of states of the sampler is
+	 * initially connected, minimal and belongs to the subclass, i.e. whether the
+	 * sampler could return it (up to state numbering).
+	 *
+	 * @param dfa
+	 * @return boolean
+	 */
+	public boolean accepts(SimpleDFA dfa) {
+		if (dfa.getNumberOfStates() != numberOfStates || dfa.getAlphabetSize() != alphabetSize)
+			return false;
+		return acceptsTable(dfa.getTransitionMatrix(), dfa.getFinalityArray());
+	}
+
+	/**
+	 * Support method testing whether the DFA given by its table is initially
+	 * connected, minimal and belongs to the subclass.
+	 *
+	 * @param transitionMatrix
+	 * @param finalityArray
+	 * @return boolean
+	 */
+	private boolean acceptsTable(int[][] transitionMatrix, boolean[] finalityArray) {
+		if (!satisfiesNecessaryConditions(transitionMatrix, finalityArray))
+			return false;
+		if (!isInitiallyConnected(transitionMatrix))
+			return false;
+		SimpleDFA dfa = new SimpleDFA(numberOfStates, alphabetSize, transitionMatrix, finalityArray);
+		if (tester.countMinimalStates(dfa) != numberOfStates)
+			return false;
+		return subclass == null || tester.testSubclass(subclass, dfa);
+	}
+
+	/**
+	 * Support method testing simple necessary conditions of the minimal DFAs
+	 * (with at least two states) of the subclass:
+	 *
+	 * right ideals (RID, TSID, ASID) have a single final state, which is a sink,
+	 *
+	 * prefix-free languages (PF, FF, SwF) have a single final state, which goes
+	 * to a non-final sink on every symbol,
+	 *
+	 * suffix-free languages (SF, FF, SwF) have no transition to the initial
+	 * state,
+	 *
+	 * prefix-closed languages (PC, FC, SwC) have at most one non-final state,
+	 * which is a sink.
+	 *
+	 * @param transitionMatrix
+	 * @param finalityArray
+	 * @return boolean
+	 */
+	private boolean satisfiesNecessaryConditions(int[][] transitionMatrix, boolean[] finalityArray) {
+		if (subclass == null || numberOfStates < 2)
+			return true;
+
+		int finalStates = 0;
+		int lastFinal = -1;
+		int lastNonFinal = -1;
+		for (int state = 0; state < numberOfStates; state++) {
+			if (finalityArray[state]) {
+				finalStates++;
+				lastFinal = state;
+			} else {
+				lastNonFinal = state;
+			}
+		}
+
+		switch (subclass) {
+		case "RID":
+		case "TSID":
+		case "ASID":
+			return finalStates == 1 && isSink(transitionMatrix, lastFinal);
+		case "PF":
+		case "FF":
+		case "SwF":
+			if (finalStates != 1)
+				return false;
+			int dead = transitionMatrix[lastFinal][0];
+			for (int symbol = 1; symbol < alphabetSize; symbol++)
+				if (transitionMatrix[lastFinal][symbol] != dead)
+					return false;
+			if (finalityArray[dead] || !isSink(transitionMatrix, dead))
+				return false;
+			return "PF".equals(subclass) || !hasTransitionToInitialState(transitionMatrix);
+		case "SF":
+			return !hasTransitionToInitialState(transitionMatrix);
+		case "PC":
+		case "FC":
+		case "SwC":
+			return finalStates == numberOfStates
+					|| (finalStates == numberOfStates - 1 && isSink(transitionMatrix, lastNonFinal));
+		default:
+			return true;
+		}
+	}
+
+	/**
+	 * Support method returning whether every transition of the state leads back
+	 * to it.
+	 *
+	 * @param transitionMatrix
+	 * @param state
+	 * @return boolean
+	 */
+	private boolean isSink(int[][] transitionMatrix, int state) {
+		for (int symbol = 0; symbol < alphabetSize; symbol++)
+			if (transitionMatrix[state][symbol] != state)
+				return false;
+		return true;
+	}
+
+	/**
+	 * Support method returning whether any transition leads to the initial state.
+	 *
+	 * @param transitionMatrix
+	 * @return boolean
+	 */
+	private boolean hasTransitionToInitialState(int[][] transitionMatrix) {
+		for (int state = 0; state < numberOfStates; state++)
+			for (int symbol = 0; symbol < alphabetSize; symbol++)
+				if (transitionMatrix[state][symbol] == 0)
+					return true;
+		return false;
+	}
+
+	/**
+	 * Support method returning whether every state is reachable from the initial
+	 * state.
+	 *
+	 * @param transitionMatrix
+	 * @return boolean
+	 */
+	private boolean isInitiallyConnected(int[][] transitionMatrix) {
+		Arrays.fill(reached, false);
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = 0;
+		reached[0] = true;
+		while (head < tail) {
+			int state = queue[head++];
+			for (int symbol = 0; symbol < alphabetSize; symbol++) {
+				int target = transitionMatrix[state][symbol];
+				if (!reached[target]) {
+					reached[target] = true;
+					queue[tail++] = target;
+				}
+			}
+		}
+		return tail == numberOfStates;
+	}
+
+	/**
+	 * Getters and setters.
+	 */
+
+	public int getNumberOfStates() {
+		return numberOfStates;
+	}
+
+	public int getAlphabetSize() {
+		return alphabetSize;
+	}
+
+	public String getSubclass() {
+		return subclass;
+	}
+
+	public long getAttempts() {
+		return attempts;
+	}
+
+	public long getAccepted() {
+		return accepted;
+	}
+
+	/**
+	 * Returns the ratio of accepted draws (or chain steps).
+	 *
+	 * @return double
+	 */
+	public double getAcceptanceRate() {
+		return attempts == 0 ? 0 : (double) accepted / attempts;
+	}
+
+	public Method getMethod() {
+		return method;
+	}
+
+	public void setMethod(Method method) {
+		this.method = method;
+	}
+
+	public long getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	public void setMaxAttempts(long maxAttempts) {
+		this.maxAttempts = maxAttempts;
+	}
+
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sk.saske.mi;
+
+import java.util.Arrays;
+
+/**
+ *
+ * Simulation of all automata of an AutomataBlock on many words at once. The
+ * current states of all automata form a state vector, which one step advances
+ * on a common symbol in a single loop over flat arrays, and the words are
+ * processed in lexicographic order, so the steps on a common prefix of two
+ * consecutive words are done only once (for all words up to a given length
+ * every automaton makes one step per word instead of one step per symbol).
+ *
+ * The result is a membership bit matrix: row i is a bitset over the words (64
+ * words per long), where bit w is set iff the i-th automaton accepts the w-th
+ * word.
+ *
+ * An instance keeps scratch buffers and must not be shared between threads.
+ *
+ */
+public class WordBatchSimulator {
+
+	// number of automata
+	private int size;
+	// Sigma size
+	private int alphabetSize;
+	// states are stored as scaled rows (offset + state) * k of the block, so a
+	// step reads the next scaled row at next[row + symbol]
+	private int[] next;
+	// finality of the scaled rows, finality[row]
+	private boolean[] finality;
+	// scaled rows of the initial states
+	private int[] initialRows;
+
+	// scratch buffer of the state vectors after each prefix length,
+	// states[depth * size + automaton]
+	private int[] states = new int[0];
+
+	/**
+	 * Constructor for the simulator of the given automata.
+	 *
+	 * @param block - DFAs over a common alphabet
+	 */
+	public WordBatchSimulator(AutomataBlock block) {
+		this.size = block.getSize();
+		this.alphabetSize = block.getAlphabetSize();
+		int rows = block.getFinality().length;
+
+		this.next = new int[rows * alphabetSize];
+		this.finality = new boolean[rows * alphabetSize];
+		for (int i = 0; i < size; i++) {
+			int offset = block.getStateOffset(i);
+			for (int state = 0; state < block.getNumberOfStates(i); state++) {
+				int row = (offset + state) * alphabetSize;
+				for (int symbol = 0; symbol < alphabetSize; symbol++)
+					next[row + symbol] = (offset + block.applySingleInput(i, state, symbol)) * alphabetSize;
+				finality[row] = block.isFinal(i, state);
+			}
+		}
+
+		this.initialRows = new int[size];
+		for (int i = 0; i < size; i++)
+			initialRows[i] = block.getStateOffset(i) * alphabetSize;
+	}
+
+	/**
+	 * Returns the membership bit matrix of the given words, bit w of row i is set
+	 * iff the i-th automaton accepts words[w].
+	 *
+	 * @param words - words as arrays of symbols
+	 * @return long[][]
+	 */
+	public long[][] simulate(int[][] words) {
+		Integer[] order = new Integer[words.length];
+		int maxLength = 0;
+		for (int w = 0; w < words.length; w++) {
+			order[w] = w;
+			for (int symbol : words[w])
+				if (symbol < 0 || symbol >= alphabetSize)
+					throw new RuntimeException("Invalid symbol " + symbol + " in word " + w + ".");
+			maxLength = Math.max(maxLength, words[w].length);
+		}
+		Arrays.sort(order, (w1, w2) -> Arrays.compare(words[w1], words[w2]));
+
+		long[][] membership = new long[size][(words.length + 63) >>> 6];
+		ensureCapacity(maxLength);
+		int[] previous = new int[0];
+		for (int w : order) {
+			int[] word = words[w];
+			// the state vectors of the common prefix with the previous word are kept
+			int depth = Arrays.mismatch(previous, word);
+			if (depth == -1)
+				depth = word.length;
+			for (; depth < word.length; depth++)
+				step(depth, word[depth]);
+			record(word.length, w, membership);
+			previous = word;
+		}
+		return membership;
+	}
+
+	/**
+	 * Returns the membership bit matrix of all words up to the given length in
+	 * shortlex order (see wordIndex), bit w of row i is set iff the i-th
+	 * automaton accepts the w-th word.
+	 *
+	 * @param maxLength
+	 * @return long[][]
+	 */
+	public long[][] simulateAllWords(int maxLength) {
+		// the count is checked before every multiplication, so it cannot overflow
+		long words = 0;
+		for (int length = 0; length <= maxLength; length++) {
+			if (words > (Integer.MAX_VALUE - 64) / alphabetSize)
+				throw new RuntimeException("Too many words up to length " + maxLength + ".");
+			words = words * alphabetSize + 1;
+		}
+
+		long[][] membership = new long[size][(int) ((words + 63) >>> 6)];
+		ensureCapacity(maxLength);
+		enumerate(0, 0, 0, maxLength, membership);
+		return membership;
+	}
+
+	/**
+	 * Returns the index of the given word in the shortlex order of all words
+	 * over the alphabet (by length, words of equal length lexicographically), as
+	 * used by simulateAllWords.
+	 *
+	 * @param word
+	 * @return int
+	 */
+	public int wordIndex(int[] word) {
+		long index = 0;
+		long shorterWords = 0;
+		for (int symbol : word) {
+			shorterWords = shorterWords * alphabetSize + 1;
+			index = index * alphabetSize + symbol;
+		}
+		return (int) (shorterWords + index);
+	}
+
+	/**
+	 * Returns whether the given bit of the given membership bit matrix is set.
+	 *
+	 * @param membership
+	 * @param automaton
+	 * @param word
+	 * @return boolean
+	 */
+	public static boolean accepts(long[][] membership, int automaton, int word) {
+		return (membership[automaton][word >>> 6] & (1L << word)) != 0;
+	}
+
+	/**
+	 * Support method recording the current words of the given length and all
+	 * their extensions up to the maximal length, depth-first in lexicographic
+	 * order.
+	 *
+	 * @param depth       - length of the current word
+	 * @param shorter     - number of the words shorter than the current word
+	 * @param rank        - lexicographic rank of the current word among the
+	 *                    words of its length
+	 * @param maxLength
+	 * @param membership
+	 */
+	private void enumerate(int depth, long shorter, long rank, int maxLength, long[][] membership) {
+		record(depth, (int) (shorter + rank), membership);
+		if (depth == maxLength)
+			return;
+		long longer = shorter * alphabetSize + 1;
+		for (int symbol = 0; symbol < alphabetSize; symbol++) {
+			step(depth, symbol);
+			enumerate(depth + 1, longer, rank * alphabetSize + symbol, maxLength, membership);
+		}
+	}
+
+	/**
+	 * Support method advancing the state vector after the given prefix length on
+	 * the given symbol into the state vector of the next prefix length.
+	 *
+	 * @param depth
+	 * @param symbol
+	 */
+	private void step(int depth, int symbol) {
+		int from = depth * size;
+		int to = from + size;
+		for (int i = 0; i < size; i++)
+			states[to + i] = next[states[from + i] + symbol];
+	}
+
+	/**
+	 * Support method setting the bit of the given word in the rows of the
+	 * automata whose state vector after the given prefix length is final.
+	 *
+	 * @param depth
+	 * @param word
+	 * @param membership
+	 */
+	private void record(int depth, int word, long[][] membership) {
+		int from = depth * size;
+		int slot = word >>> 6;
+		long bit = 1L << word;
+		for (int i = 0; i < size; i++)
+			if (finality[states[from + i]])
+				membership[i][slot] |= bit;
+	}
+
+	/**
+	 * Support method growing the state vectors for words up to the given length
+	 * and setting the state vector of the empty word.
+	 *
+	 * @param maxLength
+	 */
+	private void ensureCapacity(int maxLength) {
+		if (states.length < (maxLength + 1) * size)
+			states = new int[(maxLength + 1) * size];
+		System.arraycopy(initialRows, 0, states, 0, size);
+	}
+
+	/**
+	 * Getters.
+	 */
+
+	public int getSize() {
+		return size;
+	}
+
+	public int getAlphabetSize() {
+		return alphabetSize;
+	}
+
+}
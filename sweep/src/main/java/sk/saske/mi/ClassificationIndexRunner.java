@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sk.saske.mi;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ *
+ * Command-line runner building the classification index (see
+ * ClassificationIndex) of all minimal DFAs with the given number of states and
+ * alphabet size. Prints the number of indexed automata and of the
+ * representatives of every subclass together with the hit rate of the minimal
+ * reversal cache, and optionally writes the list of a subclass.
+ *
+ * Usage: see USAGE.
+ *
+ */
+public class ClassificationIndexRunner {
+
+	public static final String USAGE = "Usage: ClassificationIndexRunner [options]\n"
+			+ "  --states n      number of states (default 4)\n"
+			+ "  --alphabet k    alphabet size (default 2)\n"
+			+ "  --threads t     number of worker threads (default number of processors)\n"
+			+ "  --output file   index file (default classificationIndex<n>_<k>.bin)\n"
+			+ "  --list X        subclass whose list (representatives only) is written\n"
+			+ "  --list-output f file of the list (default X<n>.txt)";
+
+	private int numberOfStates = 4;
+	private int alphabetSize = 2;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private Path output;
+	private String listedSubclass;
+	private Path listOutput;
+
+	public static void main(String[] args) {
+		if (Arrays.asList(args).contains("--help")) {
+			System.out.println(USAGE);
+			return;
+		}
+
+		ClassificationIndexRunner runner = new ClassificationIndexRunner();
+		try {
+			runner.parseArguments(args);
+		} catch (RuntimeException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+
+		try {
+			runner.run();
+		} catch (IOException | RuntimeException e) {
+			System.err.println("Classification index build failed: " + e);
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Parses the command-line options (see USAGE) into this runner.
+	 *
+	 * @param args
+	 * @return this runner
+	 */
+	public ClassificationIndexRunner parseArguments(String[] args) {
+		for (int i = 0; i < args.length; i++) {
+			String option = args[i];
+			if (i + 1 >= args.length)
+				throw new RuntimeException("Missing value of option " + option + ".");
+			String value = args[++i];
+
+			try {
+				switch (option) {
+				case "--states":
+					numberOfStates = Integer.parseInt(value);
+					break;
+				case "--alphabet":
+					alphabetSize = Integer.parseInt(value);
+					break;
+				case "--threads":
+					threads = Integer.parseInt(value);
+					break;
+				case "--output":
+					output = Paths.get(value);
+					break;
+				case "--list":
+					ConvexSubclassTester.subclassMask(value);
+					listedSubclass = value;
+					break;
+				case "--list-output":
+					listOutput = Paths.get(value);
+					break;
+				default:
+					throw new RuntimeException("Unknown option " + option + ".");
+				}
+			} catch (NumberFormatException e) {
+				throw new RuntimeException("Invalid value " + value + " of " + option + ".");
+			}
+		}
+		if (numberOfStates < 1 || alphabetSize < 1)
+			throw new RuntimeException("Invalid number of states or alphabet size.");
+		return this;
+	}
+
+	/**
+	 * Builds the index and reports its contents.
+	 *
+	 * @throws IOException
+	 */
+	public void run() throws IOException {
+		Path file = output != null ? output
+				: Paths.get("classificationIndex" + numberOfStates + "_" + alphabetSize + ".bin");
+		AutomatonCache<SimpleDFA> reversalCache = new AutomatonCache<>(1024);
+		long start = System.nanoTime();
+		ClassificationIndex.build(file, numberOfStates, alphabetSize, threads, reversalCache);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		ClassificationIndex index = new ClassificationIndex(file);
+		System.out.println(String.format(Locale.ROOT, "indexed %d automata in %.1f s (%s)", index.getSize(), seconds,
+				file));
+		System.out.println("representatives of the alphabet permutations: " + index.list(0, 0).size());
+		for (String subclass : ConvexSubclassTester.SUBCLASSES)
+			System.out.println(subclass + "\t" + index.list(ConvexSubclassTester.subclassMask(subclass), 0).size());
+		System.out.println(String.format(Locale.ROOT, "reversal cache: %d hits, %d misses, hit rate %.3f",
+				reversalCache.getHits(), reversalCache.getMisses(), reversalCache.getHitRatio()));
+
+		if (listedSubclass != null) {
+			Path list = listOutput != null ? listOutput : Paths.get(listedSubclass + numberOfStates + ".txt");
+			ClassificationIndex.writeList(index.list(ConvexSubclassTester.subclassMask(listedSubclass), 0), list);
+			System.out.println("list of " + listedSubclass + " written to " + list);
+		}
+	}
+
+}
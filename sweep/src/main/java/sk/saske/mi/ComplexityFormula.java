@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+/**
+ *
+ * State complexity formula in the variables m and n as written in
+ * cutConvexTables.html, e.g. "mn-2n-m+4". Supports integers, the variables,
+ * +, -, *, ^ and parentheses; juxtaposition means multiplication ("2mn" is
+ * 2*m*n).
+ *
+ */
+public class ComplexityFormula {
+
+	private final String expression;
+
+	// parser state
+	private int position;
+	private long m;
+	private long n;
+
+	/**
+	 * Constructor for the formula, checks its syntax.
+	 *
+	 * @param expression
+	 */
+	public ComplexityFormula(String expression) {
+		this.expression = expression.replace(" ", "");
+		evaluate(1, 1);
+	}
+
+	/**
+	 * Evaluates the formula.
+	 *
+	 * @param m
+	 * @param n
+	 * @return long
+	 */
+	public synchronized long evaluate(int m, int n) {
+		this.m = m;
+		this.n = n;
+		this.position = 0;
+		long value = parseSum();
+		if (position != expression.length())
+			throw error();
+		return value;
+	}
+
+	/**
+	 * Support method parsing a sum or difference of terms.
+	 *
+	 * @return long
+	 */
+	private long parseSum() {
+		long value = parseProduct();
+		while (position < expression.length()) {
+			char c = expression.charAt(position);
+			if (c == '+') {
+				position++;
+				value += parseProduct();
+			} else if (c == '-') {
+				position++;
+				value -= parseProduct();
+			} else {
+				break;
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Support method parsing a product of factors, written with * or by
+	 * juxtaposition.
+	 *
+	 * @return long
+	 */
+	private long parseProduct() {
+		long value = parsePower();
+		while (position < expression.length()) {
+			char c = expression.charAt(position);
+			if (c == '*') {
+				position++;
+				value *= parsePower();
+			} else if (c == '(' || c == 'm' || c == 'n' || Character.isDigit(c)) {
+				value *= parsePower();
+			} else {
+				break;
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Support method parsing a factor with an optional exponent.
+	 *
+	 * @return long
+	 */
+	private long parsePower() {
+		long base = parseFactor();
+		if (position < expression.length() && expression.charAt(position) == '^') {
+			position++;
+			long exponent = parsePower();
+			long value = 1;
+			for (long i = 0; i < exponent; i++)
+				value *= base;
+			return value;
+		}
+		return base;
+	}
+
+	/**
+	 * Support method parsing a number, a variable, a parenthesized formula or a
+	 * negated factor.
+	 *
+	 * @return long
+	 */
+	private long parseFactor() {
+		if (position >= expression.length())
+			throw error();
+		char c = expression.charAt(position);
+		if (c == '-') {
+			position++;
+			return -parsePower();
+		}
+		if (c == '(') {
+			position++;
+			long value = parseSum();
+			if (position >= expression.length() || expression.charAt(position) != ')')
+				throw error();
+			position++;
+			return value;
+		}
+		if (c == 'm' || c == 'n') {
+			position++;
+			return c == 'm' ? m : n;
+		}
+		int start = position;
+		while (position < expression.length() && Character.isDigit(expression.charAt(position)))
+			position++;
+		if (start == position)
+			throw error();
+		return Long.parseLong(expression.substring(start, position));
+	}
+
+	private RuntimeException error() {
+		return new RuntimeException("Invalid complexity formula " + expression + " at position " + position + ".");
+	}
+
+	@Override
+	public String toString() {
+		return expression;
+	}
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ *
+ * SHA-256 content hashes of files, written as lowercase hexadecimal strings.
+ * Used to detect changed inputs and outputs of the sweeps and reports.
+ *
+ */
+public final class ContentHash {
+
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	private ContentHash() {
+	}
+
+	/**
+	 * Returns the hash of the given content.
+	 *
+	 * @param content
+	 * @return String
+	 */
+	public static String of(byte[] content) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException("SHA-256 is not available.", e);
+		}
+		byte[] hash = digest.digest(content);
+		char[] hex = new char[2 * hash.length];
+		for (int i = 0; i < hash.length; i++) {
+			hex[2 * i] = HEX_DIGITS[(hash[i] >> 4) & 0xF];
+			hex[2 * i + 1] = HEX_DIGITS[hash[i] & 0xF];
+		}
+		return new String(hex);
+	}
+
+	/**
+	 * Returns the hash of the content of the given file.
+	 *
+	 * @param file
+	 * @return String
+	 * @throws IOException
+	 */
+	public static String of(Path file) throws IOException {
+		return of(Files.readAllBytes(file));
+	}
+
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *
+ * Histogram of minimal cut automaton sizes accumulated by parallel sweeps.
+ * Every thread records into its own stripe (a plain long array), so recording
+ * involves no synchronization between workers; the stripes are summed only
+ * when the histogram is merged after the workers have finished.
+ *
+ * Index i of the histogram holds the number of pairs whose minimal cut
+ * automaton has i + 1 states, which is the layout of the .csv files in
+ * cutOperationComputations.
+ *
+ */
+public class CutHistogram {
+
+	// number of columns of the histogram files in cutOperationComputations
+	public static final int DEFAULT_CSV_COLUMNS = 25;
+
+	// number of histogram buckets (the largest possible state count)
+	private int size;
+	// every stripe ever handed out to a thread
+	private List<long[]> stripes = new ArrayList<>();
+	// stripe of the current thread
+	private ThreadLocal<long[]> localStripe = ThreadLocal.withInitial(this::registerStripe);
+
+	/**
+	 * Constructor for the histogram.
+	 *
+	 * @param maxStateCount - largest state count that can be recorded
+	 */
+	public CutHistogram(int maxStateCount) {
+		if (maxStateCount < 1)
+			throw new RuntimeException("Invalid histogram size (must be positive).");
+		this.size = maxStateCount;
+	}
+
+	/**
+	 * Constructor for the histogram of cut automata of an n-state and an m-state
+	 * DFA, sized by the theoretical maximum n*m + n.
+	 *
+	 * @param numOfStatesA
+	 * @param numOfStatesB
+	 */
+	public CutHistogram(int numOfStatesA, int numOfStatesB) {
+		this(numOfStatesA * numOfStatesB + numOfStatesA);
+	}
+
+	/**
+	 * Support method creating the stripe of a thread on its first recording.
+	 *
+	 * @return long[]
+	 */
+	private long[] registerStripe() {
+		long[] stripe = new long[size];
+		synchronized (stripes) {
+			stripes.add(stripe);
+		}
+		return stripe;
+	}
+
+	/**
+	 * Records one pair with the given minimal cut automaton state count.
+	 *
+	 * @param stateCount
+	 */
+	public void record(int stateCount) {
+		if (stateCount < 1 || stateCount > size)
+			throw new RuntimeException("State count " + stateCount + " exceeding histogram size " + size + ".");
+		localStripe.get()[stateCount - 1]++;
+	}
+
+	/**
+	 * Records a number of pairs with the given minimal cut automaton state count.
+	 *
+	 * @param stateCount
+	 * @param pairs
+	 */
+	public void record(int stateCount, long pairs) {
+		if (stateCount < 1 || stateCount > size)
+			throw new RuntimeException("State count " + stateCount + " exceeding histogram size " + size + ".");
+		localStripe.get()[stateCount - 1] += pairs;
+	}
+
+	/**
+	 * Returns the sum of all stripes. Must be called after every recording thread
+	 * has finished (e.g. after the executor running the workers terminated).
+	 *
+	 * @return long[]
+	 */
+	public long[] merge() {
+		long[] result = new long[size];
+		synchronized (stripes) {
+			for (long[] stripe : stripes)
+				for (int i = 0; i < size; i++)
+					result[i] += stripe[i];
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of histogram buckets.
+	 *
+	 * @return int
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Returns the merged histogram in the .csv format of cutOperationComputations:
+	 * a single line of comma separated counts without a line terminator. At least
+	 * DEFAULT_CSV_COLUMNS columns are written, more only if a larger state count
+	 * was recorded.
+	 *
+	 * @return String
+	 */
+	public String toCsv() {
+		long[] merged = merge();
+		int columns = DEFAULT_CSV_COLUMNS;
+		for (int i = merged.length - 1; i >= columns; i--) {
+			if (merged[i] != 0) {
+				columns = i + 1;
+				break;
+			}
+		}
+
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < columns; i++) {
+			if (i > 0)
+				sb.append(',');
+			sb.append(i < merged.length ? merged[i] : 0);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Writes the merged histogram in the .csv format of cutOperationComputations.
+	 *
+	 * @param writer
+	 * @throws IOException
+	 */
+	public void writeCsv(Writer writer) throws IOException {
+		writer.write(toCsv());
+		writer.flush();
+	}
+
+	/**
+	 * Writes the merged histogram in the .csv format of cutOperationComputations
+	 * to the given file.
+	 *
+	 * @param file
+	 * @throws IOException
+	 */
+	public void writeCsv(Path file) throws IOException {
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			writeCsv(writer);
+		}
+	}
+
+}
@@ -0,0 +1,371 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ *
+ * Monte Carlo estimation of the cut complexity distribution for state counts
+ * beyond the reach of exhaustive lists: pairs (A, B) of independent random
+ * minimal DFAs of the given subclasses (see RandomDFASampler) are drawn and the
+ * sizes of their minimal cut automata are collected in a histogram. The
+ * estimated share of every size is reported together with its Wilson score
+ * confidence interval. The operands are uniform if drawn by rejection, and
+ * approximately uniform if drawn by the Markov chain (the default for
+ * subclasses, which are too rare for rejection beyond about 6 states).
+ *
+ * Every sample draws from its own random generator derived from the seed and
+ * the sample index, and every chunk of CHUNK_SIZE samples runs its own chains,
+ * so the results do not depend on the number of threads.
+ *
+ */
+public class CutSampling {
+
+	// number of samples processed by a single task
+	public static final int CHUNK_SIZE = 64;
+	// z-score of the 95% confidence level
+	public static final double Z_95 = 1.959963984540054;
+
+	private String subclassA;
+	private int numberOfStatesA;
+	private String subclassB;
+	private int numberOfStatesB;
+	private int alphabetSize;
+	private long seed;
+	private RandomDFASampler.Method method = RandomDFASampler.Method.CHAIN;
+
+	// histogram of minimal cut automaton sizes
+	private CutHistogram histogram;
+	// merged histogram, counts[i] pairs with i + 1 states
+	private long[] counts;
+	private long samples;
+	// the highest minimal cut automaton state count found and its first pair
+	private int maxStateCount;
+	private CutWitness hardestWitness;
+	// sampler statistics (draws or chain steps)
+	private long attemptsA;
+	private long attemptsB;
+	private long acceptedA;
+	private long acceptedB;
+
+	// optional listener notified about completed samples
+	private SweepProgressListener progressListener;
+
+	/**
+	 * Constructor for the sampling.
+	 *
+	 * @param subclassA       - subclass of the first operands, "ALLdfa" for all
+	 *                        minimal DFAs
+	 * @param numberOfStatesA
+	 * @param subclassB       - subclass of the second operands, "ALLdfa" for all
+	 *                        minimal DFAs
+	 * @param numberOfStatesB
+	 * @param alphabetSize
+	 * @param seed
+	 */
+	public CutSampling(String subclassA, int numberOfStatesA, String subclassB, int numberOfStatesB,
+			int alphabetSize, long seed) {
+		this.subclassA = subclassA;
+		this.numberOfStatesA = numberOfStatesA;
+		this.subclassB = subclassB;
+		this.numberOfStatesB = numberOfStatesB;
+		this.alphabetSize = alphabetSize;
+		this.seed = seed;
+		// validates the parameters early
+		new RandomDFASampler(numberOfStatesA, alphabetSize, subclassA);
+		new RandomDFASampler(numberOfStatesB, alphabetSize, subclassB);
+	}
+
+	/**
+	 * Draws the given number of pairs using the given number of worker threads.
+	 *
+	 * @param samples
+	 * @param threads
+	 */
+	public void run(long samples, int threads) {
+		this.histogram = new CutHistogram(numberOfStatesA, numberOfStatesB);
+		this.samples = 0;
+		this.maxStateCount = 0;
+		this.hardestWitness = null;
+		this.attemptsA = 0;
+		this.attemptsB = 0;
+		this.acceptedA = 0;
+		this.acceptedB = 0;
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+		try {
+			List<Future<ChunkResult>> chunks = new ArrayList<>();
+			for (long from = 0; from < samples; from += CHUNK_SIZE) {
+				final long chunkFrom = from;
+				final long chunkTo = Math.min(samples, from + CHUNK_SIZE);
+				chunks.add(executor.submit(() -> sampleChunk(chunkFrom, chunkTo)));
+			}
+			for (Future<ChunkResult> chunk : chunks)
+				mergeChunk(chunk.get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Cut sampling interrupted.", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			throw new RuntimeException(cause.getMessage() != null ? cause.getMessage() : cause.toString(), cause);
+		} finally {
+			executor.shutdownNow();
+		}
+		this.counts = histogram.merge();
+	}
+
+	/**
+	 * Support method drawing and evaluating the samples [from, to).
+	 *
+	 * @param from
+	 * @param to
+	 * @return ChunkResult
+	 */
+	private ChunkResult sampleChunk(long from, long to) {
+		RandomDFASampler samplerA = new RandomDFASampler(numberOfStatesA, alphabetSize, subclassA);
+		RandomDFASampler samplerB = new RandomDFASampler(numberOfStatesB, alphabetSize, subclassB);
+		samplerA.setMethod(method);
+		samplerB.setMethod(method);
+		SimpleDFAOperator operator = new SimpleDFAOperator();
+		CutScratchArena arena = new CutScratchArena(numberOfStatesA * numberOfStatesB + numberOfStatesA, alphabetSize);
+		DFASerialCodeAnalyzer encoderA = new DFASerialCodeAnalyzer(numberOfStatesA, alphabetSize);
+		DFASerialCodeAnalyzer encoderB = new DFASerialCodeAnalyzer(numberOfStatesB, alphabetSize);
+
+		ChunkResult result = new ChunkResult();
+		for (long sample = from; sample < to; sample++) {
+			SplittableRandom random = new SplittableRandom(sampleSeed(seed, sample));
+			SimpleDFA a = samplerA.sample(random);
+			SimpleDFA b = samplerB.sample(random);
+			CutAutomatonBatch batch = new CutAutomatonBatch(a);
+			AutomataBlock block = new AutomataBlock(new SimpleDFA[] { b });
+
+			// only the pairs reaching a new maximum are minimized for the witness
+			int stateCount = batch.countMinimalStates(block, 0, arena);
+			histogram.record(stateCount);
+			result.samples++;
+			if (stateCount > result.maxStateCount) {
+				result.maxStateCount = stateCount;
+				result.hardestWitness = new CutWitness((int) sample, (int) sample, encoderA.encode(a),
+						encoderB.encode(b), operator.minimize(batch.cut(block, 0)));
+			}
+		}
+		result.attemptsA = samplerA.getAttempts();
+		result.attemptsB = samplerB.getAttempts();
+		result.acceptedA = samplerA.getAccepted();
+		result.acceptedB = samplerB.getAccepted();
+		if (progressListener != null)
+			progressListener.pairsCompleted(to - from);
+		return result;
+	}
+
+	/**
+	 * Support method merging the result of a chunk, in sample order.
+	 *
+	 * @param chunk
+	 */
+	private void mergeChunk(ChunkResult chunk) {
+		samples += chunk.samples;
+		attemptsA += chunk.attemptsA;
+		attemptsB += chunk.attemptsB;
+		acceptedA += chunk.acceptedA;
+		acceptedB += chunk.acceptedB;
+		if (chunk.maxStateCount > maxStateCount) {
+			maxStateCount = chunk.maxStateCount;
+			hardestWitness = chunk.hardestWitness;
+		}
+	}
+
+	/**
+	 * Support method deriving the seed of a sample (splitmix64 finalizer), so that
+	 * the generators of different samples are independent.
+	 *
+	 * @param seed
+	 * @param sample
+	 * @return long
+	 */
+	private static long sampleSeed(long seed, long sample) {
+		long z = seed + (sample + 1) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Returns the estimated share of pairs whose minimal cut automaton has the
+	 * given number of states.
+	 *
+	 * @param stateCount
+	 * @return double
+	 */
+	public double getEstimate(int stateCount) {
+		return samples == 0 ? 0 : (double) getCount(stateCount) / samples;
+	}
+
+	/**
+	 * Returns the Wilson score confidence interval of the share of pairs whose
+	 * minimal cut automaton has the given number of states.
+	 *
+	 * @param stateCount
+	 * @param z          - z-score of the confidence level (e.g. Z_95)
+	 * @return double[] {lower, upper}
+	 */
+	public double[] getWilsonInterval(int stateCount, double z) {
+		if (samples == 0)
+			return new double[] { 0, 1 };
+		double n = samples;
+		double p = getCount(stateCount) / n;
+		double denominator = 1 + z * z / n;
+		double center = (p + z * z / (2 * n)) / denominator;
+		double halfWidth = z * Math.sqrt(p * (1 - p) / n + z * z / (4 * n * n)) / denominator;
+		return new double[] { Math.max(0, center - halfWidth), Math.min(1, center + halfWidth) };
+	}
+
+	/**
+	 * Returns the number of sampled pairs whose minimal cut automaton has the
+	 * given number of states.
+	 *
+	 * @param stateCount
+	 * @return long
+	 */
+	public long getCount(int stateCount) {
+		if (counts == null)
+			throw new RuntimeException("No samples drawn.");
+		return stateCount < 1 || stateCount > counts.length ? 0 : counts[stateCount - 1];
+	}
+
+	/**
+	 * Returns the estimated histogram in the .csv format, one line per state count
+	 * up to the largest sampled one: state count, number of pairs, estimated
+	 * share and the bounds of its confidence interval.
+	 *
+	 * @param z - z-score of the confidence level
+	 * @return String
+	 */
+	public String toCsv(double z) {
+		StringBuilder sb = new StringBuilder("states,count,estimate,lower,upper\n");
+		for (int stateCount = 1; stateCount <= maxStateCount; stateCount++) {
+			double[] interval = getWilsonInterval(stateCount, z);
+			sb.append(String.format(Locale.ROOT, "%d,%d,%.6f,%.6f,%.6f\n", stateCount, getCount(stateCount),
+					getEstimate(stateCount), interval[0], interval[1]));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Writes the estimated histogram (see toCsv) to the given file.
+	 *
+	 * @param file
+	 * @param z    - z-score of the confidence level
+	 * @throws IOException
+	 */
+	public void writeCsv(Path file, double z) throws IOException {
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			writer.write(toCsv(z));
+		}
+	}
+
+	/**
+	 * Partial result of a chunk of samples.
+	 */
+	private static class ChunkResult {
+		private long samples;
+		private int maxStateCount;
+		private CutWitness hardestWitness;
+		private long attemptsA;
+		private long attemptsB;
+		private long acceptedA;
+		private long acceptedB;
+	}
+
+	/**
+	 * Getters and setters.
+	 */
+
+	public CutHistogram getCutHistogram() {
+		if (histogram == null)
+			throw new RuntimeException("No samples drawn.");
+		return histogram;
+	}
+
+	public long getSamples() {
+		return samples;
+	}
+
+	public int getMaxStateCount() {
+		return maxStateCount;
+	}
+
+	/**
+	 * Returns the first sampled pair reaching the highest state count, null
+	 * before the run. Its indices are the sample index.
+	 *
+	 * @return CutWitness
+	 */
+	public CutWitness getHardestWitness() {
+		return hardestWitness;
+	}
+
+	/**
+	 * Returns the ratio of accepted random draws (or chain steps) of the first
+	 * operands.
+	 *
+	 * @return double
+	 */
+	public double getAcceptanceRateA() {
+		return attemptsA == 0 ? 0 : (double) acceptedA / attemptsA;
+	}
+
+	/**
+	 * Returns the ratio of accepted random draws (or chain steps) of the second
+	 * operands.
+	 *
+	 * @return double
+	 */
+	public double getAcceptanceRateB() {
+		return attemptsB == 0 ? 0 : (double) acceptedB / attemptsB;
+	}
+
+	public RandomDFASampler.Method getMethod() {
+		return method;
+	}
+
+	public void setMethod(RandomDFASampler.Method method) {
+		this.method = method;
+	}
+
+	public SweepProgressListener getProgressListener() {
+		return progressListener;
+	}
+
+	public void setProgressListener(SweepProgressListener progressListener) {
+		this.progressListener = progressListener;
+	}
+
+}
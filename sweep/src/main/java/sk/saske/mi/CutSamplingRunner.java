@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ *
+ * Command-line runner of the Monte Carlo cut complexity estimation (see
+ * CutSampling). Prints the estimated histogram with confidence intervals and
+ * the hardest sampled pair, and optionally writes the histogram to a .csv file.
+ *
+ * Usage: see USAGE.
+ *
+ */
+public class CutSamplingRunner {
+
+	public static final String USAGE = "Usage: CutSamplingRunner [options]\n"
+			+ "  --first X           subclass of the first operand (default ALLdfa)\n"
+			+ "  --second Y          subclass of the second operand (default ALLdfa)\n"
+			+ "  --states n          number of states of the first operand (default 8)\n"
+			+ "  --states-b m        number of states of the second operand (default as --states)\n"
+			+ "  --alphabet k        alphabet size (default 2)\n"
+			+ "  --samples s         number of sampled pairs (default 10000)\n"
+			+ "  --seed seed         random seed (default 1)\n"
+			+ "  --sampler method    chain or rejection, the sampling of subclass operands (default chain)\n"
+			+ "  --confidence c      confidence level of the intervals, 0.90, 0.95 or 0.99 (default 0.95)\n"
+			+ "  --threads t         number of worker threads (default number of processors)\n"
+			+ "  --output file       .csv file of the estimated histogram\n"
+			+ "  --progress seconds  progress report interval (default 10, 0 disables the reports)";
+
+	private String subclassA = "ALLdfa";
+	private String subclassB = "ALLdfa";
+	private int numberOfStatesA = 8;
+	private int numberOfStatesB = -1;
+	private int alphabetSize = 2;
+	private long samples = 10_000;
+	private long seed = 1;
+	private RandomDFASampler.Method method = RandomDFASampler.Method.CHAIN;
+	private double z = CutSampling.Z_95;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private Path output;
+	private long progressIntervalMillis = ProgressReporter.DEFAULT_INTERVAL_MILLIS;
+
+	public static void main(String[] args) {
+		if (Arrays.asList(args).contains("--help")) {
+			System.out.println(USAGE);
+			return;
+		}
+
+		CutSamplingRunner runner = new CutSamplingRunner();
+		try {
+			runner.parseArguments(args);
+		} catch (RuntimeException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+
+		try {
+			runner.run();
+		} catch (IOException | RuntimeException e) {
+			System.err.println("Cut sampling failed: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Parses the command-line options (see USAGE) into this runner.
+	 *
+	 * @param args
+	 * @return this runner
+	 */
+	public CutSamplingRunner parseArguments(String[] args) {
+		for (int i = 0; i < args.length; i++) {
+			String option = args[i];
+			if (i + 1 >= args.length)
+				throw new RuntimeException("Missing value of option " + option + ".");
+			String value = args[++i];
+
+			try {
+				switch (option) {
+				case "--first":
+					subclassA = value;
+					break;
+				case "--second":
+					subclassB = value;
+					break;
+				case "--states":
+					numberOfStatesA = Integer.parseInt(value);
+					break;
+				case "--states-b":
+					numberOfStatesB = Integer.parseInt(value);
+					break;
+				case "--alphabet":
+					alphabetSize = Integer.parseInt(value);
+					break;
+				case "--samples":
+					samples = Long.parseLong(value);
+					break;
+				case "--seed":
+					seed = Long.parseLong(value);
+					break;
+				case "--sampler":
+					method = samplingMethod(value);
+					break;
+				case "--confidence":
+					z = zScore(value);
+					break;
+				case "--threads":
+					threads = Integer.parseInt(value);
+					break;
+				case "--output":
+					output = Paths.get(value);
+					break;
+				case "--progress":
+					progressIntervalMillis = 1000L * Integer.parseInt(value);
+					break;
+				default:
+					throw new RuntimeException("Unknown option " + option + ".");
+				}
+			} catch (NumberFormatException e) {
+				throw new RuntimeException("Invalid value " + value + " of " + option + ".");
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Runs the sampling and reports its results.
+	 *
+	 * @throws IOException
+	 */
+	public void run() throws IOException {
+		CutSampling sampling = new CutSampling(subclassA, numberOfStatesA, subclassB,
+				numberOfStatesB == -1 ? numberOfStatesA : numberOfStatesB, alphabetSize, seed);
+		sampling.setMethod(method);
+		ProgressReporter reporter = progressIntervalMillis > 0
+				? new ProgressReporter(samples, System.err, progressIntervalMillis)
+				: null;
+		sampling.setProgressListener(reporter);
+		sampling.run(samples, threads);
+		if (reporter != null)
+			reporter.finish();
+
+		System.out.print(sampling.toCsv(z));
+		System.out.println(String.format(Locale.ROOT, "acceptance rate A %.6f, B %.6f", sampling.getAcceptanceRateA(),
+				sampling.getAcceptanceRateB()));
+		System.out.println("hardest sampled pair (" + sampling.getMaxStateCount() + " states): "
+				+ sampling.getHardestWitness());
+		if (output != null)
+			sampling.writeCsv(output, z);
+	}
+
+	/**
+	 * Support method returning the sampling method of its option value.
+	 *
+	 * @param value
+	 * @return RandomDFASampler.Method
+	 */
+	private static RandomDFASampler.Method samplingMethod(String value) {
+		switch (value) {
+		case "chain":
+			return RandomDFASampler.Method.CHAIN;
+		case "rejection":
+			return RandomDFASampler.Method.REJECTION;
+		default:
+			throw new RuntimeException("Unknown sampler " + value + ".");
+		}
+	}
+
+	/**
+	 * Support method returning the z-score of a supported confidence level.
+	 *
+	 * @param confidence
+	 * @return double
+	 */
+	private static double zScore(String confidence) {
+		switch (confidence) {
+		case "0.90":
+			return 1.6448536269514722;
+		case "0.95":
+			return CutSampling.Z_95;
+		case "0.99":
+			return 2.5758293035489004;
+		default:
+			throw new RuntimeException("Unsupported confidence level " + confidence + ".");
+		}
+	}
+
+}
@@ -0,0 +1,750 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ *
+ * Class applying the cut operation on every pair of automata (A, B), where A is
+ * taken from the first and B from the second list of automaton encodings, and
+ * collecting the state complexity of the resulting minimal cut automata.
+ *
+ * Two modes are available. The full mode computes the histogram of minimal cut
+ * automaton sizes together with the hardest witnesses. The max-only mode only
+ * searches for the hardest witnesses - every pair whose cut complexity upper
+ * bound (see cutUpperBound) is below the current maximum is skipped without
+ * constructing and minimizing its cut automaton. Pairs passing the first bound
+ * are checked once more against the number of reachable states of their cut
+ * automaton, which is counted without constructing it.
+ *
+ * In both modes the minimal cut state count of a pair is computed by
+ * CutAutomatonBatch.countMinimalStates in the scratch arena of the worker,
+ * without allocating any automaton. Only the pairs reaching the current
+ * maximum (in the full mode of their row, and at least the highest count any
+ * worker has found) are cut and minimized by SimpleDFAOperator.minimize, whose
+ * state numbering the hardest witness files keep.
+ *
+ * A sweep may evaluate several variants at once, each applying its own
+ * alphabet mapping (e.g. a symbol swap) to the first operands. The variants
+ * share the parsed lists and the second operands, and in the full mode also
+ * every minimal cut automaton of an A whose images under two mappings are
+ * equal. Results are kept separately for every variant; the getters without a
+ * variant index refer to the first one.
+ *
+ * With the alphabet symmetry reduction enabled (see AlphabetSymmetry), only one
+ * representative pair of every orbit under simultaneous alphabet permutations
+ * is evaluated and counted with the orbit size. The hardest witnesses are
+ * afterwards expanded to all pairs of their orbits, so the results are the same
+ * as without the reduction.
+ *
+ */
+public class CutSweep {
+
+	// version of the sweep results, to be increased by every change of the
+	// engine that alters the histograms or witnesses (see SweepManifest)
+	public static final int RESULT_VERSION = 1;
+
+	// input automata encodings
+	private List<String> codesA;
+	private List<String> codesB;
+	// parsed input automata, first operands per variant
+	private SimpleDFA[][] automataA;
+	private SimpleDFA[] automataB;
+	// second operands in struct-of-arrays form for batched cut construction
+	private AutomataBlock blockB;
+	// the lowest variant with the same image of A, sourceVariant[variant][indexA]
+	private int[][] sourceVariant;
+	private int alphabetSize;
+	// whether only one pair per alphabet permutation orbit is evaluated
+	private boolean alphabetSymmetry;
+	// orbits of the pairs of every variant (symmetry reduction only)
+	private AlphabetSymmetry[] symmetries;
+
+	// histograms of minimal cut automaton sizes per variant (full mode only)
+	private CutHistogram[] histograms;
+	// the highest minimal cut automaton state count found per variant
+	private int[] maxStateCounts;
+	// pairs reaching the highest state count per variant, in list order
+	private List<List<CutWitness>> hardestWitnesses = new ArrayList<>();
+	// number of pairs whose cut automaton was constructed and minimized
+	private long evaluatedPairs;
+	// number of pairs skipped by the upper bounds
+	private long prunedPairs;
+	// number of pairs counted through the representative of their orbit
+	private long symmetricPairs;
+
+	private SimpleDFAOperator operator = new SimpleDFAOperator();
+	// operators of the worker threads
+	private ThreadLocal<SimpleDFAOperator> operators = ThreadLocal.withInitial(SimpleDFAOperator::new);
+	// scratch arenas of the worker threads, sized for the largest cut automaton
+	private ThreadLocal<CutScratchArena> arenas;
+	// the highest state count found by any worker per variant (full mode); rows
+	// below it cannot contain hardest witnesses, so their witnesses are skipped
+	private AtomicIntegerArray witnessFloors;
+	// optional listener notified about completed pairs
+	private SweepProgressListener progressListener;
+
+	/**
+	 * Constructor for the cut sweep. The number of states of each automaton is
+	 * derived from the length of its encoding.
+	 *
+	 * @param codesA       - encodings of the first (left) cut operands
+	 * @param codesB       - encodings of the second (right) cut operands
+	 * @param alphabetSize
+	 */
+	public CutSweep(List<String> codesA, List<String> codesB, int alphabetSize) {
+		this(codesA, codesB, alphabetSize, (int[]) null);
+	}
+
+	/**
+	 * Constructor for the cut sweep applying the given alphabet mapping (see
+	 * SimpleDFAOperator.homomorphicImage) to every first operand before the cut.
+	 * The witnesses keep the original encodings of the first operands.
+	 *
+	 * @param codesA           - encodings of the first (left) cut operands
+	 * @param codesB           - encodings of the second (right) cut operands
+	 * @param alphabetSize
+	 * @param alphabetMappingA - symbol mapping of the first operands, null for
+	 *                         none
+	 */
+	public CutSweep(List<String> codesA, List<String> codesB, int alphabetSize, int[] alphabetMappingA) {
+		this(codesA, codesB, alphabetSize, new int[][] { alphabetMappingA });
+	}
+
+	/**
+	 * Constructor for a combined cut sweep evaluating one variant per given
+	 * alphabet mapping of the first operands in a single pass.
+	 *
+	 * @param codesA            - encodings of the first (left) cut operands
+	 * @param codesB            - encodings of the second (right) cut operands
+	 * @param alphabetSize
+	 * @param alphabetMappingsA - symbol mappings of the first operands per
+	 *                          variant, null entries for none
+	 */
+	public CutSweep(List<String> codesA, List<String> codesB, int alphabetSize, int[][] alphabetMappingsA) {
+		if (alphabetMappingsA.length == 0)
+			throw new RuntimeException("No cut sweep variant given.");
+		this.codesA = codesA;
+		this.codesB = codesB;
+		this.alphabetSize = alphabetSize;
+		this.automataB = parseAll(codesB, alphabetSize);
+		this.blockB = new AutomataBlock(automataB);
+
+		SimpleDFA[] parsedA = parseAll(codesA, alphabetSize);
+		int variants = alphabetMappingsA.length;
+		this.automataA = new SimpleDFA[variants][];
+		this.sourceVariant = new int[variants][parsedA.length];
+		for (int variant = 0; variant < variants; variant++) {
+			int[] mapping = alphabetMappingsA[variant];
+			if (mapping != null && mapping.length != alphabetSize)
+				throw new RuntimeException("Inconsistent mapping with alphabet size.");
+
+			automataA[variant] = new SimpleDFA[parsedA.length];
+			for (int indexA = 0; indexA < parsedA.length; indexA++) {
+				SimpleDFA image = mapping == null ? parsedA[indexA]
+						: operator.homomorphicImage(parsedA[indexA], mapping);
+				automataA[variant][indexA] = image;
+				sourceVariant[variant][indexA] = variant;
+				for (int previous = 0; previous < variant; previous++)
+					if (isEqual(automataA[previous][indexA], image)) {
+						sourceVariant[variant][indexA] = sourceVariant[previous][indexA];
+						break;
+					}
+			}
+		}
+	}
+
+	/**
+	 * Support method parsing a list of automaton encodings.
+	 *
+	 * @param codes
+	 * @param alphabetSize
+	 * @return array of parsed automata
+	 */
+	private SimpleDFA[] parseAll(List<String> codes, int alphabetSize) {
+		SimpleDFA[] automata = new SimpleDFA[codes.size()];
+		for (int i = 0; i < automata.length; i++) {
+			String code = codes.get(i).trim();
+			DFASerialCodeAnalyzer analyzer = new DFASerialCodeAnalyzer(code.length() / (alphabetSize + 1),
+					alphabetSize);
+			analyzer.parse(code);
+			automata[i] = analyzer.getParsedAutomaton();
+		}
+		return automata;
+	}
+
+	/**
+	 * Support method returning whether two DFAs have equal transition matrices
+	 * and finality arrays (not only isomorphic ones).
+	 *
+	 * @param a
+	 * @param b
+	 * @return boolean
+	 */
+	private static boolean isEqual(SimpleDFA a, SimpleDFA b) {
+		return Arrays.equals(a.getFinalityArray(), b.getFinalityArray())
+				&& Arrays.deepEquals(a.getTransitionMatrix(), b.getTransitionMatrix());
+	}
+
+	/**
+	 * Full mode - computes the minimal cut automaton of every pair, the histogram
+	 * of their sizes and the hardest witnesses.
+	 */
+	public void computeHistogram() {
+		computeHistogram(1);
+	}
+
+	/**
+	 * Full mode run by the given number of worker threads. The work is divided
+	 * into tasks of one A against a range of B by the PairCostModel schedule -
+	 * expensive rows are split and the tasks are submitted in decreasing order of
+	 * their estimated cost, which bounds the time the workers wait for the last
+	 * task. Every worker records into its own histogram stripe; the task results
+	 * are merged in list order, so the result does not depend on the number of
+	 * threads.
+	 *
+	 * @param threads
+	 */
+	public void computeHistogram(int threads) {
+		int maxBound = 1;
+		for (SimpleDFA a : automataA[0])
+			for (SimpleDFA b : automataB)
+				maxBound = Math.max(maxBound,
+						a.getNumberOfStates() * b.getNumberOfStates() + a.getNumberOfStates());
+
+		histograms = new CutHistogram[getNumberOfVariants()];
+		for (int variant = 0; variant < histograms.length; variant++)
+			histograms[variant] = new CutHistogram(maxBound);
+		resetResults();
+		witnessFloors = new AtomicIntegerArray(getNumberOfVariants());
+		final int arenaCapacity = maxBound;
+		arenas = ThreadLocal.withInitial(() -> new CutScratchArena(arenaCapacity, alphabetSize));
+
+		if (threads <= 1) {
+			for (int indexA = 0; indexA < automataA[0].length; indexA++)
+				mergeRow(sweepRange(indexA, 0, automataB.length));
+		} else {
+			// workers are named by their number, so progress reports can tell them apart
+			AtomicInteger workerCounter = new AtomicInteger();
+			ExecutorService executor = Executors.newFixedThreadPool(threads,
+					runnable -> new Thread(runnable, "sweep-worker-" + workerCounter.incrementAndGet()));
+			try {
+				List<PairCostModel.Task> tasks = new PairCostModel(automataA[0], blockB).schedule(threads);
+				List<Future<RowResult>> results = new ArrayList<>();
+				for (PairCostModel.Task task : tasks)
+					results.add(executor.submit(() -> sweepRange(task.getIndexA(), task.getFromB(), task.getToB())));
+				// merge in list order
+				Integer[] mergeOrder = new Integer[tasks.size()];
+				for (int i = 0; i < mergeOrder.length; i++)
+					mergeOrder[i] = i;
+				Arrays.sort(mergeOrder, Comparator.comparingInt((Integer i) -> tasks.get(i).getIndexA())
+						.thenComparingInt(i -> tasks.get(i).getFromB()));
+				for (int i : mergeOrder)
+					mergeRow(results.get(i).get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Cut sweep interrupted.", e);
+			} catch (ExecutionException e) {
+				throw new RuntimeException("Cut sweep failed.", e.getCause());
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+
+		if (symmetries != null)
+			for (int variant = 0; variant < getNumberOfVariants(); variant++)
+				expandWitnesses(variant);
+	}
+
+	/**
+	 * Support method evaluating one A against the B from fromB (inclusive) to toB
+	 * (exclusive) in the full mode, for every variant.
+	 *
+	 * @param indexA
+	 * @param fromB
+	 * @param toB
+	 * @return RowResult
+	 */
+	private RowResult sweepRange(int indexA, int fromB, int toB) {
+		SimpleDFAOperator rowOperator = operators.get();
+		CutScratchArena arena = arenas.get();
+		int variants = getNumberOfVariants();
+		// batched cut constructions of the variants, created on first use
+		CutAutomatonBatch[] batches = new CutAutomatonBatch[variants];
+
+		RowResult result = new RowResult(variants);
+		// minimal cut state counts of the current B, -1 if not evaluated
+		int[] stateCounts = new int[variants];
+		// minimal cut automata of the current B, constructed for witnesses only
+		SimpleDFA[] minimalCuts = new SimpleDFA[variants];
+		int orbitCapacity = symmetries == null ? 0 : symmetries[0].getNumberOfPermutations();
+		int[] membersA = new int[orbitCapacity];
+		int[] membersB = new int[orbitCapacity];
+		for (int indexB = fromB; indexB < toB; indexB++) {
+			for (int variant = 0; variant < variants; variant++) {
+				stateCounts[variant] = -1;
+				minimalCuts[variant] = null;
+				int multiplicity = 1;
+				if (symmetries != null) {
+					if (!symmetries[variant].isRepresentative(indexA, indexB))
+						continue;
+					multiplicity = symmetries[variant].orbit(indexA, indexB, membersA, membersB);
+					result.symmetricPairs += multiplicity - 1;
+				}
+
+				int source = sourceVariant[variant][indexA];
+				if (source != variant && stateCounts[source] != -1) {
+					stateCounts[variant] = stateCounts[source];
+				} else {
+					if (batches[variant] == null)
+						batches[variant] = new CutAutomatonBatch(automataA[variant][indexA]);
+					stateCounts[variant] = batches[variant].countMinimalStates(blockB, indexB, arena);
+					result.evaluatedPairs++;
+				}
+
+				int stateCount = stateCounts[variant];
+				histograms[variant].record(stateCount, multiplicity);
+				if (stateCount > result.maxStateCounts[variant]) {
+					result.maxStateCounts[variant] = stateCount;
+					result.witnesses.get(variant).clear();
+				}
+				if (stateCount < witnessFloors.get(variant)) {
+					// the row cannot reach the merged maximum, its witnesses are discarded
+					continue;
+				}
+				if (stateCount > witnessFloors.get(variant))
+					witnessFloors.accumulateAndGet(variant, stateCount, Math::max);
+				if (stateCount == result.maxStateCounts[variant]) {
+					// the witness keeps the state numbering of SimpleDFAOperator.minimize
+					if (source != variant && minimalCuts[source] != null) {
+						minimalCuts[variant] = minimalCuts[source];
+					} else {
+						if (batches[variant] == null)
+							batches[variant] = new CutAutomatonBatch(automataA[variant][indexA]);
+						minimalCuts[variant] = rowOperator.minimize(batches[variant].cut(blockB, indexB));
+					}
+					result.witnesses.get(variant).add(new CutWitness(indexA, indexB, codesA.get(indexA).trim(),
+							codesB.get(indexB).trim(), minimalCuts[variant]));
+				}
+			}
+		}
+		if (progressListener != null) {
+			for (int variant = 0; variant < variants; variant++)
+				if (result.maxStateCounts[variant] > 0)
+					progressListener.maximumFound(variant, result.maxStateCounts[variant]);
+			progressListener.pairsCompleted((long) variants * (toB - fromB));
+		}
+		return result;
+	}
+
+	/**
+	 * Support method merging the result of a row (or of its range) into the
+	 * sweep results.
+	 *
+	 * @param row
+	 */
+	private void mergeRow(RowResult row) {
+		evaluatedPairs += row.evaluatedPairs;
+		symmetricPairs += row.symmetricPairs;
+		for (int variant = 0; variant < getNumberOfVariants(); variant++) {
+			List<CutWitness> witnesses = row.witnesses.get(variant);
+			if (row.maxStateCounts[variant] < maxStateCounts[variant] || witnesses.isEmpty())
+				continue;
+			if (row.maxStateCounts[variant] > maxStateCounts[variant]) {
+				maxStateCounts[variant] = row.maxStateCounts[variant];
+				hardestWitnesses.get(variant).clear();
+			}
+			hardestWitnesses.get(variant).addAll(witnesses);
+		}
+	}
+
+	/**
+	 * Max-only mode - finds the hardest witnesses of every variant without
+	 * computing the histogram. Pairs are visited in descending order of their cut
+	 * complexity upper bound, so the search stops as soon as no remaining pair
+	 * can reach the current maximum.
+	 */
+	public void computeHardestWitnesses() {
+		histograms = null;
+		resetResults();
+
+		int[] reachableB = new int[automataB.length];
+		boolean[] acceptingB = new boolean[automataB.length];
+		Integer[] orderB = new Integer[automataB.length];
+		for (int indexB = 0; indexB < automataB.length; indexB++) {
+			reachableB[indexB] = countReachableStates(automataB[indexB]);
+			acceptingB[indexB] = hasReachableFinalState(automataB[indexB]);
+			orderB[indexB] = indexB;
+		}
+		// effective size of B in the bound, zero for B accepting the empty language
+		final int[] sizeB = new int[automataB.length];
+		for (int indexB = 0; indexB < automataB.length; indexB++)
+			sizeB[indexB] = acceptingB[indexB] ? reachableB[indexB] : 0;
+		Arrays.sort(orderB, Comparator.comparingInt((Integer indexB) -> sizeB[indexB]).reversed());
+
+		int maxStatesA = 0;
+		int maxStatesB = 0;
+		for (SimpleDFA a : automataA[0])
+			maxStatesA = Math.max(maxStatesA, a.getNumberOfStates());
+		for (SimpleDFA b : automataB)
+			maxStatesB = Math.max(maxStatesB, b.getNumberOfStates());
+		CutScratchArena arena = new CutScratchArena(maxStatesA * maxStatesB + maxStatesA, alphabetSize);
+
+		long totalPairs = (long) getNumberOfVariants() * automataA[0].length * automataB.length;
+		for (int variant = 0; variant < getNumberOfVariants(); variant++) {
+			searchHardestWitnesses(variant, orderB, sizeB, arena);
+			if (symmetries != null)
+				expandWitnesses(variant);
+		}
+		prunedPairs = totalPairs - evaluatedPairs - symmetricPairs;
+	}
+
+	/**
+	 * Support method running the max-only mode for a single variant.
+	 *
+	 * @param variant
+	 * @param orderB  - indices of B in descending order of sizeB
+	 * @param sizeB   - effective sizes of B in the bound
+	 * @param arena   - scratch buffers of the minimal state counts
+	 */
+	private void searchHardestWitnesses(int variant, Integer[] orderB, int[] sizeB, CutScratchArena arena) {
+		SimpleDFA[] variantA = automataA[variant];
+		final int[] rowBound = new int[variantA.length];
+		Integer[] orderA = new Integer[variantA.length];
+		for (int indexA = 0; indexA < variantA.length; indexA++) {
+			rowBound[indexA] = orderB.length == 0 ? 0 : cutUpperBound(variantA[indexA], sizeB[orderB[0]]);
+			orderA[indexA] = indexA;
+		}
+		Arrays.sort(orderA, Comparator.comparingInt((Integer indexA) -> rowBound[indexA]).reversed());
+
+		for (int a = 0; a < orderA.length; a++) {
+			int indexA = orderA[a];
+			if (rowBound[indexA] < maxStateCounts[variant]) {
+				if (progressListener != null)
+					progressListener.pairsCompleted((long) (orderA.length - a) * automataB.length);
+				break;
+			}
+
+			CutAutomatonBatch batch = new CutAutomatonBatch(variantA[indexA]);
+			for (int b = 0; b < orderB.length; b++) {
+				int indexB = orderB[b];
+				if (cutUpperBound(variantA[indexA], sizeB[indexB]) < maxStateCounts[variant])
+					break;
+				if (symmetries != null && !symmetries[variant].isRepresentative(indexA, indexB)) {
+					symmetricPairs++;
+					continue;
+				}
+				if (batch.countReachableStates(blockB, indexB) < maxStateCounts[variant])
+					continue;
+
+				evaluatedPairs++;
+				if (batch.countMinimalStates(blockB, indexB, arena) < maxStateCounts[variant])
+					continue;
+				recordCandidate(variant, indexA, indexB, operator.minimize(batch.cut(blockB, indexB)));
+			}
+			if (progressListener != null)
+				progressListener.pairsCompleted(automataB.length);
+		}
+
+		Collections.sort(hardestWitnesses.get(variant),
+				Comparator.comparingInt(CutWitness::getIndexA).thenComparingInt(CutWitness::getIndexB));
+	}
+
+	/**
+	 * Support method adding the remaining pairs of the orbits of the hardest
+	 * witnesses of a variant (symmetry reduction only). Their minimal cut automata
+	 * are computed, so that the witnesses are the same as without the reduction.
+	 *
+	 * @param variant
+	 */
+	private void expandWitnesses(int variant) {
+		int[] membersA = new int[symmetries[variant].getNumberOfPermutations()];
+		int[] membersB = new int[membersA.length];
+		List<CutWitness> witnesses = new ArrayList<>();
+		for (CutWitness representative : hardestWitnesses.get(variant)) {
+			witnesses.add(representative);
+			int size = symmetries[variant].orbit(representative.getIndexA(), representative.getIndexB(), membersA,
+					membersB);
+			for (int member = 1; member < size; member++) {
+				SimpleDFA minimalCut = operator.minimize(
+						new CutAutomatonBatch(automataA[variant][membersA[member]]).cut(blockB, membersB[member]));
+				evaluatedPairs++;
+				symmetricPairs--;
+				witnesses.add(new CutWitness(membersA[member], membersB[member],
+						codesA.get(membersA[member]).trim(), codesB.get(membersB[member]).trim(), minimalCut));
+			}
+		}
+		Collections.sort(witnesses,
+				Comparator.comparingInt(CutWitness::getIndexA).thenComparingInt(CutWitness::getIndexB));
+		hardestWitnesses.set(variant, witnesses);
+	}
+
+	/**
+	 * Returns an upper bound on the number of states of the minimal cut automaton
+	 * of the two input DFAs, derived from the reachable part of the cut
+	 * construction: whenever A enters a final state, B is reset to its initial
+	 * state, so with f final states in A only the n_A - f non-final states of A
+	 * may be combined with an arbitrary reachable state of B, which gives f +
+	 * (n_A - f) * n_B states. If the initial state of A is not final, at most n_A
+	 * - f further states precede the first final state of A. The bound never
+	 * exceeds n_A * n_B + n_A.
+	 *
+	 * @param a - first input DFA
+	 * @param b - second input DFA
+	 * @return int
+	 */
+	public int cutUpperBound(SimpleDFA a, SimpleDFA b) {
+		return cutUpperBound(a, hasReachableFinalState(b) ? countReachableStates(b) : 0);
+	}
+
+	/**
+	 * Support method for the cut complexity upper bound, where sizeB is the number
+	 * of reachable states of B (zero if B accepts the empty language).
+	 *
+	 * @param a
+	 * @param sizeB
+	 * @return int
+	 */
+	private int cutUpperBound(SimpleDFA a, int sizeB) {
+		int finalStatesA = 0;
+		for (boolean finality : a.getFinalityArray())
+			if (finality)
+				finalStatesA++;
+
+		// the cut of an empty language is empty
+		if (finalStatesA == 0 || sizeB == 0)
+			return 1;
+
+		int nonFinalStatesA = a.getNumberOfStates() - finalStatesA;
+		int prefixStates = a.getFinalityArray()[0] ? finalStatesA : a.getNumberOfStates();
+		return prefixStates + nonFinalStatesA * sizeB;
+	}
+
+	/**
+	 * Support method returning the number of states reachable from the initial
+	 * state.
+	 *
+	 * @param dfa
+	 * @return int
+	 */
+	private int countReachableStates(SimpleDFA dfa) {
+		return reachableStates(dfa).length;
+	}
+
+	/**
+	 * Support method returning whether a final state is reachable from the initial
+	 * state.
+	 *
+	 * @param dfa
+	 * @return boolean
+	 */
+	private boolean hasReachableFinalState(SimpleDFA dfa) {
+		for (int state : reachableStates(dfa))
+			if (dfa.getFinalityArray()[state])
+				return true;
+		return false;
+	}
+
+	/**
+	 * Support method listing the states reachable from the initial state in
+	 * breadth-first order.
+	 *
+	 * @param dfa
+	 * @return int[]
+	 */
+	private int[] reachableStates(SimpleDFA dfa) {
+		int[] queue = new int[dfa.getNumberOfStates()];
+		boolean[] reached = new boolean[dfa.getNumberOfStates()];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = 0;
+		reached[0] = true;
+		while (head < tail) {
+			int state = queue[head++];
+			for (int symbol = 0; symbol < dfa.getAlphabetSize(); symbol++) {
+				int target = dfa.getTransitionMatrix()[state][symbol];
+				if (!reached[target]) {
+					reached[target] = true;
+					queue[tail++] = target;
+				}
+			}
+		}
+		return Arrays.copyOf(queue, tail);
+	}
+
+	/**
+	 * Support method clearing the results of a previous run.
+	 */
+	private void resetResults() {
+		symmetries = null;
+		if (alphabetSymmetry) {
+			symmetries = new AlphabetSymmetry[getNumberOfVariants()];
+			for (int variant = 0; variant < symmetries.length; variant++)
+				symmetries[variant] = new AlphabetSymmetry(automataA[variant], automataB, alphabetSize);
+		}
+		maxStateCounts = new int[getNumberOfVariants()];
+		hardestWitnesses = new ArrayList<>();
+		for (int variant = 0; variant < getNumberOfVariants(); variant++)
+			hardestWitnesses.add(new ArrayList<>());
+		evaluatedPairs = 0;
+		prunedPairs = 0;
+		symmetricPairs = 0;
+	}
+
+	/**
+	 * Support method updating the hardest witnesses of a variant with a newly
+	 * evaluated pair.
+	 *
+	 * @param variant
+	 * @param indexA
+	 * @param indexB
+	 * @param minimalCut
+	 */
+	private void recordCandidate(int variant, int indexA, int indexB, SimpleDFA minimalCut) {
+		int stateCount = minimalCut.getNumberOfStates();
+		if (stateCount < maxStateCounts[variant])
+			return;
+		if (stateCount > maxStateCounts[variant]) {
+			maxStateCounts[variant] = stateCount;
+			hardestWitnesses.get(variant).clear();
+			if (progressListener != null)
+				progressListener.maximumFound(variant, stateCount);
+		}
+		hardestWitnesses.get(variant).add(new CutWitness(indexA, indexB, codesA.get(indexA).trim(),
+				codesB.get(indexB).trim(), minimalCut));
+	}
+
+	/**
+	 * Partial result of the full mode for a single A and a range of B.
+	 */
+	private static class RowResult {
+		private int[] maxStateCounts;
+		private List<List<CutWitness>> witnesses = new ArrayList<>();
+		private long evaluatedPairs;
+		private long symmetricPairs;
+
+		private RowResult(int variants) {
+			this.maxStateCounts = new int[variants];
+			for (int variant = 0; variant < variants; variant++)
+				witnesses.add(new ArrayList<>());
+		}
+	}
+
+	/**
+	 * Getters.
+	 */
+
+	/**
+	 * Returns the histogram of minimal cut automaton sizes of the first variant,
+	 * where index i holds the number of pairs with i + 1 states. Only available
+	 * after the full mode run.
+	 *
+	 * @return long[]
+	 */
+	public long[] getHistogram() {
+		return getHistogram(0);
+	}
+
+	public long[] getHistogram(int variant) {
+		return getCutHistogram(variant).merge();
+	}
+
+	/**
+	 * Returns the histogram accumulator of the first variant of the last full
+	 * mode run, e.g. for writing it in the .csv format.
+	 *
+	 * @return CutHistogram
+	 */
+	public CutHistogram getCutHistogram() {
+		return getCutHistogram(0);
+	}
+
+	public CutHistogram getCutHistogram(int variant) {
+		if (histograms == null)
+			throw new RuntimeException("No histogram computed.");
+		return histograms[variant];
+	}
+
+	public int getMaxStateCount() {
+		return getMaxStateCount(0);
+	}
+
+	public int getMaxStateCount(int variant) {
+		return maxStateCounts == null ? 0 : maxStateCounts[variant];
+	}
+
+	public List<CutWitness> getHardestWitnesses() {
+		return getHardestWitnesses(0);
+	}
+
+	public List<CutWitness> getHardestWitnesses(int variant) {
+		return hardestWitnesses.isEmpty() ? new ArrayList<>() : hardestWitnesses.get(variant);
+	}
+
+	public int getNumberOfVariants() {
+		return automataA.length;
+	}
+
+	public long getEvaluatedPairs() {
+		return evaluatedPairs;
+	}
+
+	public long getPrunedPairs() {
+		return prunedPairs;
+	}
+
+	public long getSymmetricPairs() {
+		return symmetricPairs;
+	}
+
+	public boolean isAlphabetSymmetry() {
+		return alphabetSymmetry;
+	}
+
+	public void setAlphabetSymmetry(boolean alphabetSymmetry) {
+		this.alphabetSymmetry = alphabetSymmetry;
+	}
+
+	/**
+	 * Returns the number of pairs of a single variant.
+	 *
+	 * @return long
+	 */
+	public long getNumberOfPairs() {
+		return (long) automataA[0].length * automataB.length;
+	}
+
+	public SweepProgressListener getProgressListener() {
+		return progressListener;
+	}
+
+	public void setProgressListener(SweepProgressListener progressListener) {
+		this.progressListener = progressListener;
+	}
+
+}
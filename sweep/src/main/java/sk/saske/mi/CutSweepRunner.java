@@ -0,0 +1,590 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ *
+ * Command-line runner of cut sweeps over the automata lists of
+ * structuredAutomataLists, writing the histograms (.csv) and the hardest
+ * witnesses in the layout of cutOperationComputations:
+ *
+ * {output}/{variant}/{X}x{Y}/{n}_{X}x{m}_{Y}.csv
+ *
+ * {output}/AcutB/{X}x{Y}/{n}_{X}x{m}_{Y}hardestWitnesses.txt
+ *
+ * {output}/HomomorphicAcutB/{X}x{Y}/{n}_{X}{m}_{Y}hardestWitnesses.txt
+ *
+ * The published AcutB results were computed with the first two symbols of A
+ * swapped before the cut and the HomomorphicAcutB results without any mapping
+ * (the other way round than the directory names suggest); the runner follows
+ * the published files, so that they are reproduced exactly. All requested
+ * variants of a pair of lists are computed by one combined sweep. In the
+ * max-only mode (see CutSweep.computeHardestWitnesses) only the hardest
+ * witness files are written, the histograms are skipped.
+ *
+ * Usage: see USAGE.
+ *
+ */
+public class CutSweepRunner {
+
+	// output variants
+	public static final String ACUTB = "AcutB";
+	public static final String HOMOMORPHIC_ACUTB = "HomomorphicAcutB";
+
+	public static final String USAGE = "Usage: CutSweepRunner [options]\n"
+			+ "  --first X,Y,...     subclasses of the first operand (default LID,SC,SF, 'all' for every subclass)\n"
+			+ "  --second X,Y,...    subclasses of the second operand (default all)\n"
+			+ "  --states n-m        state counts of the first operand (default 2-5)\n"
+			+ "  --states-b n-m      state counts of the second operand (default as --states)\n"
+			+ "  --alphabet k        alphabet size (default 2)\n"
+			+ "  --variants V,...    AcutB and/or HomomorphicAcutB (default both)\n"
+			+ "  --threads t         number of worker threads (default number of processors)\n"
+			+ "  --lists dir         automata lists (default computations/structuredAutomataLists)\n"
+			+ "  --output dir        output directory (default computations/cutOperationComputations)\n"
+			+ "  --progress seconds  progress report interval (default 10, 0 disables the reports)\n"
+			+ "  --log file          append the log and the progress reports to the file (default standard error)\n"
+			+ "  --status file       write the progress as JSON to the file at every report\n"
+			+ "  --symmetry on|off   evaluate one pair per alphabet permutation orbit (default off)\n"
+			+ "  --permutations on|off  close the lists under alphabet permutations (default off)\n"
+			+ "  --max-only on|off   only search the hardest witnesses, without the histograms (single-threaded,\n"
+			+ "                      not recorded in the manifest) (default off)\n"
+			+ "  --incremental on|off|record  skip the results whose lists did not change since the last run (on),\n"
+			+ "                      or only record the existing results in the manifest (record) (default off)";
+
+	private List<String> firstSubclasses = Arrays.asList("LID", "SC", "SF");
+	private List<String> secondSubclasses = Arrays.asList(ConvexSubclassTester.SUBCLASSES);
+	private int minStatesA = 2;
+	private int maxStatesA = 5;
+	private int minStatesB = -1;
+	private int maxStatesB = -1;
+	private int alphabetSize = 2;
+	private List<String> variants = Arrays.asList(ACUTB, HOMOMORPHIC_ACUTB);
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private Path listsDirectory = Paths.get("computations", "structuredAutomataLists");
+	private Path outputDirectory = Paths.get("computations", "cutOperationComputations");
+	private long progressIntervalMillis = ProgressReporter.DEFAULT_INTERVAL_MILLIS;
+	private boolean alphabetSymmetry;
+	private boolean closeUnderPermutations;
+	private boolean maxOnly;
+	private String incremental = "off";
+	private Path logFile;
+	private Path statusFile;
+	private PrintStream log = System.err;
+
+	// already read automata lists and their content hashes
+	private Map<String, List<String>> lists = new HashMap<>();
+	private Map<String, String> listHashes = new HashMap<>();
+
+	public static void main(String[] args) {
+		if (Arrays.asList(args).contains("--help")) {
+			System.out.println(USAGE);
+			return;
+		}
+
+		CutSweepRunner runner = new CutSweepRunner();
+		try {
+			runner.parseArguments(args);
+		} catch (RuntimeException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+
+		try {
+			runner.run();
+		} catch (IOException | RuntimeException e) {
+			System.err.println("Cut sweep failed: " + e);
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Parses the command-line options (see USAGE) into this runner.
+	 *
+	 * @param args
+	 * @return this runner
+	 */
+	public CutSweepRunner parseArguments(String[] args) {
+		for (int i = 0; i < args.length; i++) {
+			String option = args[i];
+			if (i + 1 >= args.length)
+				throw new RuntimeException("Missing value of option " + option + ".");
+			String value = args[++i];
+
+			switch (option) {
+			case "--first":
+				firstSubclasses = parseSubclasses(value);
+				break;
+			case "--second":
+				secondSubclasses = parseSubclasses(value);
+				break;
+			case "--states":
+				minStatesA = parseRange(value)[0];
+				maxStatesA = parseRange(value)[1];
+				break;
+			case "--states-b":
+				minStatesB = parseRange(value)[0];
+				maxStatesB = parseRange(value)[1];
+				break;
+			case "--alphabet":
+				alphabetSize = parsePositive(option, value);
+				break;
+			case "--variants":
+				variants = Arrays.asList(value.split(","));
+				for (String variant : variants)
+					if (!variant.equals(ACUTB) && !variant.equals(HOMOMORPHIC_ACUTB))
+						throw new RuntimeException("Unknown variant " + variant + ".");
+				break;
+			case "--threads":
+				threads = parsePositive(option, value);
+				break;
+			case "--lists":
+				listsDirectory = Paths.get(value);
+				break;
+			case "--output":
+				outputDirectory = Paths.get(value);
+				break;
+			case "--progress":
+				progressIntervalMillis = 1000L * Integer.parseInt(value);
+				break;
+			case "--log":
+				logFile = Paths.get(value);
+				break;
+			case "--status":
+				statusFile = Paths.get(value);
+				break;
+			case "--symmetry":
+				alphabetSymmetry = parseSwitch(option, value);
+				break;
+			case "--permutations":
+				closeUnderPermutations = parseSwitch(option, value);
+				break;
+			case "--max-only":
+				maxOnly = parseSwitch(option, value);
+				break;
+			case "--incremental":
+				if (!value.equals("on") && !value.equals("off") && !value.equals("record"))
+					throw new RuntimeException("Invalid value " + value + " of " + option + ".");
+				incremental = value;
+				break;
+			default:
+				throw new RuntimeException("Unknown option " + option + ".");
+			}
+		}
+		if (maxOnly && !incremental.equals("off"))
+			throw new RuntimeException("The max-only mode writes no histograms, it cannot be incremental.");
+		return this;
+	}
+
+	/**
+	 * Runs the sweeps of every subclass pair, state count pair and variant and
+	 * writes their results. Every written result is recorded in the manifest of
+	 * the output directory (see SweepManifest); in the incremental mode the
+	 * results recorded with the present lists and options are skipped.
+	 *
+	 * @throws IOException
+	 */
+	public void run() throws IOException {
+		if (logFile == null) {
+			runSweeps();
+			return;
+		}
+		try (PrintStream fileLog = new PrintStream(
+				Files.newOutputStream(logFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND), true,
+				StandardCharsets.UTF_8)) {
+			log = fileLog;
+			runSweeps();
+		} finally {
+			log = System.err;
+		}
+	}
+
+	/**
+	 * Support method running the sweeps, see run().
+	 *
+	 * @throws IOException
+	 */
+	private void runSweeps() throws IOException {
+		int fromB = minStatesB == -1 ? minStatesA : minStatesB;
+		int toB = maxStatesB == -1 ? maxStatesA : maxStatesB;
+		SweepManifest manifest = new SweepManifest(outputDirectory);
+
+		// variants to compute per subclass and state count pair
+		Map<String, List<Integer>> pending = new HashMap<>();
+		long totalPairs = 0;
+		int skipped = 0;
+		int totalCells = 0;
+		for (String first : firstSubclasses)
+			for (String second : secondSubclasses)
+				for (int n = minStatesA; n <= maxStatesA; n++)
+					for (int m = fromB; m <= toB; m++) {
+						List<Integer> stale = new ArrayList<>();
+						for (int variant = 0; variant < variants.size(); variant++) {
+							if (isCurrent(manifest, variants.get(variant), first, n, second, m))
+								skipped++;
+							else
+								stale.add(variant);
+						}
+						pending.put(first + n + "x" + second + m, stale);
+						if (!stale.isEmpty())
+							totalCells++;
+						totalPairs += (long) stale.size() * readList(first, n).size() * readList(second, m).size();
+					}
+		if (incremental.equals("record")) {
+			manifest.save();
+			log.println(manifest.size() + " results recorded in the manifest");
+			return;
+		}
+		if (skipped > 0)
+			log.println(skipped + " results are up to date");
+		ProgressReporter reporter = progressIntervalMillis > 0
+				? new ProgressReporter(totalPairs, log, progressIntervalMillis)
+				: null;
+		if (reporter != null) {
+			reporter.setTotalCells(totalCells);
+			reporter.setStatusFile(statusFile);
+			reporter.start();
+		}
+
+		for (String first : firstSubclasses)
+			for (String second : secondSubclasses)
+				for (int n = minStatesA; n <= maxStatesA; n++)
+					for (int m = fromB; m <= toB; m++) {
+						List<Integer> stale = pending.get(first + n + "x" + second + m);
+						if (stale.isEmpty())
+							continue;
+						int[][] mappings = new int[stale.size()][];
+						List<String> staleVariants = new ArrayList<>();
+						for (int i = 0; i < mappings.length; i++) {
+							mappings[i] = alphabetMapping(variants.get(stale.get(i)), alphabetSize);
+							staleVariants.add(variants.get(stale.get(i)));
+						}
+						String cell = n + "_" + first + "x" + m + "_" + second;
+
+						// all variants are evaluated in a single combined pass
+						CutSweep sweep = new CutSweep(readList(first, n), readList(second, m), alphabetSize,
+								mappings);
+						sweep.setProgressListener(reporter);
+						if (reporter != null)
+							reporter.cellStarted(cell, staleVariants, mappings.length * sweep.getNumberOfPairs());
+						sweep.setAlphabetSymmetry(alphabetSymmetry);
+						if (maxOnly)
+							sweep.computeHardestWitnesses();
+						else
+							sweep.computeHistogram(threads);
+						for (int i = 0; i < mappings.length; i++) {
+							String variant = variants.get(stale.get(i));
+							if (maxOnly) {
+								writeWitnesses(sweep, i, variant, first, n, second, m);
+							} else {
+								writeResults(sweep, i, variant, first, n, second, m);
+								manifest.record(SweepManifest.cell(variant, first, n, second, m),
+										inputs(first, n, second, m), histogramFile(outputDirectory, variant, first,
+												n, second, m),
+										witnessFile(outputDirectory, variant, first, n, second, m));
+							}
+							log.println(variant + " " + cell + ": " + sweep.getMaxStateCount(i) + " states, "
+									+ sweep.getHardestWitnesses(i).size() + " hardest witnesses");
+						}
+						// saved after every pair, so an interrupted run keeps its results
+						if (!maxOnly)
+							manifest.save();
+						if (reporter != null)
+							reporter.cellCompleted(cell);
+					}
+
+		if (reporter != null)
+			reporter.finish();
+	}
+
+	/**
+	 * Support method checking the manifest record of a result. In the record
+	 * mode existing results are recorded as current.
+	 *
+	 * @param manifest
+	 * @param variant
+	 * @param first
+	 * @param n
+	 * @param second
+	 * @param m
+	 * @return whether the result does not need to be computed
+	 * @throws IOException
+	 */
+	private boolean isCurrent(SweepManifest manifest, String variant, String first, int n, String second, int m)
+			throws IOException {
+		String cell = SweepManifest.cell(variant, first, n, second, m);
+		Path histogramFile = histogramFile(outputDirectory, variant, first, n, second, m);
+		Path witnessFile = witnessFile(outputDirectory, variant, first, n, second, m);
+		if (incremental.equals("record")) {
+			if (!Files.isRegularFile(histogramFile) || !Files.isRegularFile(witnessFile))
+				return false;
+			manifest.record(cell, inputs(first, n, second, m), histogramFile, witnessFile);
+			return true;
+		}
+		return incremental.equals("on")
+				&& manifest.isCurrent(cell, inputs(first, n, second, m), histogramFile, witnessFile);
+	}
+
+	/**
+	 * Support method returning the manifest inputs of a result.
+	 *
+	 * @param first
+	 * @param n
+	 * @param second
+	 * @param m
+	 * @return String
+	 * @throws IOException
+	 */
+	private String inputs(String first, int n, String second, int m) throws IOException {
+		String options = "k=" + alphabetSize + ",permutations=" + (closeUnderPermutations ? "on" : "off");
+		return SweepManifest.inputs(CutSweep.RESULT_VERSION, options, listHash(first, n), listHash(second, m));
+	}
+
+	/**
+	 * Writes the histogram and the hardest witnesses of a variant of a finished
+	 * sweep.
+	 *
+	 * @param sweep
+	 * @param variantIndex - index of the variant in the sweep
+	 * @param variant      - name of the variant
+	 * @param first
+	 * @param n
+	 * @param second
+	 * @param m
+	 * @throws IOException
+	 */
+	public void writeResults(CutSweep sweep, int variantIndex, String variant, String first, int n, String second,
+			int m) throws IOException {
+		Path histogramFile = histogramFile(outputDirectory, variant, first, n, second, m);
+		Files.createDirectories(histogramFile.getParent());
+		sweep.getCutHistogram(variantIndex).writeCsv(histogramFile);
+		writeWitnesses(sweep, variantIndex, variant, first, n, second, m);
+	}
+
+	/**
+	 * Writes the hardest witnesses of a variant of a finished sweep (of either
+	 * mode).
+	 *
+	 * @param sweep
+	 * @param variantIndex - index of the variant in the sweep
+	 * @param variant      - name of the variant
+	 * @param first
+	 * @param n
+	 * @param second
+	 * @param m
+	 * @throws IOException
+	 */
+	public void writeWitnesses(CutSweep sweep, int variantIndex, String variant, String first, int n,
+			String second, int m) throws IOException {
+		Path witnessFile = witnessFile(outputDirectory, variant, first, n, second, m);
+		Files.createDirectories(witnessFile.getParent());
+		try (Writer writer = Files.newBufferedWriter(witnessFile, StandardCharsets.UTF_8)) {
+			for (CutWitness witness : sweep.getHardestWitnesses(variantIndex))
+				writer.write(witness + "\n");
+		}
+	}
+
+	/**
+	 * Returns the symbol mapping applied to the first operands of the given
+	 * variant, null for none.
+	 *
+	 * @param variant
+	 * @param alphabetSize
+	 * @return int[]
+	 */
+	public static int[] alphabetMapping(String variant, int alphabetSize) {
+		if (!variant.equals(ACUTB) || alphabetSize < 2)
+			return null;
+		int[] mapping = new int[alphabetSize];
+		for (int symbol = 0; symbol < alphabetSize; symbol++)
+			mapping[symbol] = symbol;
+		mapping[0] = 1;
+		mapping[1] = 0;
+		return mapping;
+	}
+
+	/**
+	 * Returns the path of the histogram file of the given sweep.
+	 *
+	 * @param outputDirectory
+	 * @param variant
+	 * @param first
+	 * @param n
+	 * @param second
+	 * @param m
+	 * @return Path
+	 */
+	public static Path histogramFile(Path outputDirectory, String variant, String first, int n, String second,
+			int m) {
+		return outputDirectory.resolve(variant).resolve(first + "x" + second)
+				.resolve(n + "_" + first + "x" + m + "_" + second + ".csv");
+	}
+
+	/**
+	 * Returns the path of the hardest witnesses file of the given sweep.
+	 *
+	 * @param outputDirectory
+	 * @param variant
+	 * @param first
+	 * @param n
+	 * @param second
+	 * @param m
+	 * @return Path
+	 */
+	public static Path witnessFile(Path outputDirectory, String variant, String first, int n, String second, int m) {
+		String separator = variant.equals(ACUTB) ? "x" : "";
+		return outputDirectory.resolve(variant).resolve(first + "x" + second)
+				.resolve(n + "_" + first + separator + m + "_" + second + "hardestWitnesses.txt");
+	}
+
+	/**
+	 * Support method returning the content hash of the list file of the given
+	 * subclass and state count.
+	 *
+	 * @param subclass
+	 * @param numberOfStates
+	 * @return String
+	 * @throws IOException
+	 */
+	private String listHash(String subclass, int numberOfStates) throws IOException {
+		String key = subclass + numberOfStates;
+		String hash = listHashes.get(key);
+		if (hash == null) {
+			hash = ContentHash.of(listFile(subclass, numberOfStates));
+			listHashes.put(key, hash);
+		}
+		return hash;
+	}
+
+	/**
+	 * Support method returning the list file of the given subclass and state
+	 * count.
+	 *
+	 * @param subclass
+	 * @param numberOfStates
+	 * @return Path
+	 */
+	private Path listFile(String subclass, int numberOfStates) {
+		Path file = listsDirectory.resolve("numOfStates" + numberOfStates)
+				.resolve(subclass + numberOfStates + ".txt");
+		if (!Files.isRegularFile(file))
+			throw new RuntimeException("Missing automata list " + file + ".");
+		return file;
+	}
+
+	/**
+	 * Support method returning the list of automaton encodings of the given
+	 * subclass and state count.
+	 *
+	 * @param subclass
+	 * @param numberOfStates
+	 * @return list of encodings
+	 * @throws IOException
+	 */
+	private List<String> readList(String subclass, int numberOfStates) throws IOException {
+		String key = subclass + numberOfStates;
+		List<String> codes = lists.get(key);
+		if (codes != null)
+			return codes;
+
+		Path file = listFile(subclass, numberOfStates);
+		codes = new ArrayList<>();
+		for (String line : Files.readAllLines(file, StandardCharsets.UTF_8))
+			if (!line.trim().isEmpty())
+				codes.add(line.trim());
+		if (closeUnderPermutations)
+			codes = AlphabetSymmetry.closeUnderPermutations(codes, numberOfStates, alphabetSize);
+		lists.put(key, codes);
+		return codes;
+	}
+
+	/**
+	 * Support method parsing a comma-separated list of subclasses.
+	 *
+	 * @param value
+	 * @return list of subclasses
+	 */
+	private static List<String> parseSubclasses(String value) {
+		if (value.equals("all"))
+			return Arrays.asList(ConvexSubclassTester.SUBCLASSES);
+		return Arrays.asList(value.split(","));
+	}
+
+	/**
+	 * Support method parsing a state count range "n-m" or a single state count.
+	 *
+	 * @param value
+	 * @return int[] {from, to}
+	 */
+	static int[] parseRange(String value) {
+		String[] bounds = value.split("-");
+		int from = parsePositive("state count", bounds[0]);
+		int to = bounds.length > 1 ? parsePositive("state count", bounds[1]) : from;
+		if (bounds.length > 2 || to < from)
+			throw new RuntimeException("Invalid state count range " + value + ".");
+		return new int[] { from, to };
+	}
+
+	/**
+	 * Support method parsing an on/off option value.
+	 *
+	 * @param option
+	 * @param value
+	 * @return boolean
+	 */
+	private static boolean parseSwitch(String option, String value) {
+		if (value.equals("on"))
+			return true;
+		if (value.equals("off"))
+			return false;
+		throw new RuntimeException("Invalid value " + value + " of " + option + " (on or off expected).");
+	}
+
+	/**
+	 * Support method parsing a positive integer option value.
+	 *
+	 * @param option
+	 * @param value
+	 * @return int
+	 */
+	private static int parsePositive(String option, String value) {
+		int result;
+		try {
+			result = Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new RuntimeException("Invalid value " + value + " of " + option + ".");
+		}
+		if (result < 1)
+			throw new RuntimeException("Invalid value " + value + " of " + option + ".");
+		return result;
+	}
+
+}
@@ -0,0 +1,510 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ *
+ * Generator of the cutConvexTables.html overview from the histogram files in
+ * cutOperationComputations. Every table shows the general complexity of a
+ * subclass pair given by the configuration (see readConfiguration and
+ * cutConvexTables.config) and the maxima of the "Without hm"
+ * (HomomorphicAcutB, the plain cut) and "With hm" (AcutB, the first operand
+ * with swapped symbols) sweeps for the binary lists. Cells of the general
+ * complexity not given by the formula are yellow, maxima below the general
+ * complexity are red.
+ *
+ * The maxima are read incrementally: a cache records the size, modification
+ * time, content hash and maximum of every histogram file, and a file is parsed
+ * again only if its content hash changed.
+ *
+ */
+public class CutTableReport {
+
+	public static final String YELLOW = "#FFFFDD";
+	public static final String RED = "#EECCCC";
+
+	// names of the subclasses in the table headers
+	private static final Map<String, String> NAMES = new HashMap<>();
+	static {
+		String[] names = { "left ideal", "right ideal", "two-sided ideal", "all-sided ideal", "prefix-free",
+				"suffix-free", "factor-free", "subword-free", "prefix-closed", "suffix-closed", "factor-closed",
+				"subword-closed" };
+		String[] subclasses = { "LID", "RID", "TSID", "ASID", "PF", "SF", "FF", "SwF", "PC", "SC", "FC", "SwC" };
+		for (int i = 0; i < names.length; i++)
+			NAMES.put(subclasses[i], names[i]);
+	}
+
+	// number of tables in one row of a section
+	private static final int TABLES_PER_ROW = 4;
+
+	private Path computationsDirectory;
+	private List<Table> tables;
+	private int minStates;
+	private int maxStates;
+
+	// histogram maxima by file path relative to computationsDirectory
+	private Map<String, CacheEntry> cache = new TreeMap<>();
+	private int parsedFiles;
+	private int cachedFiles;
+
+	/**
+	 *
+	 * Configuration of one table.
+	 *
+	 */
+	public static class Table {
+
+		private final String first;
+		private final String second;
+		private final ComplexityFormula formula;
+		private final String note;
+		private final List<Deviation> deviations;
+
+		Table(String first, String second, ComplexityFormula formula, String note, List<Deviation> deviations) {
+			this.first = first;
+			this.second = second;
+			this.formula = formula;
+			this.note = note;
+			this.deviations = deviations;
+		}
+
+		/**
+		 * Returns the general complexity for m states of K and n states of L.
+		 *
+		 * @param m
+		 * @param n
+		 * @return long
+		 */
+		public long generalComplexity(int m, int n) {
+			Deviation deviation = deviation(m, n);
+			return deviation != null ? deviation.value.evaluate(m, n) : formula.evaluate(m, n);
+		}
+
+		/**
+		 * Returns whether the general complexity deviates from the formula.
+		 *
+		 * @param m
+		 * @param n
+		 * @return boolean
+		 */
+		public boolean isDeviation(int m, int n) {
+			return deviation(m, n) != null;
+		}
+
+		private Deviation deviation(int m, int n) {
+			for (Deviation deviation : deviations)
+				if (deviation.contains(m, n))
+					return deviation;
+			return null;
+		}
+
+		/**
+		 * Getters.
+		 */
+
+		public String getFirst() {
+			return first;
+		}
+
+		public String getSecond() {
+			return second;
+		}
+
+		public ComplexityFormula getFormula() {
+			return formula;
+		}
+
+		public String getNote() {
+			return note;
+		}
+
+	}
+
+	/**
+	 *
+	 * Cells of a table whose general complexity is not given by the formula.
+	 *
+	 */
+	private static class Deviation {
+
+		private final int fromM;
+		private final int toM;
+		private final int fromN;
+		private final int toN;
+		private final ComplexityFormula value;
+
+		Deviation(int[] rangeM, int[] rangeN, ComplexityFormula value) {
+			this.fromM = rangeM[0];
+			this.toM = rangeM[1];
+			this.fromN = rangeN[0];
+			this.toN = rangeN[1];
+			this.value = value;
+		}
+
+		boolean contains(int m, int n) {
+			return fromM <= m && m <= toM && fromN <= n && n <= toN;
+		}
+
+	}
+
+	/**
+	 *
+	 * Cached maximum of a histogram file.
+	 *
+	 */
+	private static class CacheEntry {
+
+		private final long size;
+		private final long lastModified;
+		private final String hash;
+		private final int maximum;
+
+		CacheEntry(long size, long lastModified, String hash, int maximum) {
+			this.size = size;
+			this.lastModified = lastModified;
+			this.hash = hash;
+			this.maximum = maximum;
+		}
+
+	}
+
+	/**
+	 * Constructor for the report.
+	 *
+	 * @param computationsDirectory - directory containing the AcutB and
+	 *                              HomomorphicAcutB directories
+	 * @param tables                - see readConfiguration
+	 * @param minStates             - smallest state count of the sweeps
+	 * @param maxStates             - largest state count of the sweeps
+	 */
+	public CutTableReport(Path computationsDirectory, List<Table> tables, int minStates, int maxStates) {
+		this.computationsDirectory = computationsDirectory;
+		this.tables = tables;
+		this.minStates = minStates;
+		this.maxStates = maxStates;
+	}
+
+	/**
+	 * Reads the table configuration. Every non-empty line not starting with #
+	 * describes one table as "K L | formula | note | exceptions", where the
+	 * exceptions are space-separated "rows,columns=value" entries; rows and
+	 * columns are a state count, a range "a-b" or an open range "a-*" and the
+	 * value is a formula.
+	 *
+	 * @param file
+	 * @return list of tables
+	 * @throws IOException
+	 */
+	public static List<Table> readConfiguration(Path file) throws IOException {
+		List<Table> tables = new ArrayList<>();
+		for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#"))
+				continue;
+			String[] fields = line.split("\\|", -1);
+			String[] pair = fields[0].trim().split("\\s+");
+			if (fields.length < 2 || pair.length != 2 || !NAMES.containsKey(pair[0]) || !NAMES.containsKey(pair[1]))
+				throw new RuntimeException("Invalid table configuration " + line + ".");
+
+			List<Deviation> deviations = new ArrayList<>();
+			if (fields.length > 3) {
+				for (String exception : fields[3].trim().split("\\s+")) {
+					if (exception.isEmpty())
+						continue;
+					int comma = exception.indexOf(',');
+					int equals = exception.indexOf('=');
+					if (comma < 0 || equals < comma)
+						throw new RuntimeException("Invalid exception " + exception + " in " + line + ".");
+					deviations.add(new Deviation(parseRange(exception.substring(0, comma)),
+							parseRange(exception.substring(comma + 1, equals)),
+							new ComplexityFormula(exception.substring(equals + 1))));
+				}
+			}
+			tables.add(new Table(pair[0], pair[1], new ComplexityFormula(fields[1].trim()),
+					fields.length > 2 ? fields[2].trim() : "", deviations));
+		}
+		return tables;
+	}
+
+	/**
+	 * Support method parsing a state count, a range "a-b" or an open range
+	 * "a-*".
+	 *
+	 * @param value
+	 * @return int[] {from, to}
+	 */
+	private static int[] parseRange(String value) {
+		String[] bounds = value.split("-");
+		try {
+			int from = Integer.parseInt(bounds[0]);
+			int to = bounds.length == 1 ? from
+					: bounds[1].equals("*") ? Integer.MAX_VALUE : Integer.parseInt(bounds[1]);
+			if (bounds.length > 2)
+				throw new NumberFormatException();
+			return new int[] { from, to };
+		} catch (NumberFormatException e) {
+			throw new RuntimeException("Invalid state count range " + value + ".");
+		}
+	}
+
+	/**
+	 * Loads the cache of histogram maxima, if the file exists.
+	 *
+	 * @param file
+	 * @throws IOException
+	 */
+	public void loadCache(Path file) throws IOException {
+		if (!Files.isRegularFile(file))
+			return;
+		for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+			String[] fields = line.split("\t");
+			if (fields.length != 5)
+				continue;
+			cache.put(fields[0], new CacheEntry(Long.parseLong(fields[1]), Long.parseLong(fields[2]), fields[3],
+					Integer.parseInt(fields[4])));
+		}
+	}
+
+	/**
+	 * Saves the cache of histogram maxima.
+	 *
+	 * @param file
+	 * @throws IOException
+	 */
+	public void saveCache(Path file) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		for (Map.Entry<String, CacheEntry> entry : cache.entrySet()) {
+			CacheEntry cached = entry.getValue();
+			sb.append(entry.getKey()).append('\t').append(cached.size).append('\t').append(cached.lastModified)
+					.append('\t').append(cached.hash).append('\t').append(cached.maximum).append('\n');
+		}
+		Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Returns the largest state count of the minimal cut automata of the given
+	 * sweep, or -1 if its histogram file does not exist.
+	 *
+	 * @param variant - AcutB or HomomorphicAcutB
+	 * @param first
+	 * @param n       - number of states of the first operand
+	 * @param second
+	 * @param m       - number of states of the second operand
+	 * @return int
+	 * @throws IOException
+	 */
+	public int maximum(String variant, String first, int n, String second, int m) throws IOException {
+		Path file = CutSweepRunner.histogramFile(computationsDirectory, variant, first, n, second, m);
+		if (!Files.isRegularFile(file))
+			return -1;
+		String key = computationsDirectory.relativize(file).toString().replace('\\', '/');
+		long size = Files.size(file);
+		long lastModified = Files.getLastModifiedTime(file).toMillis();
+
+		CacheEntry cached = cache.get(key);
+		if (cached != null && cached.size == size && cached.lastModified == lastModified) {
+			cachedFiles++;
+			return cached.maximum;
+		}
+		byte[] content = Files.readAllBytes(file);
+		String hash = ContentHash.of(content);
+		if (cached != null && cached.hash.equals(hash)) {
+			cachedFiles++;
+			cache.put(key, new CacheEntry(size, lastModified, hash, cached.maximum));
+			return cached.maximum;
+		}
+
+		parsedFiles++;
+		String[] counts = new String(content, StandardCharsets.UTF_8).trim().split(",");
+		int maximum = 0;
+		for (int i = 0; i < counts.length; i++)
+			if (Long.parseLong(counts[i].trim()) != 0)
+				maximum = i + 1;
+		cache.put(key, new CacheEntry(size, lastModified, hash, maximum));
+		return maximum;
+	}
+
+	/**
+	 * Returns the HTML overview.
+	 *
+	 * @return String
+	 * @throws IOException
+	 */
+	public String toHtml() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		sb.append("<html>\n<body>\n\n");
+		sb.append("Meaning of colors:<br>\n");
+		sb.append("Yellow = general complexity deviates from the formula.<br>\n");
+		sb.append("Red = hardest witnesses from binary one-column lists do not reach general complexity.\n");
+		sb.append("<br>\"hm\" = homomorphism<br>\n");
+		sb.append("\"With hm\" is bold iff \"Without hm\" does not reach general complexity for (" + maxStates + ","
+				+ maxStates + ").\n");
+
+		Map<String, List<Table>> sections = new LinkedHashMap<>();
+		for (Table table : tables)
+			sections.computeIfAbsent(table.first, first -> new ArrayList<>()).add(table);
+
+		for (Map.Entry<String, List<Table>> section : sections.entrySet()) {
+			sb.append("\n<h2>K ").append(NAMES.get(section.getKey())).append("</h2>\n\n<TABLE>\n");
+			List<Table> sectionTables = section.getValue();
+			for (int i = 0; i < sectionTables.size(); i++) {
+				if (i % TABLES_PER_ROW == 0)
+					sb.append("<TR>\n");
+				appendTable(sb, sectionTables.get(i));
+				if (i % TABLES_PER_ROW == TABLES_PER_ROW - 1 || i == sectionTables.size() - 1)
+					sb.append("</TR>\n");
+			}
+			sb.append("</TABLE>\n");
+		}
+		sb.append("\n</body>\n</html>\n");
+		return sb.toString();
+	}
+
+	/**
+	 * Writes the HTML overview with the CRLF line endings of the published
+	 * cutConvexTables.html.
+	 *
+	 * @param file
+	 * @throws IOException
+	 */
+	public void writeHtml(Path file) throws IOException {
+		Files.write(file, toHtml().replace("\n", "\r\n").getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Support method appending the general complexity and the sweep maxima of
+	 * one subclass pair.
+	 *
+	 * @param sb
+	 * @param table
+	 * @throws IOException
+	 */
+	private void appendTable(StringBuilder sb, Table table) throws IOException {
+		sb.append("<TD>\n<b>K ").append(NAMES.get(table.first)).append(", L ").append(NAMES.get(table.second))
+				.append(":<br> ").append(table.formula);
+		if (!table.note.isEmpty())
+			sb.append(' ').append(table.note);
+		sb.append("</b>\n<table>\n  <tr>\n");
+
+		long[][] general = new long[maxStates + 1][maxStates + 1];
+		String[][] generalColors = new String[maxStates + 1][maxStates + 1];
+		for (int m = 1; m <= maxStates; m++) {
+			for (int n = 1; n <= maxStates; n++) {
+				general[m][n] = table.generalComplexity(m, n);
+				generalColors[m][n] = table.isDeviation(m, n) ? YELLOW : null;
+			}
+		}
+		appendGrid(sb, "General&nbsp;complexity", 1, general, generalColors);
+
+		long[][] without = maxima(table, CutSweepRunner.HOMOMORPHIC_ACUTB);
+		long[][] with = maxima(table, CutSweepRunner.ACUTB);
+		appendGrid(sb, "Without hm", minStates, without, redCells(without, general));
+		boolean bold = without[maxStates][maxStates] < general[maxStates][maxStates];
+		appendGrid(sb, bold ? "<b>With hm</b>" : "With hm", minStates, with, redCells(with, general));
+
+		sb.append("  </tr>\n</table>\n</TD>\n");
+	}
+
+	/**
+	 * Support method returning the sweep maxima of a subclass pair, -1 for
+	 * missing histogram files.
+	 *
+	 * @param table
+	 * @param variant
+	 * @return long[m][n]
+	 * @throws IOException
+	 */
+	private long[][] maxima(Table table, String variant) throws IOException {
+		long[][] maxima = new long[maxStates + 1][maxStates + 1];
+		for (int m = minStates; m <= maxStates; m++)
+			for (int n = minStates; n <= maxStates; n++)
+				maxima[m][n] = maximum(variant, table.first, m, table.second, n);
+		return maxima;
+	}
+
+	/**
+	 * Support method coloring the maxima below the general complexity.
+	 *
+	 * @param maxima
+	 * @param general
+	 * @return colors
+	 */
+	private String[][] redCells(long[][] maxima, long[][] general) {
+		String[][] colors = new String[maxStates + 1][maxStates + 1];
+		for (int m = minStates; m <= maxStates; m++)
+			for (int n = minStates; n <= maxStates; n++)
+				if (maxima[m][n] >= 0 && maxima[m][n] < general[m][n])
+					colors[m][n] = RED;
+		return colors;
+	}
+
+	/**
+	 * Support method appending one grid of values.
+	 *
+	 * @param sb
+	 * @param title
+	 * @param from   - smallest state count of the rows and columns
+	 * @param values
+	 * @param colors - background colors, null for none
+	 */
+	private void appendGrid(StringBuilder sb, String title, int from, long[][] values, String[][] colors) {
+		sb.append("    <td>\n      <table cellspacing=\"0\" border=\"1\">\n        <tr>\n");
+		sb.append("          <td colspan=\"").append(maxStates - from + 2).append("\">").append(title)
+				.append("</td>\n        </tr>\n");
+		sb.append("        <tr align=\"right\">\n          <th align=\"left\">K\\L</th>");
+		for (int n = from; n <= maxStates; n++)
+			sb.append("<th width=\"15\">").append(n).append("</th>");
+		sb.append("\n        </tr>\n");
+		for (int m = from; m <= maxStates; m++) {
+			sb.append("        <tr align=\"right\">\n          <th align=\"left\">").append(m).append("</th>");
+			for (int n = from; n <= maxStates; n++) {
+				sb.append(colors[m][n] != null ? "<td bgcolor=\"" + colors[m][n] + "\">" : "<td>");
+				sb.append(values[m][n] >= 0 ? String.valueOf(values[m][n]) : "-").append("</td>");
+			}
+			sb.append("\n        </tr>\n");
+		}
+		sb.append("      </table>\n    </td>\n");
+	}
+
+	/**
+	 * Getters.
+	 */
+
+	public List<Table> getTables() {
+		return tables;
+	}
+
+	public int getParsedFiles() {
+		return parsedFiles;
+	}
+
+	public int getCachedFiles() {
+		return cachedFiles;
+	}
+
+}
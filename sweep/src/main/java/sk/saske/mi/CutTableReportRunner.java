@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ *
+ * Command-line runner regenerating cutConvexTables.html (see CutTableReport).
+ * The cache of histogram maxima is kept next to the output file, so a rerun
+ * after a partial sweep only parses the changed histogram files.
+ *
+ * Usage: see USAGE.
+ *
+ */
+public class CutTableReportRunner {
+
+	public static final String USAGE = "Usage: CutTableReportRunner [options]\n"
+			+ "  --computations dir  directory with AcutB and HomomorphicAcutB (default computations/cutOperationComputations)\n"
+			+ "  --config file       table configuration (default computations/cutConvexTables.config)\n"
+			+ "  --states n-m        state counts of the sweeps (default 2-5)\n"
+			+ "  --output file       HTML file (default computations/cutConvexTables.html)\n"
+			+ "  --cache file        cache of histogram maxima (default .cutConvexTables.cache next to the output)";
+
+	private Path computations = Paths.get("computations", "cutOperationComputations");
+	private Path config = Paths.get("computations", "cutConvexTables.config");
+	private int[] states = { 2, 5 };
+	private Path output = Paths.get("computations", "cutConvexTables.html");
+	private Path cache;
+
+	public static void main(String[] args) {
+		if (Arrays.asList(args).contains("--help")) {
+			System.out.println(USAGE);
+			return;
+		}
+
+		CutTableReportRunner runner = new CutTableReportRunner();
+		try {
+			runner.parseArguments(args);
+		} catch (RuntimeException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+
+		try {
+			runner.run();
+		} catch (IOException | RuntimeException e) {
+			System.err.println("Report generation failed: " + e);
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Parses the command-line options (see USAGE) into this runner.
+	 *
+	 * @param args
+	 * @return this runner
+	 */
+	public CutTableReportRunner parseArguments(String[] args) {
+		for (int i = 0; i < args.length; i++) {
+			String option = args[i];
+			if (i + 1 >= args.length)
+				throw new RuntimeException("Missing value of option " + option + ".");
+			String value = args[++i];
+
+			switch (option) {
+			case "--computations":
+				computations = Paths.get(value);
+				break;
+			case "--config":
+				config = Paths.get(value);
+				break;
+			case "--states":
+				states = CutSweepRunner.parseRange(value);
+				break;
+			case "--output":
+				output = Paths.get(value);
+				break;
+			case "--cache":
+				cache = Paths.get(value);
+				break;
+			default:
+				throw new RuntimeException("Unknown option " + option + ".");
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Regenerates the report.
+	 *
+	 * @throws IOException
+	 */
+	public void run() throws IOException {
+		Path cacheFile = cache != null ? cache : output.resolveSibling(".cutConvexTables.cache");
+		CutTableReport report = new CutTableReport(computations, CutTableReport.readConfiguration(config),
+				states[0], states[1]);
+		report.loadCache(cacheFile);
+		report.writeHtml(output);
+		report.saveCache(cacheFile);
+		System.err.println(report.getTables().size() + " tables, " + report.getParsedFiles()
+				+ " histogram files parsed, " + report.getCachedFiles() + " cached");
+	}
+
+}
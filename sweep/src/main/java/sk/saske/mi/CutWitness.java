@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+/**
+ *
+ * A pair of input automata together with their minimal cut automaton. The
+ * string representation of a witness is the line format used in the
+ * "hardestWitnesses.txt" files:
+ *
+ * 0101ft	0111ft	1 0 1 2 1 2 fft
+ *
+ * where the first two columns are the encodings of the input automata and the
+ * third column lists the transitions of the minimal cut automaton (state by
+ * state, symbol by symbol) followed by its finality sequence.
+ *
+ */
+public class CutWitness {
+
+	// positions of the input automata in their lists
+	private int indexA;
+	private int indexB;
+	// encodings of the input automata
+	private String codeA;
+	private String codeB;
+	// minimal cut automaton of the pair
+	private SimpleDFA minimalCutAutomaton;
+
+	/**
+	 * Constructor for the cut witness.
+	 *
+	 * @param indexA
+	 * @param indexB
+	 * @param codeA
+	 * @param codeB
+	 * @param minimalCutAutomaton
+	 */
+	public CutWitness(int indexA, int indexB, String codeA, String codeB, SimpleDFA minimalCutAutomaton) {
+		this.indexA = indexA;
+		this.indexB = indexB;
+		this.codeA = codeA;
+		this.codeB = codeB;
+		this.minimalCutAutomaton = minimalCutAutomaton;
+	}
+
+	/**
+	 * Getters.
+	 */
+
+	public int getIndexA() {
+		return indexA;
+	}
+
+	public int getIndexB() {
+		return indexB;
+	}
+
+	public String getCodeA() {
+		return codeA;
+	}
+
+	public String getCodeB() {
+		return codeB;
+	}
+
+	public SimpleDFA getMinimalCutAutomaton() {
+		return minimalCutAutomaton;
+	}
+
+	public int getStateCount() {
+		return minimalCutAutomaton.getNumberOfStates();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(codeA).append('\t').append(codeB).append('\t');
+		for (int state = 0; state < minimalCutAutomaton.getNumberOfStates(); state++) {
+			for (int symbol = 0; symbol < minimalCutAutomaton.getAlphabetSize(); symbol++) {
+				sb.append(minimalCutAutomaton.getTransitionMatrix()[state][symbol]).append(' ');
+			}
+		}
+		for (boolean finality : minimalCutAutomaton.getFinalityArray()) {
+			sb.append(finality ? 't' : 'f');
+		}
+		return sb.toString();
+	}
+
+}
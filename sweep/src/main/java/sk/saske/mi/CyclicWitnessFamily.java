@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+/**
+ *
+ * Binary witness family reaching the general state complexity mn - n + m of
+ * the cut operation (m states of A, n states of B). Both automata count one of
+ * the symbols modulo their number of states and ignore the other one: A_m
+ * counts the first symbol, B_n the second one, and the last state is the only
+ * final state. Both languages are cyclic, so the family lies in none of the
+ * convex subclasses; it serves as the reference family of FamilyEvaluator.
+ *
+ */
+public class CyclicWitnessFamily implements WitnessFamily {
+
+	@Override
+	public String getName() {
+		return "cyclic";
+	}
+
+	@Override
+	public SimpleDFA getAutomatonA(int numberOfStatesA) {
+		return counter(numberOfStatesA, 0);
+	}
+
+	@Override
+	public SimpleDFA getAutomatonB(int numberOfStatesB) {
+		return counter(numberOfStatesB, 1);
+	}
+
+	@Override
+	public long getExpectedComplexity(int numberOfStatesA, int numberOfStatesB) {
+		return (long) numberOfStatesA * numberOfStatesB - numberOfStatesB + numberOfStatesA;
+	}
+
+	/**
+	 * Support method creating the binary DFA counting the given symbol modulo the
+	 * number of states, with the last state final.
+	 *
+	 * @param numberOfStates
+	 * @param countedSymbol
+	 * @return SimpleDFA
+	 */
+	private static SimpleDFA counter(int numberOfStates, int countedSymbol) {
+		int[][] transitionMatrix = new int[numberOfStates][2];
+		boolean[] finalityArray = new boolean[numberOfStates];
+		for (int state = 0; state < numberOfStates; state++) {
+			transitionMatrix[state][countedSymbol] = (state + 1) % numberOfStates;
+			transitionMatrix[state][1 - countedSymbol] = state;
+		}
+		finalityArray[numberOfStates - 1] = true;
+		return new SimpleDFA(numberOfStates, 2, transitionMatrix, finalityArray);
+	}
+
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ *
+ * Evaluator of a parametric witness family (see WitnessFamily). For every
+ * requested pair of state counts it builds A_m and B_n, minimizes their cut
+ * automaton (with HopcroftMinimizer unless another DFAMinimizer is set) and
+ * compares the measured state count with the expected one. The minimal sizes
+ * of A_m and B_n are reported as well, so a family whose members are not
+ * minimal is noticed. Cut automata of families with hundreds of states (tens
+ * of thousands of cut states) take milliseconds.
+ *
+ */
+public class FamilyEvaluator {
+
+	private WitnessFamily family;
+	private DFAMinimizer minimizer = new HopcroftMinimizer();
+
+	// evaluated rows in evaluation order
+	private List<Row> rows = new ArrayList<>();
+
+	/**
+	 *
+	 * Result of the evaluation of one pair (A_m, B_n).
+	 *
+	 */
+	public static class Row {
+
+		private final int numberOfStatesA;
+		private final int numberOfStatesB;
+		// number of states of the minimal DFAs of A_m and B_n
+		private final int minimalStatesA;
+		private final int minimalStatesB;
+		private final long measured;
+		private final long expected;
+		private final long elapsedNanos;
+
+		Row(int numberOfStatesA, int numberOfStatesB, int minimalStatesA, int minimalStatesB, long measured,
+				long expected, long elapsedNanos) {
+			this.numberOfStatesA = numberOfStatesA;
+			this.numberOfStatesB = numberOfStatesB;
+			this.minimalStatesA = minimalStatesA;
+			this.minimalStatesB = minimalStatesB;
+			this.measured = measured;
+			this.expected = expected;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		/**
+		 * Returns whether A_m and B_n are minimal with the requested state counts
+		 * and their cut reaches the expected complexity.
+		 *
+		 * @return boolean
+		 */
+		public boolean matches() {
+			return minimalStatesA == numberOfStatesA && minimalStatesB == numberOfStatesB && measured == expected;
+		}
+
+		/**
+		 * Getters.
+		 */
+
+		public int getNumberOfStatesA() {
+			return numberOfStatesA;
+		}
+
+		public int getNumberOfStatesB() {
+			return numberOfStatesB;
+		}
+
+		public int getMinimalStatesA() {
+			return minimalStatesA;
+		}
+
+		public int getMinimalStatesB() {
+			return minimalStatesB;
+		}
+
+		public long getMeasured() {
+			return measured;
+		}
+
+		public long getExpected() {
+			return expected;
+		}
+
+		public long getElapsedNanos() {
+			return elapsedNanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format(Locale.ROOT, "%d,%d,%d,%d,%d,%d,%s,%.3f", numberOfStatesA, numberOfStatesB,
+					minimalStatesA, minimalStatesB, measured, expected, matches() ? "yes" : "no",
+					elapsedNanos / 1e6);
+		}
+
+	}
+
+	/**
+	 * Constructor for the evaluator.
+	 *
+	 * @param family
+	 */
+	public FamilyEvaluator(WitnessFamily family) {
+		this.family = family;
+	}
+
+	/**
+	 * Evaluates every combination of the given state counts of A and B.
+	 *
+	 * @param statesA
+	 * @param statesB
+	 * @return number of rows that do not match the expected complexity
+	 */
+	public int evaluate(int[] statesA, int[] statesB) {
+		int mismatches = 0;
+		for (int m : statesA) {
+			SimpleDFA a = family.getAutomatonA(m);
+			int minimalStatesA = minimizer.countMinimalStates(a);
+			for (int n : statesB) {
+				Row row = evaluate(a, minimalStatesA, m, n);
+				rows.add(row);
+				if (!row.matches())
+					mismatches++;
+			}
+		}
+		return mismatches;
+	}
+
+	/**
+	 * Support method evaluating a single pair.
+	 *
+	 * @param a
+	 * @param minimalStatesA
+	 * @param m
+	 * @param n
+	 * @return Row
+	 */
+	private Row evaluate(SimpleDFA a, int minimalStatesA, int m, int n) {
+		SimpleDFA b = family.getAutomatonB(n);
+		int minimalStatesB = minimizer.countMinimalStates(b);
+		long start = System.nanoTime();
+		int measured = minimizer.countMinimalStates(new CutAutomaton(a, b).getAutomaton());
+		long elapsed = System.nanoTime() - start;
+		return new Row(m, n, minimalStatesA, minimalStatesB, measured,
+				family.getExpectedComplexity(m, n), elapsed);
+	}
+
+	/**
+	 * Returns the rows as a .csv table with the header
+	 * m,n,minimalA,minimalB,measured,expected,matches,millis.
+	 *
+	 * @return String
+	 */
+	public String toCsv() {
+		StringBuilder sb = new StringBuilder("m,n,minimalA,minimalB,measured,expected,matches,millis\n");
+		for (Row row : rows)
+			sb.append(row).append('\n');
+		return sb.toString();
+	}
+
+	/**
+	 * Writes the rows as a .csv table (see toCsv).
+	 *
+	 * @param file
+	 * @throws IOException
+	 */
+	public void writeCsv(Path file) throws IOException {
+		Files.write(file, toCsv().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Getters and setters.
+	 */
+
+	public WitnessFamily getFamily() {
+		return family;
+	}
+
+	public DFAMinimizer getMinimizer() {
+		return minimizer;
+	}
+
+	public void setMinimizer(DFAMinimizer minimizer) {
+		this.minimizer = minimizer;
+	}
+
+	public List<Row> getRows() {
+		return Collections.unmodifiableList(rows);
+	}
+
+}
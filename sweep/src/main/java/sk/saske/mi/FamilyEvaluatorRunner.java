@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ *
+ * Command-line runner of FamilyEvaluator. The family is given by the name of a
+ * class implementing WitnessFamily, which has to be on the class path. Prints
+ * the measured and expected complexities as a .csv table and exits with status
+ * 3 if some pair does not reach the expected complexity.
+ *
+ * Usage: see USAGE.
+ *
+ */
+public class FamilyEvaluatorRunner {
+
+	public static final String USAGE = "Usage: FamilyEvaluatorRunner [options]\n"
+			+ "  --family class      WitnessFamily implementation (default sk.saske.mi.CyclicWitnessFamily)\n"
+			+ "  --states m1-m2      state counts of the first operand (default 2-100)\n"
+			+ "  --states-b n1-n2    state counts of the second operand (default as --states)\n"
+			+ "  --step s            step of the state counts (default 1)\n"
+			+ "  --engine name       minimization engine: hopcroft, brzozowski (exponential worst case) or auto\n"
+			+ "                      (default hopcroft)\n"
+			+ "  --output file       .csv file of the results";
+
+	private String familyClass = CyclicWitnessFamily.class.getName();
+	private int[] rangeA = { 2, 100 };
+	private int[] rangeB;
+	private int step = 1;
+	private DFAMinimizer minimizer = new HopcroftMinimizer();
+	private Path output;
+
+	public static void main(String[] args) {
+		if (Arrays.asList(args).contains("--help")) {
+			System.out.println(USAGE);
+			return;
+		}
+
+		FamilyEvaluatorRunner runner = new FamilyEvaluatorRunner();
+		try {
+			runner.parseArguments(args);
+		} catch (RuntimeException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+
+		int mismatches = 0;
+		try {
+			mismatches = runner.run();
+		} catch (IOException | RuntimeException e) {
+			System.err.println("Family evaluation failed: " + e);
+			System.exit(1);
+		}
+		if (mismatches > 0)
+			System.exit(3);
+	}
+
+	/**
+	 * Parses the command-line options (see USAGE) into this runner.
+	 *
+	 * @param args
+	 * @return this runner
+	 */
+	public FamilyEvaluatorRunner parseArguments(String[] args) {
+		for (int i = 0; i < args.length; i++) {
+			String option = args[i];
+			if (i + 1 >= args.length)
+				throw new RuntimeException("Missing value of option " + option + ".");
+			String value = args[++i];
+
+			try {
+				switch (option) {
+				case "--family":
+					familyClass = value;
+					break;
+				case "--states":
+					rangeA = CutSweepRunner.parseRange(value);
+					break;
+				case "--states-b":
+					rangeB = CutSweepRunner.parseRange(value);
+					break;
+				case "--step":
+					step = Integer.parseInt(value);
+					if (step < 1)
+						throw new NumberFormatException();
+					break;
+				case "--engine":
+					minimizer = DFAMinimizer.forEngine(value);
+					break;
+				case "--output":
+					output = Paths.get(value);
+					break;
+				default:
+					throw new RuntimeException("Unknown option " + option + ".");
+				}
+			} catch (NumberFormatException e) {
+				throw new RuntimeException("Invalid value " + value + " of " + option + ".");
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Runs the evaluation and reports its results.
+	 *
+	 * @return number of pairs not reaching the expected complexity
+	 * @throws IOException
+	 */
+	public int run() throws IOException {
+		FamilyEvaluator evaluator = new FamilyEvaluator(createFamily(familyClass));
+		evaluator.setMinimizer(minimizer);
+		long start = System.nanoTime();
+		int mismatches = evaluator.evaluate(stateCounts(rangeA), stateCounts(rangeB == null ? rangeA : rangeB));
+		long elapsed = System.nanoTime() - start;
+
+		System.out.print(evaluator.toCsv());
+		System.err.println(evaluator.getFamily().getName() + ": " + evaluator.getRows().size() + " pairs, "
+				+ mismatches + " mismatches, " + elapsed / 1_000_000 + " ms");
+		if (output != null)
+			evaluator.writeCsv(output);
+		return mismatches;
+	}
+
+	/**
+	 * Support method instantiating the family class.
+	 *
+	 * @param className
+	 * @return WitnessFamily
+	 */
+	private static WitnessFamily createFamily(String className) {
+		try {
+			return (WitnessFamily) Class.forName(className).getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | ClassCastException e) {
+			throw new RuntimeException("Cannot instantiate witness family " + className + ".", e);
+		}
+	}
+
+	/**
+	 * Support method listing the state counts of a range with the step.
+	 *
+	 * @param range
+	 * @return int[]
+	 */
+	private int[] stateCounts(int[] range) {
+		int[] counts = new int[(range[1] - range[0]) / step + 1];
+		for (int i = 0; i < counts.length; i++)
+			counts[i] = range[0] + i * step;
+		return counts;
+	}
+
+}
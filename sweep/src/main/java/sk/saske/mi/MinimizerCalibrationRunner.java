@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ *
+ * Command-line runner of the calibration of MinimizerSelection. The samples
+ * are the automata of every list of structuredAutomataLists with the given
+ * state counts and the cut automata of randomly drawn pairs of them (the
+ * inputs the sweeps minimize), the calibrated selection is printed and written
+ * to a properties file, which SimpleDFAOperator picks up when it is in the
+ * working directory or given by the system property
+ * sk.saske.mi.minimizerSelection.
+ *
+ * Usage: see USAGE.
+ *
+ */
+public class MinimizerCalibrationRunner {
+
+	public static final String USAGE = "Usage: MinimizerCalibrationRunner [options]\n"
+			+ "  --lists dir         automata lists (default computations/structuredAutomataLists)\n"
+			+ "  --states n1-n2      state counts of the lists (default 2-5)\n"
+			+ "  --cuts c            number of sampled cut automata (default 20000)\n"
+			+ "  --repetitions r     timed repetitions of every engine (default 5)\n"
+			+ "  --seed seed         random seed of the cut samples (default 1)\n"
+			+ "  --output file       selection file (default " + MinimizerSelection.DEFAULT_FILE + ")";
+
+	private Path listsDirectory = Paths.get("computations", "structuredAutomataLists");
+	private int[] states = { 2, 5 };
+	private int cuts = 20_000;
+	private int repetitions = 5;
+	private long seed = 1;
+	private Path output = Paths.get(MinimizerSelection.DEFAULT_FILE);
+
+	public static void main(String[] args) {
+		if (Arrays.asList(args).contains("--help")) {
+			System.out.println(USAGE);
+			return;
+		}
+
+		MinimizerCalibrationRunner runner = new MinimizerCalibrationRunner();
+		try {
+			runner.parseArguments(args);
+		} catch (RuntimeException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+
+		try {
+			runner.run();
+		} catch (IOException | RuntimeException e) {
+			System.err.println("Minimizer calibration failed: " + e);
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Parses the command-line options (see USAGE) into this runner.
+	 *
+	 * @param args
+	 * @return this runner
+	 */
+	public MinimizerCalibrationRunner parseArguments(String[] args) {
+		for (int i = 0; i < args.length; i++) {
+			String option = args[i];
+			if (i + 1 >= args.length)
+				throw new RuntimeException("Missing value of option " + option + ".");
+			String value = args[++i];
+
+			try {
+				switch (option) {
+				case "--lists":
+					listsDirectory = Paths.get(value);
+					break;
+				case "--states":
+					states = CutSweepRunner.parseRange(value);
+					break;
+				case "--cuts":
+					cuts = Integer.parseInt(value);
+					if (cuts < 0)
+						throw new NumberFormatException();
+					break;
+				case "--repetitions":
+					repetitions = Integer.parseInt(value);
+					if (repetitions < 1)
+						throw new NumberFormatException();
+					break;
+				case "--seed":
+					seed = Long.parseLong(value);
+					break;
+				case "--output":
+					output = Paths.get(value);
+					break;
+				default:
+					throw new RuntimeException("Unknown option " + option + ".");
+				}
+			} catch (NumberFormatException e) {
+				throw new RuntimeException("Invalid value " + value + " of " + option + ".");
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Runs the calibration and writes the selection.
+	 *
+	 * @return the calibrated selection
+	 * @throws IOException
+	 */
+	public MinimizerSelection run() throws IOException {
+		List<SimpleDFA> automata = readAutomata();
+		if (automata.isEmpty())
+			throw new RuntimeException("No automata in " + listsDirectory + ".");
+		List<SimpleDFA> samples = new ArrayList<>(automata);
+		Random random = new Random(seed);
+		for (int i = 0; i < cuts; i++)
+			samples.add(new CutAutomaton(automata.get(random.nextInt(automata.size())),
+					automata.get(random.nextInt(automata.size()))).getAutomaton());
+
+		long start = System.nanoTime();
+		MinimizerSelection selection = MinimizerSelection.calibrate(samples, repetitions);
+		long elapsed = System.nanoTime() - start;
+
+		for (Map.Entry<String, String> entry : selection.getEngines().entrySet())
+			System.out.println(entry.getKey() + "=" + entry.getValue());
+		System.err.println(samples.size() + " samples calibrated in " + elapsed / 1_000_000 + " ms, written to "
+				+ output);
+		selection.store(output);
+		return selection;
+	}
+
+	/**
+	 * Support method reading the distinct automata of every list with the given
+	 * state counts.
+	 *
+	 * @return list of automata
+	 * @throws IOException
+	 */
+	private List<SimpleDFA> readAutomata() throws IOException {
+		List<SimpleDFA> automata = new ArrayList<>();
+		for (int n = states[0]; n <= states[1]; n++) {
+			Path directory = listsDirectory.resolve("numOfStates" + n);
+			if (!Files.isDirectory(directory))
+				throw new RuntimeException("Missing automata lists " + directory + ".");
+			Set<String> codes = new LinkedHashSet<>();
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.txt")) {
+				List<Path> sorted = new ArrayList<>();
+				files.forEach(sorted::add);
+				sorted.sort(null);
+				for (Path file : sorted)
+					for (String line : Files.readAllLines(file, StandardCharsets.UTF_8))
+						if (!line.trim().isEmpty())
+							codes.add(line.trim());
+			}
+			for (String code : codes) {
+				DFASerialCodeAnalyzer analyzer = new DFASerialCodeAnalyzer(n, code.length() / n - 1);
+				analyzer.parse(code);
+				automata.add(analyzer.getParsedAutomaton());
+			}
+		}
+		return automata;
+	}
+
+}
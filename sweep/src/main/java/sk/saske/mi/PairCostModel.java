@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ *
+ * Cost model of the full mode of CutSweep, used to schedule the pairs on the
+ * worker threads. The time to construct and minimize a cut automaton grows with
+ * its number of reachable states, which depends on the structure of both
+ * operands far more than on their state counts (the finality of the initial
+ * state of A, the states of A reachable from its final states, the reachable
+ * pairs). The model therefore samples it: the reachable states of the cut of
+ * every A with a few evenly spaced B (and of every B with a few A) are counted
+ * by CutAutomatonBatch without constructing the cuts, and the cost of a pair is
+ * estimated by the product
+ *
+ * cost(A, B) = rowWeight(A) * columnWeight(B),
+ *
+ * where rowWeight(A) is the mean number of reachable states of the sampled cuts
+ * of A plus PAIR_OVERHEAD, and columnWeight(B) the mean over the sampled cuts of
+ * B, normalized to the mean 1. The cost of a range of second operands follows
+ * from prefix sums in constant time.
+ *
+ * The schedule splits the rows (one A against every B) whose cost exceeds a
+ * fraction of the cost per worker into ranges of second operands and orders
+ * the tasks by decreasing cost (longest processing time first), so the last
+ * tasks are short and no worker stays idle for long at the end of a sweep,
+ * also when a list has fewer automata than there are workers.
+ *
+ */
+public class PairCostModel {
+
+	// estimated cost of a pair besides its reachable cut states (batch setup,
+	// minimization setup, recording), in states
+	public static final double PAIR_OVERHEAD = 8;
+	// number of sampled cuts per operand
+	public static final int SAMPLES = 8;
+	// number of tasks per worker a task cost is bounded by
+	public static final int TASKS_PER_WORKER = 8;
+
+	private double[] rowWeights;
+	// columnSums[b] is the sum of the column weights of the second operands
+	// before b
+	private double[] columnSums;
+
+	/**
+	 * Constructor sampling the cost model of the given operands.
+	 *
+	 * @param automataA
+	 * @param blockB    - second operands
+	 */
+	public PairCostModel(SimpleDFA[] automataA, AutomataBlock blockB) {
+		int numberOfA = automataA.length;
+		int numberOfB = blockB.getSize();
+		this.rowWeights = new double[numberOfA];
+		this.columnSums = new double[numberOfB + 1];
+		if (numberOfA == 0 || numberOfB == 0)
+			return;
+
+		double[] columnWeights = new double[numberOfB];
+		int samplesA = Math.min(SAMPLES, numberOfA);
+		int samplesB = Math.min(SAMPLES, numberOfB);
+		for (int indexA = 0; indexA < numberOfA; indexA++) {
+			CutAutomatonBatch batch = new CutAutomatonBatch(automataA[indexA]);
+			double states = 0;
+			for (int sample = 0; sample < samplesB; sample++)
+				states += batch.countReachableStates(blockB, sampleIndex(sample, samplesB, numberOfB));
+			rowWeights[indexA] = states / samplesB + PAIR_OVERHEAD;
+		}
+		double totalWeight = 0;
+		for (int sample = 0; sample < samplesA; sample++) {
+			CutAutomatonBatch batch = new CutAutomatonBatch(automataA[sampleIndex(sample, samplesA, numberOfA)]);
+			for (int indexB = 0; indexB < numberOfB; indexB++)
+				columnWeights[indexB] += batch.countReachableStates(blockB, indexB) + PAIR_OVERHEAD;
+		}
+		for (double weight : columnWeights)
+			totalWeight += weight;
+
+		for (int indexB = 0; indexB < numberOfB; indexB++)
+			columnSums[indexB + 1] = columnSums[indexB] + columnWeights[indexB] * numberOfB / totalWeight;
+	}
+
+	/**
+	 * Returns the estimated cost of a pair.
+	 *
+	 * @param indexA
+	 * @param indexB
+	 * @return double
+	 */
+	public double pairCost(int indexA, int indexB) {
+		return rangeCost(indexA, indexB, indexB + 1);
+	}
+
+	/**
+	 * Returns the estimated cost of A against the second operands fromB
+	 * (inclusive) to toB (exclusive).
+	 *
+	 * @param indexA
+	 * @param fromB
+	 * @param toB
+	 * @return double
+	 */
+	public double rangeCost(int indexA, int fromB, int toB) {
+		return rowWeights[indexA] * (columnSums[toB] - columnSums[fromB]);
+	}
+
+	/**
+	 * Returns the tasks of the full mode for the given number of workers in the
+	 * order of submission, i.e. in decreasing order of their cost. Every task
+	 * costs at most the total cost divided by TASKS_PER_WORKER * workers, unless
+	 * it is a single pair.
+	 *
+	 * @param workers
+	 * @return list of tasks
+	 */
+	public List<Task> schedule(int workers) {
+		int numberOfB = columnSums.length - 1;
+		double totalCost = 0;
+		for (int indexA = 0; indexA < rowWeights.length; indexA++)
+			totalCost += rangeCost(indexA, 0, numberOfB);
+		double maxTaskCost = totalCost / ((long) TASKS_PER_WORKER * Math.max(1, workers));
+
+		List<Task> tasks = new ArrayList<>();
+		for (int indexA = 0; indexA < rowWeights.length; indexA++) {
+			int fromB = 0;
+			while (fromB < numberOfB) {
+				int toB = splitPoint(indexA, fromB, maxTaskCost);
+				tasks.add(new Task(indexA, fromB, toB, rangeCost(indexA, fromB, toB)));
+				fromB = toB;
+			}
+		}
+		tasks.sort(Comparator.comparingDouble(Task::getCost).reversed().thenComparingInt(Task::getIndexA)
+				.thenComparingInt(Task::getFromB));
+		return tasks;
+	}
+
+	/**
+	 * Support method returning the largest end of a range of second operands
+	 * starting at fromB whose cost does not exceed maxCost. The range contains
+	 * at least one second operand.
+	 *
+	 * @param indexA
+	 * @param fromB
+	 * @param maxCost
+	 * @return int
+	 */
+	private int splitPoint(int indexA, int fromB, double maxCost) {
+		int low = fromB + 1;
+		int high = columnSums.length - 1;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (rangeCost(indexA, fromB, middle) <= maxCost)
+				low = middle;
+			else
+				high = middle - 1;
+		}
+		return low;
+	}
+
+	/**
+	 * Support method returning the index of the given sample of evenly spaced
+	 * samples.
+	 *
+	 * @param sample
+	 * @param samples
+	 * @param size
+	 * @return int
+	 */
+	private static int sampleIndex(int sample, int samples, int size) {
+		return (int) ((2L * sample + 1) * size / (2L * samples));
+	}
+
+	/**
+	 * A range of second operands evaluated against one first operand.
+	 */
+	public static class Task {
+		private int indexA;
+		private int fromB;
+		private int toB;
+		private double cost;
+
+		public Task(int indexA, int fromB, int toB, double cost) {
+			this.indexA = indexA;
+			this.fromB = fromB;
+			this.toB = toB;
+			this.cost = cost;
+		}
+
+		/**
+		 * Getters.
+		 */
+
+		public int getIndexA() {
+			return indexA;
+		}
+
+		public int getFromB() {
+			return fromB;
+		}
+
+		public int getToB() {
+			return toB;
+		}
+
+		public double getCost() {
+			return cost;
+		}
+
+	}
+
+}
@@ -0,0 +1,402 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *
+ * Progress listener printing the number of completed pairs, the throughput and
+ * the estimated remaining time of a sweep (or of several sweeps sharing the
+ * reporter) at most once per reporting interval. When the sweep runner reports
+ * its cells, the reports also contain the completed cells and the current
+ * maximum of every variant of the running cell, and a line with the throughput
+ * of every worker thread since the previous report, so that a straggling worker
+ * stands out.
+ *
+ * After start() the reports are also emitted by a timer, i.e. while every
+ * worker is busy with a long row. Optionally every report is written to a
+ * status file in JSON, replaced atomically, for monitoring scripts.
+ *
+ */
+public class ProgressReporter implements SweepProgressListener {
+
+	// default time between two reports
+	public static final long DEFAULT_INTERVAL_MILLIS = 10_000;
+
+	// number of pairs of the whole run
+	private long totalPairs;
+	private AtomicLong completedPairs = new AtomicLong();
+	private PrintStream out;
+	private long intervalNanos;
+	private long startNanos;
+	// time of the last report
+	private long lastReportNanos;
+	// optional machine-readable status file
+	private Path statusFile;
+	// timer emitting the reports, see start()
+	private ScheduledExecutorService timer;
+
+	// number of cells of the whole run, 0 if the cells are not reported
+	private int totalCells;
+	private int completedCells;
+	// running cell, its variants and their current maxima
+	private String currentCell;
+	private List<String> currentVariants = new ArrayList<>();
+	private int[] currentMaxima = new int[0];
+	// maxima of the variants of the completed cells
+	private Map<String, Map<String, Integer>> cellMaxima = new LinkedHashMap<>();
+	// completed pairs per worker thread
+	private Map<String, Worker> workers = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructor for a reporter printing to the standard error output in the
+	 * default interval.
+	 *
+	 * @param totalPairs - number of pairs of the whole run
+	 */
+	public ProgressReporter(long totalPairs) {
+		this(totalPairs, System.err, DEFAULT_INTERVAL_MILLIS);
+	}
+
+	/**
+	 * Constructor for the reporter.
+	 *
+	 * @param totalPairs     - number of pairs of the whole run
+	 * @param out            - stream the reports are printed to
+	 * @param intervalMillis - minimal time between two reports
+	 */
+	public ProgressReporter(long totalPairs, PrintStream out, long intervalMillis) {
+		this.totalPairs = totalPairs;
+		this.out = out;
+		this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+		this.startNanos = System.nanoTime();
+		this.lastReportNanos = startNanos;
+	}
+
+	/**
+	 * Starts the timer emitting the reports in the reporting interval even when
+	 * no pairs are completed. The timer thread is a daemon and stops in finish().
+	 */
+	public synchronized void start() {
+		if (timer != null)
+			return;
+		timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "progress-reporter");
+			thread.setDaemon(true);
+			return thread;
+		});
+		timer.scheduleAtFixedRate(() -> reportIfDue(System.nanoTime()), intervalNanos, intervalNanos,
+				TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void pairsCompleted(long pairs) {
+		completedPairs.addAndGet(pairs);
+		long now = System.nanoTime();
+		Worker worker = workers.computeIfAbsent(Thread.currentThread().getName(), name -> new Worker());
+		worker.pairs.add(pairs);
+		worker.lastNanos = now;
+		reportIfDue(now);
+	}
+
+	@Override
+	public synchronized void cellStarted(String cell, List<String> variants, long pairs) {
+		currentCell = cell;
+		currentVariants = new ArrayList<>(variants);
+		currentMaxima = new int[variants.size()];
+	}
+
+	@Override
+	public synchronized void maximumFound(int variant, int stateCount) {
+		if (variant < currentMaxima.length)
+			currentMaxima[variant] = Math.max(currentMaxima[variant], stateCount);
+	}
+
+	@Override
+	public synchronized void cellCompleted(String cell) {
+		completedCells++;
+		Map<String, Integer> maxima = new LinkedHashMap<>();
+		for (int variant = 0; variant < currentVariants.size(); variant++)
+			maxima.put(currentVariants.get(variant), currentMaxima[variant]);
+		cellMaxima.put(cell, maxima);
+		currentCell = null;
+	}
+
+	/**
+	 * Prints the final report and stops the timer.
+	 */
+	public synchronized void finish() {
+		if (timer != null) {
+			timer.shutdownNow();
+			timer = null;
+		}
+		report(System.nanoTime(), true);
+	}
+
+	/**
+	 * Support method emitting a report if the reporting interval elapsed since
+	 * the previous one.
+	 *
+	 * @param now
+	 */
+	private synchronized void reportIfDue(long now) {
+		if (now - lastReportNanos < intervalNanos)
+			return;
+		report(now, false);
+	}
+
+	/**
+	 * Support method emitting a report to the output stream and to the status
+	 * file. The worker throughputs are measured since the previous report.
+	 *
+	 * @param now
+	 * @param finished - whether this is the final report
+	 */
+	private void report(long now, boolean finished) {
+		long completed = completedPairs.get();
+		double intervalSeconds = Math.max(now - lastReportNanos, 1) / 1e9;
+		Map<String, double[]> workerStates = new TreeMap<>();
+		for (Map.Entry<String, Worker> entry : workers.entrySet()) {
+			Worker worker = entry.getValue();
+			long pairs = worker.pairs.sum();
+			double rate = (pairs - worker.reportedPairs) / intervalSeconds;
+			worker.reportedPairs = pairs;
+			workerStates.put(entry.getKey(), new double[] { pairs, rate, (now - worker.lastNanos) / 1e9 });
+		}
+		lastReportNanos = now;
+
+		out.println(formatReport(completed, now));
+		if (currentCell != null && !finished)
+			out.println("  cell " + currentCell + ": " + formatMaxima());
+		if (workerStates.size() > 1 && !finished)
+			out.println("  workers: " + formatWorkers(workerStates));
+		if (statusFile != null)
+			writeStatus(completed, now, workerStates, finished);
+	}
+
+	/**
+	 * Support method formatting a single report line.
+	 *
+	 * @param completed
+	 * @param now
+	 * @return String
+	 */
+	private String formatReport(long completed, long now) {
+		double seconds = (now - startNanos) / 1e9;
+		double rate = seconds > 0 ? completed / seconds : 0;
+		double percent = totalPairs > 0 ? 100.0 * completed / totalPairs : 100;
+		String eta = rate > 0 ? formatDuration((long) ((totalPairs - completed) / rate)) : "?";
+		String cells = totalCells > 0 ? ", " + completedCells + "/" + totalCells + " cells" : "";
+		return String.format(Locale.ROOT, "[%5.1f%%] %d/%d pairs%s, %.0f pairs/s, elapsed %s, ETA %s", percent,
+				completed, totalPairs, cells, rate, formatDuration((long) seconds), eta);
+	}
+
+	/**
+	 * Support method formatting the current maxima of the running cell.
+	 *
+	 * @return String
+	 */
+	private String formatMaxima() {
+		StringBuilder builder = new StringBuilder("max");
+		for (int variant = 0; variant < currentVariants.size(); variant++)
+			builder.append(variant == 0 ? " " : ", ").append(currentVariants.get(variant)).append(' ')
+					.append(currentMaxima[variant]);
+		return builder.toString();
+	}
+
+	/**
+	 * Support method formatting the throughput of the workers. A worker which
+	 * has not completed any pairs for longer than the reporting interval is
+	 * marked with its idle time.
+	 *
+	 * @param workerStates - pairs, pairs per second and idle seconds per worker
+	 * @return String
+	 */
+	private String formatWorkers(Map<String, double[]> workerStates) {
+		StringBuilder builder = new StringBuilder();
+		for (Map.Entry<String, double[]> entry : workerStates.entrySet()) {
+			double[] state = entry.getValue();
+			if (builder.length() > 0)
+				builder.append(", ");
+			builder.append(String.format(Locale.ROOT, "%s %.0f pairs/s", entry.getKey(), state[1]));
+			if (state[2] * 1e9 > intervalNanos)
+				builder.append(" (idle ").append(formatDuration((long) state[2])).append(')');
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Support method writing the status file. The file is written next to its
+	 * final location and moved over it, so a reader never sees a partial status.
+	 *
+	 * @param completed
+	 * @param now
+	 * @param workerStates
+	 * @param finished
+	 */
+	private void writeStatus(long completed, long now, Map<String, double[]> workerStates, boolean finished) {
+		double seconds = (now - startNanos) / 1e9;
+		double rate = seconds > 0 ? completed / seconds : 0;
+		StringBuilder json = new StringBuilder("{\n");
+		json.append("  \"time\": ").append(quote(Instant.now().toString())).append(",\n");
+		json.append("  \"finished\": ").append(finished).append(",\n");
+		json.append(String.format(Locale.ROOT, "  \"elapsedSeconds\": %.1f,\n", seconds));
+		json.append("  \"totalPairs\": ").append(totalPairs).append(",\n");
+		json.append("  \"completedPairs\": ").append(completed).append(",\n");
+		json.append(String.format(Locale.ROOT, "  \"pairsPerSecond\": %.1f,\n", rate));
+		json.append("  \"etaSeconds\": ")
+				.append(rate > 0 ? String.valueOf((long) ((totalPairs - completed) / rate)) : "null").append(",\n");
+		json.append("  \"totalCells\": ").append(totalCells).append(",\n");
+		json.append("  \"completedCells\": ").append(completedCells).append(",\n");
+		json.append("  \"currentCell\": ");
+		if (currentCell == null || finished) {
+			json.append("null");
+		} else {
+			Map<String, Integer> maxima = new LinkedHashMap<>();
+			for (int variant = 0; variant < currentVariants.size(); variant++)
+				maxima.put(currentVariants.get(variant), currentMaxima[variant]);
+			json.append("{ \"cell\": ").append(quote(currentCell)).append(", \"maxima\": ").append(toJson(maxima))
+					.append(" }");
+		}
+		json.append(",\n  \"workers\": [");
+		boolean first = true;
+		for (Map.Entry<String, double[]> entry : workerStates.entrySet()) {
+			double[] state = entry.getValue();
+			json.append(first ? "\n" : ",\n");
+			json.append(String.format(Locale.ROOT,
+					"    { \"name\": %s, \"pairs\": %d, \"pairsPerSecond\": %.1f, \"idleSeconds\": %.1f }",
+					quote(entry.getKey()), (long) state[0], state[1], state[2]));
+			first = false;
+		}
+		json.append(first ? "],\n" : "\n  ],\n");
+		json.append("  \"cells\": {");
+		first = true;
+		for (Map.Entry<String, Map<String, Integer>> entry : cellMaxima.entrySet()) {
+			json.append(first ? "\n" : ",\n");
+			json.append("    ").append(quote(entry.getKey())).append(": ").append(toJson(entry.getValue()));
+			first = false;
+		}
+		json.append(first ? "}\n" : "\n  }\n").append("}\n");
+
+		try {
+			Path absolute = statusFile.toAbsolutePath();
+			Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+			Files.write(temporary, json.toString().getBytes(StandardCharsets.UTF_8));
+			Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			out.println("Cannot write status file " + statusFile + ": " + e);
+		}
+	}
+
+	/**
+	 * Support method formatting the maxima of the variants of a cell as a JSON
+	 * object.
+	 *
+	 * @param maxima
+	 * @return String
+	 */
+	private static String toJson(Map<String, Integer> maxima) {
+		StringBuilder builder = new StringBuilder("{");
+		for (Map.Entry<String, Integer> entry : maxima.entrySet())
+			builder.append(builder.length() > 1 ? ", " : " ").append(quote(entry.getKey())).append(": ")
+					.append(entry.getValue());
+		return builder.append(" }").toString();
+	}
+
+	/**
+	 * Support method quoting a JSON string.
+	 *
+	 * @param value
+	 * @return String
+	 */
+	private static String quote(String value) {
+		return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+	}
+
+	/**
+	 * Support method formatting a duration in seconds as h:mm:ss.
+	 *
+	 * @param seconds
+	 * @return String
+	 */
+	private static String formatDuration(long seconds) {
+		return String.format(Locale.ROOT, "%d:%02d:%02d", seconds / 3600, seconds / 60 % 60, seconds % 60);
+	}
+
+	/**
+	 * Completed pairs of a worker thread.
+	 */
+	private static class Worker {
+		private LongAdder pairs = new LongAdder();
+		// time of the last completion
+		private volatile long lastNanos = System.nanoTime();
+		// pairs at the previous report
+		private long reportedPairs;
+	}
+
+	/**
+	 * Getters and setters.
+	 */
+
+	public long getTotalPairs() {
+		return totalPairs;
+	}
+
+	public long getCompletedPairs() {
+		return completedPairs.get();
+	}
+
+	public synchronized int getTotalCells() {
+		return totalCells;
+	}
+
+	public synchronized void setTotalCells(int totalCells) {
+		this.totalCells = totalCells;
+	}
+
+	public synchronized int getCompletedCells() {
+		return completedCells;
+	}
+
+	public synchronized Path getStatusFile() {
+		return statusFile;
+	}
+
+	public synchronized void setStatusFile(Path statusFile) {
+		this.statusFile = statusFile;
+	}
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ *
+ * Manifest of the sweep results in an output directory (the file
+ * sweepManifest.tsv). For every output cell, i.e. a variant and a pair of
+ * automata lists, it records the inputs the cell was computed from (the result
+ * version of the sweep engine, the sweep options and the content hashes of
+ * both lists) and the content hashes of the written histogram and witness
+ * files. A cell is current if its recorded inputs equal the present ones and
+ * its output files are unchanged, so an incremental sweep recomputes only the
+ * cells whose lists changed.
+ *
+ */
+public class SweepManifest {
+
+	public static final String FILE_NAME = "sweepManifest.tsv";
+
+	private static final String HEADER = "# cell\tengine\toptions\tlistA\tlistB\thistogram\twitnesses";
+
+	private Path outputDirectory;
+	// records by cell name
+	private Map<String, Record> records = new TreeMap<>();
+
+	/**
+	 *
+	 * Inputs and outputs of one cell.
+	 *
+	 */
+	private static class Record {
+
+		private final String inputs;
+		private final String histogramHash;
+		private final String witnessHash;
+
+		Record(String inputs, String histogramHash, String witnessHash) {
+			this.inputs = inputs;
+			this.histogramHash = histogramHash;
+			this.witnessHash = witnessHash;
+		}
+
+	}
+
+	/**
+	 * Constructor loading the manifest of the output directory, if there is
+	 * one.
+	 *
+	 * @param outputDirectory
+	 * @throws IOException
+	 */
+	public SweepManifest(Path outputDirectory) throws IOException {
+		this.outputDirectory = outputDirectory;
+		Path file = outputDirectory.resolve(FILE_NAME);
+		if (!Files.isRegularFile(file))
+			return;
+		for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+			if (line.startsWith("#") || line.trim().isEmpty())
+				continue;
+			String[] fields = line.split("\t");
+			if (fields.length != 7)
+				throw new RuntimeException("Invalid manifest line " + line + " in " + file + ".");
+			records.put(fields[0], new Record(fields[1] + "\t" + fields[2] + "\t" + fields[3] + "\t" + fields[4],
+					fields[5], fields[6]));
+		}
+	}
+
+	/**
+	 * Returns the inputs of a cell in the manifest format.
+	 *
+	 * @param engineVersion
+	 * @param options       - sweep options affecting the results
+	 * @param listHashA     - content hash of the list of the first operands
+	 * @param listHashB     - content hash of the list of the second operands
+	 * @return String
+	 */
+	public static String inputs(int engineVersion, String options, String listHashA, String listHashB) {
+		return engineVersion + "\t" + options + "\t" + listHashA + "\t" + listHashB;
+	}
+
+	/**
+	 * Returns whether the cell was computed from the given inputs and its output
+	 * files are unchanged since.
+	 *
+	 * @param cell
+	 * @param inputs         - see inputs
+	 * @param histogramFile
+	 * @param witnessFile
+	 * @return boolean
+	 * @throws IOException
+	 */
+	public boolean isCurrent(String cell, String inputs, Path histogramFile, Path witnessFile) throws IOException {
+		Record record = records.get(cell);
+		if (record == null || !record.inputs.equals(inputs))
+			return false;
+		if (!Files.isRegularFile(histogramFile) || !Files.isRegularFile(witnessFile))
+			return false;
+		return record.histogramHash.equals(ContentHash.of(histogramFile))
+				&& record.witnessHash.equals(ContentHash.of(witnessFile));
+	}
+
+	/**
+	 * Records the inputs and the written output files of a cell.
+	 *
+	 * @param cell
+	 * @param inputs        - see inputs
+	 * @param histogramFile
+	 * @param witnessFile
+	 * @throws IOException
+	 */
+	public void record(String cell, String inputs, Path histogramFile, Path witnessFile) throws IOException {
+		records.put(cell, new Record(inputs, ContentHash.of(histogramFile), ContentHash.of(witnessFile)));
+	}
+
+	/**
+	 * Writes the manifest into the output directory.
+	 *
+	 * @throws IOException
+	 */
+	public void save() throws IOException {
+		StringBuilder sb = new StringBuilder(HEADER).append('\n');
+		for (Map.Entry<String, Record> entry : records.entrySet()) {
+			Record record = entry.getValue();
+			sb.append(entry.getKey()).append('\t').append(record.inputs).append('\t').append(record.histogramHash)
+					.append('\t').append(record.witnessHash).append('\n');
+		}
+		Files.createDirectories(outputDirectory);
+		Files.write(outputDirectory.resolve(FILE_NAME), sb.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Returns the name of a cell.
+	 *
+	 * @param variant
+	 * @param first
+	 * @param n
+	 * @param second
+	 * @param m
+	 * @return String
+	 */
+	public static String cell(String variant, String first, int n, String second, int m) {
+		return variant + "/" + first + "x" + second + "/" + n + "_" + first + "x" + m + "_" + second;
+	}
+
+	/**
+	 * Getters.
+	 */
+
+	public int size() {
+		return records.size();
+	}
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.util.List;
+
+/**
+ *
+ * Listener notified about the progress of a cut sweep. Full mode sweeps call
+ * it from their worker threads, so implementations must be thread-safe.
+ *
+ */
+public interface SweepProgressListener {
+
+	/**
+	 * Called after the given number of further pairs was evaluated or pruned.
+	 *
+	 * @param pairs
+	 */
+	void pairsCompleted(long pairs);
+
+	/**
+	 * Called by the sweep runner before the sweep of a cell (a pair of automata
+	 * lists, evaluated for the given variants at once).
+	 *
+	 * @param cell     - cell label, e.g. 3_LIDx4_RID
+	 * @param variants - names of the variants evaluated in the cell
+	 * @param pairs    - number of pairs of the cell
+	 */
+	default void cellStarted(String cell, List<String> variants, long pairs) {
+	}
+
+	/**
+	 * Called when the sweep found a new maximal cut complexity of a variant of
+	 * the current cell.
+	 *
+	 * @param variant    - index of the variant
+	 * @param stateCount
+	 */
+	default void maximumFound(int variant, int stateCount) {
+	}
+
+	/**
+	 * Called by the sweep runner after the results of a cell were written.
+	 *
+	 * @param cell
+	 */
+	default void cellCompleted(String cell) {
+	}
+
+}
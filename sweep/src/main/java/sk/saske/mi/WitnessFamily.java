@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+/**
+ *
+ * Parametric family of witness pairs (A_m, B_n) for the cut operation together
+ * with the state complexity the family is claimed to reach, e.g. the formula
+ * of a lower bound proof. Implementations are evaluated by FamilyEvaluator and
+ * need a public no-argument constructor to be usable from
+ * FamilyEvaluatorRunner.
+ *
+ */
+public interface WitnessFamily {
+
+	/**
+	 * Returns the name of the family used in the reports.
+	 *
+	 * @return String
+	 */
+	String getName();
+
+	/**
+	 * Returns the first operand of the family with the given number of states.
+	 *
+	 * @param numberOfStatesA
+	 * @return SimpleDFA
+	 */
+	SimpleDFA getAutomatonA(int numberOfStatesA);
+
+	/**
+	 * Returns the second operand of the family with the given number of states.
+	 *
+	 * @param numberOfStatesB
+	 * @return SimpleDFA
+	 */
+	SimpleDFA getAutomatonB(int numberOfStatesB);
+
+	/**
+	 * Returns the expected number of states of the minimal cut automaton of
+	 * (A_m, B_n).
+	 *
+	 * @param numberOfStatesA
+	 * @param numberOfStatesB
+	 * @return long
+	 */
+	long getExpectedComplexity(int numberOfStatesA, int numberOfStatesB);
+
+}
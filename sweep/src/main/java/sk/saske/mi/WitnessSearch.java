@@ -0,0 +1,330 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ *
+ * Heuristic search for pairs (A, B) of minimal DFAs of given subclasses with a
+ * large minimal cut automaton, for state counts where exhaustive sweeps are
+ * infeasible. Several independent walkers run in parallel; every walker starts
+ * from a random pair (see RandomDFASampler) and repeatedly mutates a single
+ * transition or the finality of a single state of A or B. A mutant is kept if
+ * it is still a minimal DFA of its subclass (checked by
+ * RandomDFASampler.accepts, i.e. ConvexSubclassTester) and its minimal cut
+ * automaton is not smaller than the current one. Only the number of states of
+ * the minimal cut automaton is computed, in the scratch arena of the walker
+ * (see CutAutomatonBatch.countMinimalStates). After stallLimit mutations
+ * without improvement a walker restarts from its best pair perturbed by
+ * RESTART_MUTATIONS kept mutations of each operand.
+ *
+ * Every pair improving the best state count found so far is written
+ * immediately in the hardestWitnesses.txt format (see CutWitness), with the
+ * automata in canonical (BFS) numbering.
+ *
+ */
+public class WitnessSearch {
+
+	// default number of mutations without improvement before a restart
+	public static final int DEFAULT_STALL_LIMIT = 2_000;
+	// number of kept mutations of each operand of a restarted pair
+	public static final int RESTART_MUTATIONS = 8;
+	// number of tried mutations per kept mutation of a restarted pair
+	public static final int RESTART_ATTEMPTS = 100;
+
+	private String subclassA;
+	private int numberOfStatesA;
+	private String subclassB;
+	private int numberOfStatesB;
+	private int alphabetSize;
+	private long seed;
+	private int stallLimit = DEFAULT_STALL_LIMIT;
+
+	// best pair found so far
+	private int bestStateCount;
+	private CutWitness bestWitness;
+	// optional output of improving witnesses
+	private Writer output;
+
+	// statistics
+	private long evaluatedPairs;
+	private long restarts;
+
+	/**
+	 * Constructor for the search.
+	 *
+	 * @param subclassA       - subclass of the first operands, "ALLdfa" for all
+	 *                        minimal DFAs
+	 * @param numberOfStatesA
+	 * @param subclassB       - subclass of the second operands, "ALLdfa" for all
+	 *                        minimal DFAs
+	 * @param numberOfStatesB
+	 * @param alphabetSize
+	 * @param seed
+	 */
+	public WitnessSearch(String subclassA, int numberOfStatesA, String subclassB, int numberOfStatesB,
+			int alphabetSize, long seed) {
+		this.subclassA = subclassA;
+		this.numberOfStatesA = numberOfStatesA;
+		this.subclassB = subclassB;
+		this.numberOfStatesB = numberOfStatesB;
+		this.alphabetSize = alphabetSize;
+		this.seed = seed;
+		// validates the parameters early
+		new RandomDFASampler(numberOfStatesA, alphabetSize, subclassA);
+		new RandomDFASampler(numberOfStatesB, alphabetSize, subclassB);
+	}
+
+	/**
+	 * Runs the given number of walkers in parallel until the time limit elapses
+	 * or every walker has performed the given number of mutations.
+	 *
+	 * @param walkers
+	 * @param mutationsPerWalker
+	 * @param timeLimitMillis    - time limit, 0 for none
+	 */
+	public void run(int walkers, long mutationsPerWalker, long timeLimitMillis) {
+		bestStateCount = 0;
+		bestWitness = null;
+		evaluatedPairs = 0;
+		restarts = 0;
+		long deadline = timeLimitMillis > 0 ? System.nanoTime() + timeLimitMillis * 1_000_000L : Long.MAX_VALUE;
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, walkers));
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int walker = 0; walker < walkers; walker++) {
+				final SplittableRandom random = new SplittableRandom(seed + walker * 0x632BE59BD9B4E019L);
+				futures.add(executor.submit(() -> walk(random, mutationsPerWalker, deadline)));
+			}
+			for (Future<?> future : futures)
+				future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Witness search interrupted.", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			throw new RuntimeException(cause.getMessage() != null ? cause.getMessage() : cause.toString(), cause);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Support method running a single walker.
+	 *
+	 * @param random
+	 * @param mutations
+	 * @param deadline  - System.nanoTime() deadline
+	 */
+	private void walk(SplittableRandom random, long mutations, long deadline) {
+		RandomDFASampler samplerA = new RandomDFASampler(numberOfStatesA, alphabetSize, subclassA);
+		RandomDFASampler samplerB = new RandomDFASampler(numberOfStatesB, alphabetSize, subclassB);
+		SimpleDFAOperator operator = new SimpleDFAOperator();
+		CutScratchArena arena = new CutScratchArena(numberOfStatesA * numberOfStatesB + numberOfStatesA, alphabetSize);
+
+		// current pair, A batched and B in a block for the cut construction
+		SimpleDFA a = null;
+		SimpleDFA b = null;
+		CutAutomatonBatch batch = null;
+		AutomataBlock block = null;
+		int score = 0;
+		// best pair of the walker, the start of its restarts
+		SimpleDFA bestA = null;
+		SimpleDFA bestB = null;
+		int bestScore = -1;
+		int stalled = 0;
+		long evaluated = 0;
+		for (long mutation = 0; mutation < mutations && System.nanoTime() < deadline; mutation++) {
+			if (a == null || stalled >= stallLimit) {
+				a = bestA == null ? samplerA.sample(random) : perturb(bestA, samplerA, random);
+				b = bestB == null ? samplerB.sample(random) : perturb(bestB, samplerB, random);
+				batch = new CutAutomatonBatch(a);
+				block = new AutomataBlock(new SimpleDFA[] { b });
+				score = batch.countMinimalStates(block, 0, arena);
+				evaluated++;
+				stalled = 0;
+				synchronized (this) {
+					restarts++;
+				}
+			} else {
+				boolean mutateA = random.nextBoolean();
+				SimpleDFA mutant = mutate(mutateA ? a : b, random);
+				if (!(mutateA ? samplerA : samplerB).accepts(mutant)) {
+					stalled++;
+					continue;
+				}
+				mutant = new AutomatonKey(mutant).toAutomaton();
+				CutAutomatonBatch candidateBatch = mutateA ? new CutAutomatonBatch(mutant) : batch;
+				AutomataBlock candidateBlock = mutateA ? block : new AutomataBlock(new SimpleDFA[] { mutant });
+				int candidateScore = candidateBatch.countMinimalStates(candidateBlock, 0, arena);
+				evaluated++;
+
+				stalled = candidateScore > score ? 0 : stalled + 1;
+				if (candidateScore < score)
+					continue;
+				if (mutateA)
+					a = mutant;
+				else
+					b = mutant;
+				batch = candidateBatch;
+				block = candidateBlock;
+				score = candidateScore;
+			}
+			if (score > bestScore) {
+				bestA = a;
+				bestB = b;
+				bestScore = score;
+				offer(operator, a, b, batch, block, score);
+			}
+		}
+		synchronized (this) {
+			evaluatedPairs += evaluated;
+		}
+	}
+
+	/**
+	 * Support method returning the DFA changed by RESTART_MUTATIONS mutations
+	 * accepted by the sampler (fewer if RESTART_ATTEMPTS tries per mutation do
+	 * not suffice), in canonical numbering.
+	 *
+	 * @param dfa
+	 * @param sampler
+	 * @param random
+	 * @return SimpleDFA
+	 */
+	private SimpleDFA perturb(SimpleDFA dfa, RandomDFASampler sampler, SplittableRandom random) {
+		SimpleDFA perturbed = dfa;
+		int kept = 0;
+		for (int attempt = 0; attempt < RESTART_MUTATIONS * RESTART_ATTEMPTS && kept < RESTART_MUTATIONS; attempt++) {
+			SimpleDFA mutant = mutate(perturbed, random);
+			if (sampler.accepts(mutant)) {
+				perturbed = mutant;
+				kept++;
+			}
+		}
+		return new AutomatonKey(perturbed).toAutomaton();
+	}
+
+	/**
+	 * Support method returning a copy of the DFA with either one transition
+	 * redirected or the finality of one state flipped.
+	 *
+	 * @param dfa
+	 * @param random
+	 * @return SimpleDFA
+	 */
+	private SimpleDFA mutate(SimpleDFA dfa, SplittableRandom random) {
+		SimpleDFA mutant = dfa.copy();
+		int state = random.nextInt(dfa.getNumberOfStates());
+		if (random.nextInt(dfa.getAlphabetSize() + 1) == 0) {
+			mutant.getFinalityArray()[state] = !mutant.getFinalityArray()[state];
+		} else {
+			int symbol = random.nextInt(dfa.getAlphabetSize());
+			mutant.getTransitionMatrix()[state][symbol] = random.nextInt(dfa.getNumberOfStates());
+		}
+		return mutant;
+	}
+
+	/**
+	 * Support method recording the pair if it improves the best state count. The
+	 * minimal cut automaton of the witness is only built for improving pairs.
+	 *
+	 * @param operator
+	 * @param a
+	 * @param b
+	 * @param batch      - batched cut construction of a
+	 * @param block      - block of b
+	 * @param stateCount
+	 */
+	private void offer(SimpleDFAOperator operator, SimpleDFA a, SimpleDFA b, CutAutomatonBatch batch,
+			AutomataBlock block, int stateCount) {
+		synchronized (this) {
+			if (stateCount <= bestStateCount)
+				return;
+		}
+		CutWitness witness = new CutWitness(0, 0, new DFASerialCodeAnalyzer(numberOfStatesA, alphabetSize).encode(a),
+				new DFASerialCodeAnalyzer(numberOfStatesB, alphabetSize).encode(b),
+				operator.minimize(batch.cut(block, 0)));
+		synchronized (this) {
+			if (stateCount <= bestStateCount)
+				return;
+			bestStateCount = stateCount;
+			bestWitness = witness;
+			if (output != null) {
+				try {
+					output.write(witness + "\n");
+					output.flush();
+				} catch (IOException e) {
+					throw new RuntimeException("Cannot write witness.", e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Getters and setters.
+	 */
+
+	public synchronized int getBestStateCount() {
+		return bestStateCount;
+	}
+
+	public synchronized CutWitness getBestWitness() {
+		return bestWitness;
+	}
+
+	public synchronized long getEvaluatedPairs() {
+		return evaluatedPairs;
+	}
+
+	public synchronized long getRestarts() {
+		return restarts;
+	}
+
+	public int getStallLimit() {
+		return stallLimit;
+	}
+
+	public void setStallLimit(int stallLimit) {
+		this.stallLimit = stallLimit;
+	}
+
+	public Writer getOutput() {
+		return output;
+	}
+
+	/**
+	 * Sets the output every improving witness is written to as soon as it is
+	 * found, null for none.
+	 *
+	 * @param output
+	 */
+	public void setOutput(Writer output) {
+		this.output = output;
+	}
+
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2022 Viktor Olejár
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.saske.mi;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ *
+ * Command-line runner of the heuristic witness search (see WitnessSearch).
+ * Every improving witness is written as soon as it is found, to the output file
+ * if given and to the standard output otherwise, so an interrupted search keeps
+ * its best pairs.
+ *
+ * Usage: see USAGE.
+ *
+ */
+public class WitnessSearchRunner {
+
+	public static final String USAGE = "Usage: WitnessSearchRunner [options]\n"
+			+ "  --first X           subclass of the first operand (default ALLdfa)\n"
+			+ "  --second Y          subclass of the second operand (default ALLdfa)\n"
+			+ "  --states n          number of states of the first operand (default 8)\n"
+			+ "  --states-b m        number of states of the second operand (default as --states)\n"
+			+ "  --alphabet k        alphabet size (default 2)\n"
+			+ "  --walkers w         number of parallel walkers (default number of processors)\n"
+			+ "  --mutations i       number of mutations per walker (default unlimited)\n"
+			+ "  --stall s           mutations without improvement before a restart (default "
+			+ WitnessSearch.DEFAULT_STALL_LIMIT + ")\n"
+			+ "  --time seconds      time limit (default 60, 0 for none)\n"
+			+ "  --seed seed         random seed (default 1)\n"
+			+ "  --output file       hardestWitnesses.txt file the improving witnesses are appended to";
+
+	private String subclassA = "ALLdfa";
+	private String subclassB = "ALLdfa";
+	private int numberOfStatesA = 8;
+	private int numberOfStatesB = -1;
+	private int alphabetSize = 2;
+	private int walkers = Runtime.getRuntime().availableProcessors();
+	private long mutations = Long.MAX_VALUE;
+	private int stallLimit = WitnessSearch.DEFAULT_STALL_LIMIT;
+	private long timeLimitMillis = 60_000;
+	private long seed = 1;
+	private Path output;
+
+	public static void main(String[] args) {
+		if (Arrays.asList(args).contains("--help")) {
+			System.out.println(USAGE);
+			return;
+		}
+
+		WitnessSearchRunner runner = new WitnessSearchRunner();
+		try {
+			runner.parseArguments(args);
+		} catch (RuntimeException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+
+		try {
+			runner.run();
+		} catch (IOException | RuntimeException e) {
+			System.err.println("Witness search failed: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Parses the command-line options (see USAGE) into this runner.
+	 *
+	 * @param args
+	 * @return this runner
+	 */
+	public WitnessSearchRunner parseArguments(String[] args) {
+		for (int i = 0; i < args.length; i++) {
+			String option = args[i];
+			if (i + 1 >= args.length)
+				throw new RuntimeException("Missing value of option " + option + ".");
+			String value = args[++i];
+
+			try {
+				switch (option) {
+				case "--first":
+					subclassA = value;
+					break;
+				case "--second":
+					subclassB = value;
+					break;
+				case "--states":
+					numberOfStatesA = Integer.parseInt(value);
+					break;
+				case "--states-b":
+					numberOfStatesB = Integer.parseInt(value);
+					break;
+				case "--alphabet":
+					alphabetSize = Integer.parseInt(value);
+					break;
+				case "--walkers":
+					walkers = Integer.parseInt(value);
+					break;
+				case "--mutations":
+					mutations = Long.parseLong(value);
+					break;
+				case "--stall":
+					stallLimit = Integer.parseInt(value);
+					break;
+				case "--time":
+					timeLimitMillis = 1000L * Long.parseLong(value);
+					break;
+				case "--seed":
+					seed = Long.parseLong(value);
+					break;
+				case "--output":
+					output = Paths.get(value);
+					break;
+				default:
+					throw new RuntimeException("Unknown option " + option + ".");
+				}
+			} catch (NumberFormatException e) {
+				throw new RuntimeException("Invalid value " + value + " of " + option + ".");
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Runs the search and reports its results.
+	 *
+	 * @throws IOException
+	 */
+	public void run() throws IOException {
+		WitnessSearch search = new WitnessSearch(subclassA, numberOfStatesA, subclassB,
+				numberOfStatesB == -1 ? numberOfStatesA : numberOfStatesB, alphabetSize, seed);
+		search.setStallLimit(stallLimit);
+
+		Writer writer = output != null ? Files.newBufferedWriter(output, StandardCharsets.UTF_8)
+				: new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+		search.setOutput(writer);
+		try {
+			search.run(walkers, mutations, timeLimitMillis);
+		} finally {
+			writer.flush();
+			if (output != null)
+				writer.close();
+		}
+
+		System.err.println("evaluated " + search.getEvaluatedPairs() + " pairs, " + search.getRestarts()
+				+ " restarts, best cut complexity " + search.getBestStateCount());
+	}
+
+}